@@ -0,0 +1,389 @@
+package com.github.DiachenkoMD.lightrun.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Validates Lightrun benchmarks at compile time and generates a direct-call runner ({@code <class>_LightrunRunner},
+ * implementing {@code GeneratedRunner}) for every {@code @Benchmark} class, so units are neither discovered nor
+ * linked through reflection at runtime and {@code $parameter} references in unit names don't need {@code -parameters}.
+ * <br/>
+ * Mistakes, which would otherwise surface only while measuring, are compilation errors: missing or malformed data
+ * sources, units taking arguments without a data source and benchmark classes which can't be instantiated.
+ * <br/>
+ * Lightrun annotations are matched by name, so the processor has no dependency on Lightrun itself.
+ */
+@SupportedAnnotationTypes({
+        BenchmarkProcessor.BENCHMARK,
+        BenchmarkProcessor.UNIT,
+        BenchmarkProcessor.DATA_SOURCE
+})
+public class BenchmarkProcessor extends AbstractProcessor {
+    private static final String LIGHTRUN = "com.github.DiachenkoMD.lightrun";
+    static final String BENCHMARK = LIGHTRUN + ".annotations.Benchmark";
+    static final String UNIT = LIGHTRUN + ".annotations.Unit";
+    static final String DATA_SOURCE = LIGHTRUN + ".annotations.DataSource";
+    private static final String PARAM = LIGHTRUN + ".annotations.Param";
+    private static final String BLACKHOLE = LIGHTRUN + ".Blackhole";
+    private static final String SUFFIX = "_LightrunRunner";
+
+    private static final Pattern NAME_REFERENCE = Pattern.compile("\\$([A-Za-z_][A-Za-z0-9_]*)");
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement benchmarkAnno = processingEnv.getElementUtils().getTypeElement(BENCHMARK);
+        TypeElement unitAnno = processingEnv.getElementUtils().getTypeElement(UNIT);
+        TypeElement dataSourceAnno = processingEnv.getElementUtils().getTypeElement(DATA_SOURCE);
+
+        // Lightrun is not on the compilation classpath, nothing to process
+        if(benchmarkAnno == null || unitAnno == null || dataSourceAnno == null)
+            return false;
+
+        for(Element element : roundEnv.getElementsAnnotatedWith(benchmarkAnno)){
+            if(element.getKind() != ElementKind.CLASS){
+                error(element, "@Benchmark can only be placed on classes!");
+                continue;
+            }
+
+            TypeElement clazz = (TypeElement) element;
+
+            if(validate(clazz))
+                generate(clazz);
+        }
+
+        for(Element unit : roundEnv.getElementsAnnotatedWith(unitAnno))
+            if(mirror(unit.getEnclosingElement(), BENCHMARK) == null)
+                warning(unit, "@Unit outside of @Benchmark class is never measured!");
+
+        for(Element unit : roundEnv.getElementsAnnotatedWith(dataSourceAnno))
+            if(mirror(unit, UNIT) == null)
+                warning(unit, "@DataSource is ignored on methods not marked with @Unit!");
+
+        // Annotations are not claimed, other processors may handle them too
+        return false;
+    }
+
+    /**
+     * @return false, if errors were reported and runner should not be generated
+     */
+    private boolean validate(TypeElement clazz){
+        boolean isValid = true;
+
+        if(clazz.getModifiers().contains(Modifier.ABSTRACT)){
+            error(clazz, "@Benchmark class can't be abstract!");
+            isValid = false;
+        }
+
+        if(clazz.getNestingKind() == NestingKind.LOCAL || clazz.getNestingKind() == NestingKind.ANONYMOUS
+                || (clazz.getNestingKind() == NestingKind.MEMBER && !clazz.getModifiers().contains(Modifier.STATIC))){
+            error(clazz, "@Benchmark class should be either top-level or static nested class!");
+            isValid = false;
+        }
+
+        for(Element enclosing = clazz; enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()){
+            if(enclosing.getModifiers().contains(Modifier.PRIVATE)){
+                error(clazz, "@Benchmark class (and classes enclosing it) can't be private!");
+                isValid = false;
+                break;
+            }
+        }
+
+        boolean hasPublicConstructor = ElementFilter.constructorsIn(clazz.getEnclosedElements()).stream()
+                .anyMatch(constructor -> constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC));
+
+        if(!hasPublicConstructor){
+            error(clazz, "@Benchmark class should have public constructor without arguments!");
+            isValid = false;
+        }
+
+        Set<String> paramFields = new HashSet<>();
+        for(VariableElement field : ElementFilter.fieldsIn(clazz.getEnclosedElements()))
+            if(mirror(field, PARAM) != null)
+                paramFields.add(field.getSimpleName().toString());
+
+        for(ExecutableElement unit : units(clazz)){
+            String unitName = stringValue(mirror(unit, UNIT));
+            List<String> argumentNames = argumentNames(unit);
+            AnnotationMirror dataSourceMirror = mirror(unit, DATA_SOURCE);
+
+            if(unit.getModifiers().contains(Modifier.PRIVATE))
+                warning(unit, "Private unit is invoked through reflection, make it package-private to let generated runner call it directly.");
+
+            if(dataSourceMirror == null){
+                if(!argumentNames.isEmpty()){
+                    error(unit, "Unit '" + unitName + "' takes arguments, but has no @DataSource!");
+                    isValid = false;
+                }
+            }else{
+                ExecutableElement dataSource = dataSource(clazz, stringValue(dataSourceMirror));
+
+                if(dataSource == null){
+                    error(unit, "Data source '" + stringValue(dataSourceMirror) + "' should be a method of " + clazz.getSimpleName() + " without arguments!");
+                    isValid = false;
+                }else if(!erasure(dataSource.getReturnType()).equals("java.util.stream.Stream")){
+                    error(dataSource, "Data source '" + dataSource.getSimpleName() + "' should return Stream<Arguments>!");
+                    isValid = false;
+                }
+            }
+
+            // Name can reference arguments, index of arguments set and @Param fields
+            Matcher matcher = NAME_REFERENCE.matcher(unitName);
+            while(matcher.find()){
+                String reference = matcher.group(1);
+                boolean isKnown = reference.equals("i")
+                        || argumentNames.stream().anyMatch(reference::startsWith)
+                        || paramFields.stream().anyMatch(reference::startsWith);
+
+                if(!isKnown)
+                    warning(unit, "Unit name '" + unitName + "' references unknown $" + reference + ", it is left as is.");
+            }
+        }
+
+        return isValid;
+    }
+
+    private void generate(TypeElement clazz){
+        String packageName = processingEnv.getElementUtils().getPackageOf(clazz).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(clazz).toString();
+        // Runner is looked up as <binary name>_LightrunRunner, so nested classes keep '$' in runner name
+        String runnerName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+        String type = clazz.getQualifiedName().toString();
+        List<ExecutableElement> units = units(clazz);
+
+        StringBuilder src = new StringBuilder();
+
+        if(!packageName.isEmpty())
+            src.append("package ").append(packageName).append(";\n\n");
+
+        src.append("@javax.annotation.processing.Generated(\"").append(BenchmarkProcessor.class.getName()).append("\")\n");
+        src.append("public final class ").append(runnerName).append(" implements ").append(LIGHTRUN).append(".GeneratedRunner<").append(type).append("> {\n");
+        src.append("    private static final java.util.List<java.lang.reflect.Method> UNITS = lookupUnits();\n\n");
+
+        // Units are looked up once by exact signatures, harness settings are still read from their annotations
+        src.append("    private static java.util.List<java.lang.reflect.Method> lookupUnits() {\n");
+        if(units.isEmpty()){
+            src.append("        return java.util.List.of();\n");
+        }else{
+            src.append("        try {\n");
+            src.append("            return java.util.List.of(\n");
+            for(int i = 0; i < units.size(); i++){
+                ExecutableElement unit = units.get(i);
+                src.append("                    ").append(type).append(".class.getDeclaredMethod(\"").append(unit.getSimpleName()).append('"');
+                for(VariableElement param : unit.getParameters())
+                    src.append(", ").append(erasure(param.asType())).append(".class");
+                src.append(')').append(i < units.size() - 1 ? "," : "").append('\n');
+            }
+            src.append("            );\n");
+            src.append("        } catch (java.lang.NoSuchMethodException e) {\n");
+            src.append("            throw new java.lang.IllegalStateException(\"Generated runner is out of date with ").append(type).append("!\", e);\n");
+            src.append("        }\n");
+        }
+        src.append("    }\n\n");
+
+        src.append("    @java.lang.Override\n");
+        src.append("    public ").append(type).append(" newInstance() {\n");
+        src.append("        return new ").append(type).append("();\n");
+        src.append("    }\n\n");
+
+        src.append("    @java.lang.Override\n");
+        src.append("    public java.util.List<java.lang.reflect.Method> units() {\n");
+        src.append("        return UNITS;\n");
+        src.append("    }\n\n");
+
+        src.append("    @java.lang.Override\n");
+        src.append("    public java.lang.String[] argumentNames(int unit) {\n");
+        src.append("        switch (unit) {\n");
+        for(int i = 0; i < units.size(); i++){
+            List<String> names = argumentNames(units.get(i));
+
+            if(names.isEmpty())
+                continue;
+
+            src.append("            case ").append(i).append(": return new java.lang.String[]{");
+            src.append(String.join(", ", names.stream().map(name -> '"' + name + '"').toList()));
+            src.append("};\n");
+        }
+        src.append("            default: return new java.lang.String[0];\n");
+        src.append("        }\n");
+        src.append("    }\n\n");
+
+        src.append("    @java.lang.Override\n");
+        src.append("    @java.lang.SuppressWarnings(\"unchecked\")\n");
+        src.append("    public java.util.stream.Stream<").append(LIGHTRUN).append(".Arguments> dataSource(int unit, ").append(type).append(" instance) {\n");
+        src.append("        switch (unit) {\n");
+        for(int i = 0; i < units.size(); i++){
+            AnnotationMirror dataSourceMirror = mirror(units.get(i), DATA_SOURCE);
+            ExecutableElement dataSource = dataSourceMirror != null ? dataSource(clazz, stringValue(dataSourceMirror)) : null;
+
+            // Private data sources are left to reflection
+            if(dataSource == null || dataSource.getModifiers().contains(Modifier.PRIVATE))
+                continue;
+
+            src.append("            case ").append(i).append(": return (java.util.stream.Stream<").append(LIGHTRUN).append(".Arguments>) (java.util.stream.Stream<?>) ")
+                    .append(receiver(dataSource, type)).append('.').append(dataSource.getSimpleName()).append("();\n");
+        }
+        src.append("            default: return null;\n");
+        src.append("        }\n");
+        src.append("    }\n\n");
+
+        src.append("    @java.lang.Override\n");
+        src.append("    @java.lang.SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        src.append("    public ").append(LIGHTRUN).append(".UnitInvoker invoker(int unit, ").append(type).append(" instance, java.lang.Object[] args) {\n");
+        src.append("        switch (unit) {\n");
+        for(int i = 0; i < units.size(); i++){
+            ExecutableElement unit = units.get(i);
+
+            // Private units are left to reflection
+            if(unit.getModifiers().contains(Modifier.PRIVATE))
+                continue;
+
+            src.append("            case ").append(i).append(": {\n");
+
+            List<String> callArgs = new ArrayList<>();
+            int argIndex = 0;
+
+            for(int p = 0; p < unit.getParameters().size(); p++){
+                TypeMirror paramType = unit.getParameters().get(p).asType();
+                String local = "a" + p;
+
+                src.append("                ");
+                if(erasure(paramType).equals(BLACKHOLE))
+                    src.append(BLACKHOLE).append(' ').append(local).append(" = new ").append(BLACKHOLE).append("();\n");
+                else
+                    src.append(erasure(paramType)).append(' ').append(local).append(" = ").append(unpack(paramType, "args[" + argIndex++ + "]")).append(";\n");
+
+                callArgs.add(local);
+            }
+
+            String call = receiver(unit, type) + "." + unit.getSimpleName() + "(" + String.join(", ", callArgs) + ")";
+            src.append("                return ").append(LIGHTRUN).append(".UnitInvoker.").append(invokerFactory(unit.getReturnType(), call)).append(";\n");
+            src.append("            }\n");
+        }
+        src.append("            default: return null;\n");
+        src.append("        }\n");
+        src.append("    }\n");
+        src.append("}\n");
+
+        try(Writer writer = processingEnv.getFiler().createSourceFile(packageName.isEmpty() ? runnerName : packageName + "." + runnerName, clazz).openWriter()){
+            writer.write(src.toString());
+        } catch (IOException e) {
+            error(clazz, "Unable to generate runner of " + clazz.getSimpleName() + "! Exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Expression converting data source argument to parameter type: numbers are converted as by reflective invocation
+     * (so Integer argument fits long parameter), references are cast to parameter erasure.
+     */
+    private String unpack(TypeMirror type, String arg){
+        return switch (type.getKind()){
+            case BOOLEAN -> "(java.lang.Boolean) " + arg;
+            case CHAR -> "(java.lang.Character) " + arg;
+            case BYTE -> "((java.lang.Number) " + arg + ").byteValue()";
+            case SHORT -> "((java.lang.Number) " + arg + ").shortValue()";
+            case INT -> "((java.lang.Number) " + arg + ").intValue()";
+            case LONG -> "((java.lang.Number) " + arg + ").longValue()";
+            case FLOAT -> "((java.lang.Number) " + arg + ").floatValue()";
+            case DOUBLE -> "((java.lang.Number) " + arg + ").doubleValue()";
+            default -> erasure(type).equals("java.lang.Object") ? arg : "(" + erasure(type) + ") " + arg;
+        };
+    }
+
+    /**
+     * UnitInvoker factory call matching unit return type, so primitive results are never boxed.
+     */
+    private static String invokerFactory(TypeMirror returnType, String call){
+        String lambda = "() -> " + call;
+
+        return switch (returnType.getKind()){
+            case VOID -> "ofVoid(" + lambda + ")";
+            case BOOLEAN -> "ofBoolean(" + lambda + ")";
+            case BYTE, SHORT, CHAR, INT -> "ofInt(" + lambda + ", " + returnType.getKind().name().toLowerCase(Locale.ROOT) + ".class)";
+            case LONG -> "ofLong(" + lambda + ")";
+            case FLOAT -> "ofDouble(" + lambda + ", true)";
+            case DOUBLE -> "ofDouble(" + lambda + ", false)";
+            default -> "ofObject(" + lambda + ")";
+        };
+    }
+
+    private static String receiver(ExecutableElement method, String type){
+        return method.getModifiers().contains(Modifier.STATIC) ? type : "instance";
+    }
+
+    private static List<ExecutableElement> units(TypeElement clazz){
+        return ElementFilter.methodsIn(clazz.getEnclosedElements()).stream()
+                .filter(method -> mirror(method, UNIT) != null)
+                .toList();
+    }
+
+    /**
+     * Names of parameters filled with data source arguments (Blackholes are injected by harness).
+     */
+    private List<String> argumentNames(ExecutableElement unit){
+        return unit.getParameters().stream()
+                .filter(param -> !erasure(param.asType()).equals(BLACKHOLE))
+                .map(param -> param.getSimpleName().toString())
+                .toList();
+    }
+
+    /**
+     * Data source is looked up at runtime by name among methods without arguments.
+     */
+    private static ExecutableElement dataSource(TypeElement clazz, String name){
+        return ElementFilter.methodsIn(clazz.getEnclosedElements()).stream()
+                .filter(method -> method.getSimpleName().contentEquals(name) && method.getParameters().isEmpty())
+                .findFirst()
+                .orElse(null);
+    }
+
+    private String erasure(TypeMirror type){
+        if(type.getKind() == TypeKind.VOID || type.getKind().isPrimitive())
+            return type.toString();
+
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private static AnnotationMirror mirror(Element element, String annotation){
+        if(element == null)
+            return null;
+
+        for(AnnotationMirror mirror : element.getAnnotationMirrors())
+            if(((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation))
+                return mirror;
+
+        return null;
+    }
+
+    private static String stringValue(AnnotationMirror mirror){
+        for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet())
+            if(entry.getKey().getSimpleName().contentEquals("value"))
+                return String.valueOf(entry.getValue().getValue());
+
+        return "";
+    }
+
+    private void error(Element element, String message){
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private void warning(Element element, String message){
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+}
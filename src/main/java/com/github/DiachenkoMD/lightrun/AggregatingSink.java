@@ -0,0 +1,55 @@
+package com.github.DiachenkoMD.lightrun;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps a constant-size summary per unit method instead of individual results: useful for sweeps
+ * where only the overall picture (fastest / slowest / average arguments set) matters.
+ */
+public class AggregatingSink implements ResultSink {
+    private final Map<String, Summary> summaries = new LinkedHashMap<>();
+
+    @Override
+    public synchronized void accept(BenchmarkUnitResult result) {
+        // Failed units have nothing to summarize
+        if(result.isFailed())
+            return;
+
+        String key = result.getOriginMethod() != null ? ForkedRunner.signature(result.getOriginMethod()) : result.getName();
+        double value = result.getStatistics() != null ? result.getStatistics().getMean() : result.getTime().getNanos();
+
+        summaries.computeIfAbsent(key, k -> new Summary()).add(result.getName(), value);
+    }
+
+    public synchronized Map<String, Summary> getSummaries() {
+        return new LinkedHashMap<>(summaries);
+    }
+
+    @Data
+    public static class Summary {
+        private long count;
+        private double mean;
+        private double min = Double.MAX_VALUE;
+        private String minName;
+        private double max = -Double.MAX_VALUE;
+        private String maxName;
+
+        void add(String name, double value){
+            ++count;
+            mean += (value - mean) / count;
+
+            if(value < min){
+                min = value;
+                minName = name;
+            }
+
+            if(value > max){
+                max = value;
+                maxName = name;
+            }
+        }
+    }
+}
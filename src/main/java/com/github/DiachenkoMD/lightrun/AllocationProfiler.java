@@ -0,0 +1,92 @@
+package com.github.DiachenkoMD.lightrun;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+
+/**
+ * Thin wrapper over HotSpot-specific thread allocation counters and GC beans.
+ * <br/>
+ * Every probe is read outside of timed loops and doesn't allocate itself.
+ */
+class AllocationProfiler {
+    private static final com.sun.management.ThreadMXBean threadBean = initThreadBean();
+    private static final List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+    private static final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+
+    // Heap is considered settled once a collection frees less than this share of used heap
+    private static final double SETTLED_SHARE = 0.01;
+    private static final int MAX_SETTLE_COLLECTIONS = 5;
+    private static final long SETTLE_PAUSE_MILLIS = 10;
+
+    private static com.sun.management.ThreadMXBean initThreadBean(){
+        try {
+            if(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported()){
+                if(!bean.isThreadAllocatedMemoryEnabled())
+                    bean.setThreadAllocatedMemoryEnabled(true);
+
+                return bean;
+            }
+        } catch (UnsupportedOperationException | SecurityException e) {
+            System.out.println("Allocation profiling is not available: " + e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Bytes allocated by the current thread so far or -1, if JVM (or thread kind) doesn't support it.
+     */
+    static long currentThreadAllocatedBytes(){
+        return threadBean != null ? threadBean.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Total amount of collections across all collectors.
+     */
+    static long gcCount(){
+        long count = 0;
+        for(GarbageCollectorMXBean bean : gcBeans)
+            count += Math.max(0, bean.getCollectionCount());
+
+        return count;
+    }
+
+    /**
+     * Total collections time across all collectors, ms.
+     */
+    static long gcTimeMillis(){
+        long time = 0;
+        for(GarbageCollectorMXBean bean : gcBeans)
+            time += Math.max(0, bean.getCollectionTime());
+
+        return time;
+    }
+
+    /**
+     * Requests collections until used heap stops shrinking (finalization and reference processing may free more
+     * on subsequent cycles). Meant to be called outside of measurement only.
+     */
+    static void settleHeap(){
+        long used = memoryBean.getHeapMemoryUsage().getUsed();
+
+        for(int i = 0; i < MAX_SETTLE_COLLECTIONS; i++){
+            System.gc();
+
+            try {
+                Thread.sleep(SETTLE_PAUSE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            long usedAfter = memoryBean.getHeapMemoryUsage().getUsed();
+            boolean isSettled = used - usedAfter < used * SETTLED_SHARE;
+            used = usedAfter;
+
+            if(isSettled)
+                return;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.DiachenkoMD.lightrun;
+
+import lombok.Data;
+
+@Data
+public class AllocationResult {
+    // Negative value means that allocation wasn't tracked (unsupported by JVM)
+    private long allocatedBytes = 0;
+    private long operations;
+    // JVM-wide deltas over measured region
+    private long gcCount;
+    private long gcTimeMillis;
+
+    public double getAllocatedBytesPerOp(){
+        if(allocatedBytes < 0 || operations == 0)
+            return Double.NaN;
+
+        return (double) allocatedBytes / operations;
+    }
+
+    /**
+     * Adds allocation of one measured batch. Unsupported probes (negative values) disable tracking.
+     */
+    public void addAllocated(long batchAllocatedBytes, long batchOperations){
+        operations += batchOperations;
+
+        if(allocatedBytes < 0 || batchAllocatedBytes < 0)
+            allocatedBytes = -1;
+        else
+            allocatedBytes += batchAllocatedBytes;
+    }
+
+    public void addGc(long gcCountBefore, long gcTimeBefore){
+        gcCount += AllocationProfiler.gcCount() - gcCountBefore;
+        gcTimeMillis += AllocationProfiler.gcTimeMillis() - gcTimeBefore;
+    }
+
+    public void merge(AllocationResult other){
+        allocatedBytes = allocatedBytes < 0 || other.getAllocatedBytes() < 0 ? -1 : allocatedBytes + other.getAllocatedBytes();
+        operations += other.getOperations();
+        gcCount += other.getGcCount();
+        gcTimeMillis += other.getGcTimeMillis();
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.DataSource;
+
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Hands arguments sets of a data source to the measuring thread, timing generation of every set.
+ * <br/>
+ * Without prefetching sets are pulled from the stream by the measuring thread itself. With prefetching a background
+ * thread pulls them ahead into a bounded queue and (when isolated) is held while unit is measured, so generation
+ * never overlaps timed regions. Stream is always consumed by a single thread.
+ */
+class ArgumentsPipeline implements AutoCloseable {
+    // Marks the end of stream (or generation failure) in the queue
+    private static final Prefetched END = new Prefetched(null, 0);
+    // Producer stuck in data source code, which ignores interruption, is not waited for longer
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    private final Iterator<Arguments> iterator;
+    private final DataSource anno;
+    private final BlockingQueue<Prefetched> queue;
+    // Held by producer while it generates a set and by measuring thread while it measures one
+    private final Semaphore generation = new Semaphore(1);
+    private final Thread producer;
+
+    private volatile Throwable failure;
+    private long pendingNanos;
+    private long lastNanos;
+    private boolean isExhausted;
+
+    /**
+     * @param sourceNanos time data source method itself took, it's accounted to the first arguments set
+     */
+    ArgumentsPipeline(Stream<Arguments> source, DataSource anno, long sourceNanos){
+        this.iterator = source.iterator();
+        this.anno = anno;
+        this.pendingNanos = sourceNanos;
+
+        if(anno.prefetch() > 0){
+            queue = new ArrayBlockingQueue<>(anno.prefetch());
+            producer = new Thread(this::produce, "lightrun-arguments");
+            producer.setDaemon(true);
+            producer.start();
+        }else{
+            queue = null;
+            producer = null;
+        }
+    }
+
+    /**
+     * @return next arguments set or null, if data source is exhausted
+     */
+    Arguments next() throws InterruptedException {
+        if(isExhausted)
+            return null;
+
+        Prefetched next = producer != null ? queue.take() : generate();
+
+        if(next == END){
+            isExhausted = true;
+
+            if(failure != null)
+                throw new IllegalStateException("Data source " + anno.value() + " failed!", failure);
+
+            return null;
+        }
+
+        lastNanos = next.nanos + pendingNanos;
+        pendingNanos = 0;
+
+        return next.arguments;
+    }
+
+    /**
+     * Time taken to generate the last returned arguments set, ns.
+     */
+    long lastNanos(){
+        return lastNanos;
+    }
+
+    void beforeMeasurement() throws InterruptedException {
+        if(producer != null && anno.isolate())
+            generation.acquire();
+
+        if(anno.settleHeap())
+            AllocationProfiler.settleHeap();
+    }
+
+    void afterMeasurement(){
+        if(producer != null && anno.isolate())
+            generation.release();
+    }
+
+    private Prefetched generate(){
+        long start = System.nanoTime();
+
+        if(!iterator.hasNext())
+            return END;
+
+        Arguments arguments = iterator.next();
+
+        return new Prefetched(arguments, System.nanoTime() - start);
+    }
+
+    private void produce(){
+        try {
+            while(true){
+                Prefetched next;
+
+                generation.acquire();
+                try {
+                    next = generate();
+                } finally {
+                    generation.release();
+                }
+
+                queue.put(next);
+
+                if(next == END)
+                    return;
+            }
+        } catch (InterruptedException e) {
+            // Pipeline is closed before data source is exhausted
+        } catch (Throwable e) {
+            failure = e;
+
+            try {
+                queue.put(END);
+            } catch (InterruptedException ignored) {
+                // Pipeline is closed, nobody waits for the end marker
+            }
+        }
+    }
+
+    /**
+     * Stops background generation, stream itself is closed by its owner afterwards. Interruption of the closing thread
+     * cuts the wait short and is kept for its caller.
+     */
+    @Override
+    public void close() {
+        if(producer == null)
+            return;
+
+        producer.interrupt();
+
+        try {
+            producer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        if(producer.isAlive())
+            System.out.println("Arguments of data source " + anno.value() + " are still generated after " + CLOSE_TIMEOUT_MILLIS + " ms! Generation thread is left behind...");
+    }
+
+    private static final class Prefetched {
+        private final Arguments arguments;
+        private final long nanos;
+
+        Prefetched(Arguments arguments, long nanos){
+            this.arguments = arguments;
+            this.nanos = nanos;
+        }
+    }
+}
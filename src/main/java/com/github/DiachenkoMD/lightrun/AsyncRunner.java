@@ -0,0 +1,282 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Async;
+
+import java.lang.reflect.Method;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures completion latency and sustained throughput of asynchronous units.
+ * <br/>
+ * Every invocation slot owns a pre-linked invoker, so at most {@link Async#concurrency()} invocations are in flight.
+ * Closed loop issues the next invocation of a slot from completion of the previous one. Open loop issues invocations
+ * by schedule from the caller's thread, waiting for a free slot when all of them are busy, while latency is still
+ * counted from the scheduled time.
+ */
+class AsyncRunner {
+    @Async
+    private static final class Defaults {}
+
+    /**
+     * Method-level {@link Async} overrides the one placed on benchmark class. Units returning {@link Future} get default settings.
+     */
+    static Async resolve(Method unitMethod){
+        Async anno = unitMethod.getAnnotation(Async.class);
+
+        if(anno == null)
+            anno = unitMethod.getDeclaringClass().getAnnotation(Async.class);
+
+        if(anno == null && Future.class.isAssignableFrom(unitMethod.getReturnType()))
+            anno = Defaults.class.getAnnotation(Async.class);
+
+        return anno;
+    }
+
+    static void measure(BenchmarkUnitResult unitRes, Method method, BenchmarkState<?> state, Object benchmarkClass, Object[] methodArgs, Async anno, MeasurementSettings settings, WarmupSettings warmupSettings) throws Throwable {
+        int concurrency = Math.max(1, anno.concurrency());
+        int ops = settings.getOperationsPerInvocation();
+        long durationNanos = anno.timeUnit().toNanos(anno.time());
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        WarmupResult warmup = null;
+        ThroughputResult throughput = null;
+        Object lastResult = null;
+
+        // Own pool is reused by all forks, supplied executor is left to its owner
+        ExecutorService ownExecutor = anno.executor().isEmpty() ? Executors.newCachedThreadPool(ThroughputRunner.threadFactory(anno.virtual())) : null;
+
+        try {
+            for(int fork = 0; fork < settings.getForks(); fork++){
+                // First fork is measured on the passed instance, the following ones - on fresh (prepared) instances
+                Object forkInstance = fork == 0 ? benchmarkClass : state.newInstance();
+                Executor executor = ownExecutor != null ? ownExecutor : executor(forkInstance, anno.executor());
+
+                BlockingQueue<UnitInvoker> slots = new ArrayBlockingQueue<>(concurrency);
+                for(int i = 0; i < concurrency; i++)
+                    slots.add(state.invoker(method, forkInstance, methodArgs));
+
+                // Warmup is always a closed loop, its latencies are dropped
+                // (terminated the same way as synchronous warmups, adaptive settings and maxTime included)
+                Run warmupRun = new Run(slots, executor, ops);
+                int batchSize = Math.max(1, settings.getBatchSize());
+
+                WarmupResult forkWarmup = WarmupResult.warmup(warmupSettings, () -> {
+                    long batchStart = System.nanoTime();
+                    warmupRun.closedLoop(Long.MAX_VALUE, batchSize);
+
+                    return (double) (System.nanoTime() - batchStart) / batchSize;
+                });
+                LightrunEvents.warmupComplete(method, forkWarmup);
+
+                if(warmup == null)
+                    warmup = forkWarmup;
+                else
+                    warmup.merge(forkWarmup);
+
+                Run run = new Run(slots, executor, ops);
+                long start = System.nanoTime();
+
+                if(anno.rate() > 0)
+                    run.openLoop(start + durationNanos, anno.rate());
+                else
+                    run.closedLoop(start + durationNanos, Long.MAX_VALUE);
+
+                // Throughput is sustained one: completions over the time until the last of them
+                ThroughputResult forkThroughput = new ThroughputResult();
+                forkThroughput.setThreads(concurrency);
+                forkThroughput.setOperations(run.completed.get() * ops);
+                forkThroughput.setThreadOpsPerSecond(new double[]{run.completed.get() * ops * 1e9 / Math.max(1, run.lastCompletion.get() - start)});
+
+                if(throughput == null)
+                    throughput = forkThroughput;
+                else
+                    throughput.merge(forkThroughput);
+
+                run.histograms.values().forEach(histogram::merge);
+                lastResult = run.lastResult;
+
+                if(forkInstance != benchmarkClass)
+                    state.release(forkInstance);
+            }
+        } finally {
+            if(ownExecutor != null)
+                ownExecutor.shutdownNow();
+        }
+
+        unitRes.setResult(lastResult);
+        unitRes.useHistogram(histogram);
+        unitRes.setBatchSize(1);
+        unitRes.setWarmup(warmup);
+        unitRes.setThroughput(throughput);
+    }
+
+    private static Executor executor(Object benchmarkClass, String name) throws ReflectiveOperationException {
+        Method executorMethod = benchmarkClass.getClass().getDeclaredMethod(name);
+        executorMethod.setAccessible(true);
+
+        return (Executor) executorMethod.invoke(benchmarkClass);
+    }
+
+    /**
+     * Invocations issued during one loop (warmup batch or measurement) until completion of all of them.
+     */
+    private static final class Run {
+        private final BlockingQueue<UnitInvoker> slots;
+        private final Executor executor;
+        private final int ops;
+
+        // Every slot records latencies of its own invocations, so completions don't contend for a shared histogram.
+        // Slot is used by one invocation at a time and is handed over through the queue or executor, which publishes its histogram
+        private final Map<UnitInvoker, LatencyHistogram> histograms = new IdentityHashMap<>();
+
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong lastCompletion = new AtomicLong();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private volatile Object lastResult;
+
+        // Closed loop limits
+        private long deadline;
+        private long maxIssued;
+        private final AtomicLong issued = new AtomicLong();
+
+        Run(BlockingQueue<UnitInvoker> slots, Executor executor, int ops){
+            this.slots = slots;
+            this.executor = executor;
+            this.ops = ops;
+
+            for(UnitInvoker invoker : slots)
+                histograms.put(invoker, new LatencyHistogram());
+        }
+
+        /**
+         * Keeps every slot busy until deadline passes or the given amount of invocations is issued.
+         */
+        void closedLoop(long deadline, long maxIssued) throws Throwable {
+            this.deadline = deadline;
+            this.maxIssued = maxIssued;
+            issued.set(0);
+
+            int concurrency = slots.size();
+
+            for(int i = 0; i < concurrency; i++){
+                UnitInvoker invoker = slots.take();
+
+                // At least one invocation is issued even with zero duration
+                if(i > 0 && !hasNext()){
+                    slots.add(invoker);
+                    continue;
+                }
+
+                issued.incrementAndGet();
+                long start = System.nanoTime();
+                executor.execute(() -> invoke(invoker, start, true));
+            }
+
+            awaitAll(concurrency);
+        }
+
+        /**
+         * Issues invocations by schedule until deadline, a late issue keeps its scheduled start.
+         */
+        void openLoop(long deadline, double rate) throws Throwable {
+            int concurrency = slots.size();
+            double intervalNanos = 1e9 / rate;
+            long start = System.nanoTime();
+
+            for(long i = 0; ; i++){
+                long scheduled = start + Math.round(i * intervalNanos);
+
+                if(i > 0 && scheduled >= deadline)
+                    break;
+
+                long delay;
+                while((delay = scheduled - System.nanoTime()) > 0)
+                    LockSupport.parkNanos(delay);
+
+                UnitWatchdog.checkInterrupted();
+
+                if(failure.get() != null)
+                    break;
+
+                UnitInvoker invoker = slots.take();
+                executor.execute(() -> invoke(invoker, scheduled, false));
+            }
+
+            awaitAll(concurrency);
+        }
+
+        private boolean hasNext(){
+            return System.nanoTime() < deadline && issued.get() < maxIssued && failure.get() == null;
+        }
+
+        private void invoke(UnitInvoker invoker, long start, boolean isClosedLoop){
+            try {
+                invoker.measure(1);
+                Object result = invoker.lastResult();
+
+                if(result instanceof CompletableFuture<?> future){
+                    future.whenComplete((value, e) -> complete(invoker, start, value, e, isClosedLoop));
+                    return;
+                }
+
+                if(result instanceof Future<?> future){
+                    // Plain futures can only be waited for, which is cheap on virtual threads
+                    try {
+                        result = future.get();
+                    } catch (ExecutionException e) {
+                        complete(invoker, start, null, e.getCause(), isClosedLoop);
+                        return;
+                    }
+                }
+
+                complete(invoker, start, result, null, isClosedLoop);
+            } catch (Throwable e) {
+                complete(invoker, start, null, e, isClosedLoop);
+            }
+        }
+
+        private void complete(UnitInvoker invoker, long start, Object value, Throwable e, boolean isClosedLoop){
+            long now = System.nanoTime();
+
+            if(e != null){
+                failure.compareAndSet(null, e);
+            }else{
+                histograms.get(invoker).record((now - start) / ops);
+
+                completed.incrementAndGet();
+                lastCompletion.accumulateAndGet(now, Math::max);
+                lastResult = value;
+            }
+
+            // Closed loop slot issues its next invocation right away, open loop one is returned to the caller
+            if(isClosedLoop && hasNext() && issued.incrementAndGet() <= maxIssued){
+                try {
+                    executor.execute(() -> invoke(invoker, System.nanoTime(), true));
+                    return;
+                } catch (RejectedExecutionException rejected) {
+                    failure.compareAndSet(null, rejected);
+                }
+            }
+
+            slots.add(invoker);
+        }
+
+        private void awaitAll(int concurrency) throws Throwable {
+            // Every slot is back only when nothing is in flight
+            UnitInvoker[] returned = new UnitInvoker[concurrency];
+            for(int i = 0; i < concurrency; i++)
+                returned[i] = slots.take();
+
+            for(UnitInvoker invoker : returned)
+                slots.add(invoker);
+
+            if(failure.get() != null)
+                throw failure.get();
+        }
+    }
+}
@@ -1,21 +1,121 @@
 package com.github.DiachenkoMD.lightrun;
 
-import lombok.Data;
-
+import java.lang.reflect.Array;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Units of the same method (e.g. every {@link com.github.DiachenkoMD.lightrun.annotations.DataSource} row) aggregated into one row.
+ * <br/>
+ * Time is the total of grouped units, statistics describe distribution of their mean times. When units get
+ * input of different sizes, time per input element and scaling against input size are reported as well.
+ */
 public class BenchmarkGroupResult extends BenchmarkUnitResult{
     List<BenchmarkUnitResult> groupedUnits = new LinkedList<>();
 
+    // Summed mean times of units with sized input divided by their total input size, null - no unit has sized input
+    Double nanosPerInput;
+    ScalingFit scaling;
+
     public BenchmarkGroupResult(){
         super.setNanos(0);
     }
 
     public boolean addUnit(BenchmarkUnitResult unit){
+        if(getOriginMethod() == null)
+            setOriginMethod(unit.getOriginMethod());
+
+        if(getName() == null)
+            setName(unit.getName());
+
         return groupedUnits.add(unit);
     }
 
+    /**
+     * Appends units of another (partial) group, keeping encounter order: this group is expected to precede the other.
+     */
+    public BenchmarkGroupResult merge(BenchmarkGroupResult other){
+        if(getOriginMethod() == null)
+            setOriginMethod(other.getOriginMethod());
+
+        if(getName() == null)
+            setName(other.getName());
+
+        groupedUnits.addAll(other.groupedUnits);
+
+        return this;
+    }
+
+    /**
+     * Computes aggregates of all grouped units, called once grouping is done.
+     */
+    public BenchmarkGroupResult summarize(){
+        // Failed units have no time to aggregate, group fails only when all of its units did
+        List<BenchmarkUnitResult> measuredUnits = groupedUnits.stream().filter(unit -> !unit.isFailed()).toList();
+
+        if(measuredUnits.isEmpty() && !groupedUnits.isEmpty()){
+            setStatus(groupedUnits.get(0).getStatus());
+            setFailure(groupedUnits.get(0).getFailure());
+        }
+
+        int count = measuredUnits.size();
+        double totalNanos = 0;
+        double[] means = new double[count];
+        double[] sizes = new double[count];
+        double sizedNanos = 0, totalSize = 0;
+
+        int i = 0;
+        for(BenchmarkUnitResult unit : measuredUnits){
+            totalNanos += unit.getTime().getExactNanos();
+            means[i] = unit.getStatistics() != null ? unit.getStatistics().getMean() : unit.getTime().getExactNanos();
+            sizes[i] = inputSize(unit);
+
+            if(sizes[i] > 0){
+                sizedNanos += means[i];
+                totalSize += sizes[i];
+            }
+
+            ++i;
+        }
+
+        setNanos(totalNanos);
+
+        if(count > 0){
+            getTime().configure(measuredUnits.get(0).getTime());
+            setBatchSize(measuredUnits.get(0).getBatchSize());
+            setOperationsPerInvocation(measuredUnits.get(0).getOperationsPerInvocation());
+        }
+
+        if(count > 0)
+            setStatistics(Statistics.of(means, count));
+
+        nanosPerInput = totalSize > 0 ? sizedNanos / totalSize : null;
+        scaling = ScalingFit.of(sizes, means);
+
+        return this;
+    }
+
+    /**
+     * Size of unit input: first numeric argument, or size of the first array, collection, map or char sequence argument.
+     * Zero, if unit has no such arguments.
+     */
+    static double inputSize(BenchmarkUnitResult unit){
+        if(unit.getInjected() == null || unit.getInjected().getArgs() == null)
+            return 0;
+
+        for(Object arg : unit.getInjected().getArgs()){
+            if(arg instanceof Number number) return number.doubleValue();
+            if(arg instanceof Collection<?> collection) return collection.size();
+            if(arg instanceof Map<?, ?> map) return map.size();
+            if(arg instanceof CharSequence seq) return seq.length();
+            if(arg != null && arg.getClass().isArray()) return Array.getLength(arg);
+        }
+
+        return 0;
+    }
+
     public List<BenchmarkUnitResult> getGroupedUnits() {
         return groupedUnits;
     }
@@ -23,4 +123,12 @@ public class BenchmarkGroupResult extends BenchmarkUnitResult{
     public void setGroupedUnits(List<BenchmarkUnitResult> groupedUnits) {
         this.groupedUnits = groupedUnits;
     }
+
+    public Double getNanosPerInput() {
+        return nanosPerInput;
+    }
+
+    public ScalingFit getScaling() {
+        return scaling;
+    }
 }
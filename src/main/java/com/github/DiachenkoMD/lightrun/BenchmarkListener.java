@@ -0,0 +1,46 @@
+package com.github.DiachenkoMD.lightrun;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Observes progress of benchmark runs. Events are delivered asynchronously, in order, by a single daemon thread,
+ * so a slow listener delays other listeners but never the measurement itself. Iteration events are dropped
+ * instead of waiting, when listeners fall too far behind.
+ *
+ * @see Lightrun#addListener(BenchmarkListener)
+ */
+public interface BenchmarkListener {
+    /**
+     * @param plannedUnits amount of units measurements (unit methods times parameter combinations and child JVMs of forked benchmarks),
+     *                     data source arguments sets not counted
+     */
+    default void onBenchmarkStart(String uid, int plannedUnits){}
+
+    /**
+     * Called before measurement of units on a parameters combination. Several units are started together, when they are
+     * compared with each other (see {@link com.github.DiachenkoMD.lightrun.annotations.Compare}).
+     */
+    default void onUnitStart(List<Method> units, Map<String, String> params){}
+
+    /**
+     * Called after every warmup (per fork and arguments set) of units measured in default, sample-time and async modes.
+     */
+    default void onWarmupComplete(Method unit, WarmupResult warmup){}
+
+    /**
+     * Called after every measured batch of units measured in default mode (and rounds of compared units).
+     *
+     * @param iteration index of iteration within fork
+     * @param nanosPerOperation sample the iteration produced (overhead subtracted)
+     */
+    default void onIterationComplete(Method unit, int iteration, double nanosPerOperation){}
+
+    /**
+     * Called for every unit result (one per arguments set), including failed ones.
+     */
+    default void onUnitComplete(BenchmarkUnitResult result){}
+
+    default void onBenchmarkComplete(String uid){}
+}
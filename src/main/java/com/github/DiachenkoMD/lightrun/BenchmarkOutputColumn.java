@@ -3,5 +3,35 @@ package com.github.DiachenkoMD.lightrun;
 public enum BenchmarkOutputColumn {
     NAME,
     TICKS,
-    OUTPUT
+    TIME,
+    OUTPUT,
+    PARAMS,
+    MEAN,
+    STD_DEV,
+    MIN,
+    MAX,
+    P50,
+    P90,
+    P99,
+    P999,
+    P9999,
+    ERROR,
+    SAMPLES,
+    OVERHEAD,
+    ARGUMENTS_TIME,
+    WARMUP_TIME,
+    STEADY_STATE,
+    OPS_PER_SEC,
+    OPS_PER_SEC_PER_THREAD,
+    ALLOC_BYTES_PER_OP,
+    GC_COUNT,
+    GC_TIME,
+    PROFILER_OVERHEAD,
+    NANOS_PER_INPUT,
+    SCALING,
+    STATUS,
+    BATCH_SIZE,
+    SHALLOW_SIZE,
+    RETAINED_SIZE,
+    RETAINED_OBJECTS
 }
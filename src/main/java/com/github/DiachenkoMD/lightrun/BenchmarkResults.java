@@ -1,5 +1,6 @@
 package com.github.DiachenkoMD.lightrun;
 
+import com.github.DiachenkoMD.lightrun.export.ResultsExporter;
 import lombok.Data;
 
 import java.util.*;
@@ -37,8 +38,39 @@ public class BenchmarkResults<T> {
 
             switch (entry.getKey()){
                 case NAME -> func = BenchmarkUnitResult::getName;
-                case TICKS -> func = t -> t.getTime().getTicks();
+                // Failed units have no time, their status is shown instead
+                case TICKS -> func = t -> t.isFailed() ? t.getStatus() : t.getTime().getTicks();
+                case TIME -> func = t -> t.isFailed() ? t.getStatus() : t.getTime().format();
                 case OUTPUT -> func = BenchmarkUnitResult::getResult;
+                case PARAMS -> func = t -> t.getParams() != null ? BenchmarkState.describe(t.getParams()) : "";
+                case MEAN -> func = statisticsColumn(Statistics::getMean);
+                case STD_DEV -> func = statisticsColumn(Statistics::getStdDev);
+                case MIN -> func = statisticsColumn(Statistics::getMin);
+                case MAX -> func = statisticsColumn(Statistics::getMax);
+                case P50 -> func = statisticsColumn(Statistics::getP50);
+                case P90 -> func = statisticsColumn(Statistics::getP90);
+                case P99 -> func = statisticsColumn(Statistics::getP99);
+                case P999 -> func = statisticsColumn(Statistics::getP999);
+                case P9999 -> func = t -> t.getHistogram() != null ? t.getHistogram().getValueAtPercentile(0.9999) : "";
+                case ERROR -> func = statisticsColumn(Statistics::getError);
+                case SAMPLES -> func = t -> t.getStatistics() != null ? t.getStatistics().getCount() : "";
+                case OVERHEAD -> func = t -> String.format(Locale.ROOT, "%.3f", t.getOverheadNanos());
+                case BATCH_SIZE -> func = t -> t.getOperationsPerInvocation() > 1 ? t.getBatchSize() + " x " + t.getOperationsPerInvocation() + " ops" : t.getBatchSize();
+                case ARGUMENTS_TIME -> func = t -> t.getInjected() != null ? String.format(Locale.ROOT, "%.3f", t.getArgumentsNanos() / 1e6) : "";
+                case WARMUP_TIME -> func = t -> t.getWarmup() != null ? String.format(Locale.ROOT, "%.3f", t.getWarmup().getNanos() / 1e6) : "";
+                case STEADY_STATE -> func = t -> t.getWarmup() != null ? t.getWarmup().isSteadyState() : "";
+                case OPS_PER_SEC -> func = t -> t.getThroughput() != null ? String.format(Locale.ROOT, "%.1f", t.getThroughput().getOpsPerSecond()) : "";
+                case OPS_PER_SEC_PER_THREAD -> func = t -> t.getThroughput() != null ? String.format(Locale.ROOT, "%.1f", t.getThroughput().getOpsPerSecondPerThread()) : "";
+                case ALLOC_BYTES_PER_OP -> func = t -> t.getAllocation() != null && !Double.isNaN(t.getAllocation().getAllocatedBytesPerOp()) ? String.format(Locale.ROOT, "%.1f", t.getAllocation().getAllocatedBytesPerOp()) : "";
+                case GC_COUNT -> func = t -> t.getAllocation() != null ? t.getAllocation().getGcCount() : "";
+                case GC_TIME -> func = t -> t.getAllocation() != null ? t.getAllocation().getGcTimeMillis() : "";
+                case PROFILER_OVERHEAD -> func = t -> t.getProfile() != null ? String.format(Locale.ROOT, "%.2f", t.getProfile().getOverhead(t.getStatistics() != null ? t.getStatistics().getMean() : Double.NaN) * 100) : "";
+                case NANOS_PER_INPUT -> func = t -> t instanceof BenchmarkGroupResult group && group.getNanosPerInput() != null ? String.format(Locale.ROOT, "%.3f", group.getNanosPerInput()) : "";
+                case STATUS -> func = t -> t.isFailed() && t.getFailure() != null ? t.getStatus() + ": " + t.getFailure() : t.getStatus();
+                case SCALING -> func = t -> t instanceof BenchmarkGroupResult group && group.getScaling() != null ? group.getScaling() : "";
+                case SHALLOW_SIZE -> func = t -> t.getFootprint() != null ? t.getFootprint().getShallowBytes() : "";
+                case RETAINED_SIZE -> func = t -> t.getFootprint() != null ? t.getFootprint().getRetainedBytes() : "";
+                case RETAINED_OBJECTS -> func = t -> t.getFootprint() != null ? t.getFootprint().getRetainedObjects() : "";
             }
 
             if(func != null)
@@ -50,6 +82,46 @@ public class BenchmarkResults<T> {
         return table;
     }
 
+    /**
+     * Dedicated view of units compared with {@link com.github.DiachenkoMD.lightrun.annotations.Compare}: one row per candidate
+     * against its baseline (measured side by side), fastest candidates first.
+     */
+    public Table asComparisonTable(){
+        Table table = new Table();
+
+        table.setName(getUID() + " comparison");
+
+        table.addColumn("Comparison", t -> t.getComparison().getKey());
+        table.addColumn("Baseline", t -> t.getComparison().getBaseline());
+        table.addColumn("Candidate", BenchmarkUnitResult::getName);
+        table.addColumn("Baseline time", t -> t.getComparison().getBaselineResult().isFailed() ? t.getComparison().getBaselineResult().getStatus() : t.getComparison().getBaselineResult().getTime().format());
+        table.addColumn("Candidate time", t -> t.isFailed() ? t.getStatus() : t.getTime().format());
+        table.addColumn("Speedup", t -> String.format(Locale.ROOT, "%.3fx", t.getComparison().getSpeedup()));
+        table.addColumn(String.format(Locale.ROOT, "CI %.1f%%", Statistics.CONFIDENCE * 100), t -> String.format(Locale.ROOT, "[%.3fx; %.3fx]", t.getComparison().getCiLower(), t.getComparison().getCiUpper()));
+        table.addColumn("t", t -> String.format(Locale.ROOT, "%.2f", t.getComparison().getTStatistic()));
+        table.addColumn("Rounds", t -> t.getComparison().getRounds());
+        table.addColumn("Significant", t -> t.getComparison().isSignificant());
+
+        table.setOrderBy(Comparator.comparingDouble((BenchmarkUnitResult t) -> t.getComparison().getSpeedup()).reversed());
+
+        if(results != null)
+            table.addData(results.stream().filter(t -> t.getComparison() != null).toList());
+
+        return table;
+    }
+
+    private static Function<BenchmarkUnitResult, ?> statisticsColumn(Function<Statistics, Double> getter){
+        return t -> t.getStatistics() != null ? String.format(Locale.ROOT, "%.3f", getter.apply(t.getStatistics())) : "";
+    }
+
+    public String asJson(){
+        return ResultsExporter.toJson(this);
+    }
+
+    public String asCsv(){
+        return ResultsExporter.toCsv(this);
+    }
+
     public void addColumn(BenchmarkOutputColumn colType, String colName){
         if(this.activeColumns == null)
             this.activeColumns = new LinkedHashMap<>();
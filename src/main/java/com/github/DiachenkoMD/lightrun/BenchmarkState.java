@@ -0,0 +1,224 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Level;
+import com.github.DiachenkoMD.lightrun.annotations.Param;
+import com.github.DiachenkoMD.lightrun.annotations.Timer;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Produces benchmark class instances for one combination of {@link Param} values: every instance gets parameters
+ * injected and trial-level setup done, invokers get iteration / invocation hooks around their timed loops.
+ */
+class BenchmarkState<T> {
+    private static final Map<Class<?>, Optional<GeneratedRunner<?>>> runners = new ConcurrentHashMap<>();
+
+    private final Class<T> benchmarkClazz;
+    private final Map<String, String> params;
+    private final Lifecycle lifecycle;
+    private final GeneratedRunner<T> runner;
+
+    BenchmarkState(Class<T> benchmarkClazz, Map<String, String> params){
+        this.benchmarkClazz = benchmarkClazz;
+        this.params = params;
+        this.lifecycle = Lifecycle.of(benchmarkClazz);
+        this.runner = runner(benchmarkClazz);
+    }
+
+    /**
+     * Runner generated at compile time for the class or null, if class was compiled without lightrun-processor.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> GeneratedRunner<T> runner(Class<T> benchmarkClazz){
+        // Runner of a class is generated as GeneratedRunner of that very class
+        return (GeneratedRunner<T>) runners.computeIfAbsent(benchmarkClazz, clazz -> {
+            try {
+                Class<?> runnerClazz = Class.forName(clazz.getName() + GeneratedRunner.SUFFIX, true, clazz.getClassLoader());
+                return Optional.of((GeneratedRunner<?>) runnerClazz.getConstructor().newInstance());
+            } catch (ClassNotFoundException e) {
+                return Optional.empty();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.out.println("Unable to load generated runner of " + clazz.getSimpleName() + "! Falling back to reflection...");
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    Map<String, String> getParams(){
+        return params;
+    }
+
+    static String describe(Map<String, String> params){
+        return params.entrySet().stream()
+                .map(param -> param.getKey() + "=" + param.getValue())
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Substitutes $fieldName references in unit name. Parameters not referenced by the name are appended to it,
+     * if requested, so every combination gets a distinguishable row.
+     */
+    String unitName(String name, boolean appendUnreferenced){
+        Map<String, String> unreferenced = new LinkedHashMap<>();
+
+        for(Map.Entry<String, String> param : params.entrySet()){
+            String reference = "$" + param.getKey();
+
+            if(name.contains(reference))
+                name = name.replace(reference, param.getValue());
+            else
+                unreferenced.put(param.getKey(), param.getValue());
+        }
+
+        if(appendUnreferenced && !unreferenced.isEmpty())
+            name += " [" + describe(unreferenced) + "]";
+
+        return name;
+    }
+
+    /**
+     * Invocations timed at once for the given batch size: invocation-level hooks split every batch into single calls.
+     */
+    int timedBatchSize(int batchSize){
+        return lifecycle.has(Level.INVOCATION) ? 1 : batchSize;
+    }
+
+    /**
+     * Cartesian product of all {@link Param} fields values (first declared field changes the slowest).
+     * Class without parameters has exactly one, empty, combination.
+     */
+    static List<Map<String, String>> parameterSpace(Class<?> benchmarkClazz){
+        List<Map<String, String>> combinations = new ArrayList<>();
+        combinations.add(new LinkedHashMap<>());
+
+        for(Field field : benchmarkClazz.getDeclaredFields()){
+            Param paramAnno = field.getAnnotation(Param.class);
+
+            if(paramAnno == null)
+                continue;
+
+            List<Map<String, String>> expanded = new ArrayList<>();
+            for(Map<String, String> combination : combinations){
+                for(String value : paramAnno.value()){
+                    Map<String, String> next = new LinkedHashMap<>(combination);
+                    next.put(field.getName(), value);
+                    expanded.add(next);
+                }
+            }
+
+            combinations = expanded;
+        }
+
+        return combinations;
+    }
+
+    T newInstance() throws Throwable {
+        T instance = runner != null ? runner.newInstance() : benchmarkClazz.getConstructor().newInstance();
+
+        for(Map.Entry<String, String> param : params.entrySet()){
+            Field field = benchmarkClazz.getDeclaredField(param.getKey());
+            field.setAccessible(true);
+            field.set(instance, convert(param.getValue(), field.getType()));
+        }
+
+        lifecycle.setup(Level.TRIAL, instance);
+
+        return instance;
+    }
+
+    void release(Object instance) throws Throwable {
+        lifecycle.tearDown(Level.TRIAL, instance);
+    }
+
+    UnitInvoker invoker(Method method, Object instance, Object... methodArgs) throws Throwable {
+        UnitInvoker invoker = runner != null ? runner.invoker(runner.units().indexOf(method), benchmarkClazz.cast(instance), methodArgs) : null;
+
+        if(invoker == null)
+            invoker = UnitInvoker.of(method, instance, methodArgs);
+
+        invoker.setClock(UnitClock.mode(method));
+
+        if(lifecycle.has(Level.ITERATION) || lifecycle.has(Level.INVOCATION))
+            return new LifecycleInvoker(invoker, lifecycle, instance);
+
+        return invoker;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object convert(String value, Class<?> type){
+        if(type == String.class) return value;
+        if(type == int.class || type == Integer.class) return Integer.parseInt(value);
+        if(type == long.class || type == Long.class) return Long.parseLong(value);
+        if(type == double.class || type == Double.class) return Double.parseDouble(value);
+        if(type == float.class || type == Float.class) return Float.parseFloat(value);
+        if(type == boolean.class || type == Boolean.class) return Boolean.parseBoolean(value);
+        if(type == short.class || type == Short.class) return Short.parseShort(value);
+        if(type == byte.class || type == Byte.class) return Byte.parseByte(value);
+        if(type == char.class || type == Character.class) return value.charAt(0);
+        if(type.isEnum()) return Enum.valueOf((Class<Enum>) type, value);
+
+        throw new IllegalArgumentException("Unsupported @Param type " + type.getName() + "!");
+    }
+
+    /**
+     * Runs iteration hooks around every batch and invocation hooks around every single invocation,
+     * reporting only time and allocation of the delegate's timed loops.
+     */
+    private static final class LifecycleInvoker extends UnitInvoker {
+        private final UnitInvoker delegate;
+        private final Lifecycle lifecycle;
+        private final Object instance;
+        private final boolean hasInvocationHooks;
+
+        LifecycleInvoker(UnitInvoker delegate, Lifecycle lifecycle, Object instance){
+            this.delegate = delegate;
+            this.lifecycle = lifecycle;
+            this.instance = instance;
+            this.hasInvocationHooks = lifecycle.has(Level.INVOCATION);
+        }
+
+        @Override
+        public long measure(long invocations) throws Throwable {
+            lifecycle.setup(Level.ITERATION, instance);
+
+            long elapsed = 0;
+            long allocated = 0;
+
+            if(hasInvocationHooks){
+                for(long i = 0; i < invocations; i++){
+                    lifecycle.setup(Level.INVOCATION, instance);
+                    elapsed += delegate.measure(1);
+                    allocated = sumAllocated(allocated, delegate.lastAllocatedBytes());
+                    lifecycle.tearDown(Level.INVOCATION, instance);
+                }
+            }else{
+                elapsed = delegate.measure(invocations);
+                allocated = delegate.lastAllocatedBytes();
+            }
+
+            lifecycle.tearDown(Level.ITERATION, instance);
+
+            allocatedBytes = allocated;
+            return elapsed;
+        }
+
+        private static long sumAllocated(long total, long batch){
+            return total < 0 || batch < 0 ? -1 : total + batch;
+        }
+
+        @Override
+        public void setClock(Timer.Mode clock) {
+            super.setClock(clock);
+            delegate.setClock(clock);
+        }
+
+        @Override
+        public Object lastResult() {
+            return delegate.lastResult();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Benchmark;
+import com.github.DiachenkoMD.lightrun.annotations.Parallel;
+import com.github.DiachenkoMD.lightrun.annotations.Tag;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Discovers {@link Benchmark} classes on the classpath and measures them as one suite.
+ * <br/>
+ * Latency-sensitive classes (all, except {@link Parallel} ones) are measured one by one with nothing else running.
+ * {@link Parallel} classes are measured afterwards, {@link SuiteSettings#getParallelism()} at a time, each in a child JVM
+ * pinned by taskset to its own disjoint CPU set.
+ */
+public class BenchmarkSuite {
+    // Descriptor of @Benchmark as it appears in constant pool of annotated class files
+    private static final byte[] BENCHMARK_DESCRIPTOR = ("L" + Benchmark.class.getName().replace('.', '/') + ";").getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Finds {@link Benchmark} classes in the given package (and its subpackages) of every classpath entry.
+     * Class files are pre-filtered by searching annotation descriptor in their bytes, so only benchmark
+     * classes get loaded (and none of them initialized).
+     *
+     * @param packageName package to scan, empty - whole classpath
+     */
+    public static List<Class<?>> discover(@NotNull String packageName){
+        String packagePath = packageName.isEmpty() ? "" : packageName.replace('.', '/') + "/";
+        Set<String> classNames = new TreeSet<>();
+
+        for(String entry : System.getProperty("java.class.path").split(File.pathSeparator)){
+            Path entryPath = Path.of(entry);
+
+            try {
+                if(Files.isDirectory(entryPath))
+                    scanDirectory(entryPath, packagePath, classNames);
+                else if(entry.endsWith(".jar") && Files.isRegularFile(entryPath))
+                    scanJar(entryPath, packagePath, classNames);
+            } catch (IOException e) {
+                System.out.println("Unable to scan classpath entry " + entry + "! Exception: " + e.getMessage());
+            }
+        }
+
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        List<Class<?>> classes = new ArrayList<>();
+
+        for(String className : classNames){
+            try {
+                Class<?> clazz = Class.forName(className, false, loader);
+
+                if(clazz.isAnnotationPresent(Benchmark.class))
+                    classes.add(clazz);
+            } catch (ClassNotFoundException | LinkageError e) {
+                System.out.println("Unable to load " + className + "! Skipped...");
+            }
+        }
+
+        return classes;
+    }
+
+    private static void scanDirectory(Path root, String packagePath, Set<String> classNames) throws IOException {
+        Path packageDir = root.resolve(packagePath);
+
+        if(!Files.isDirectory(packageDir))
+            return;
+
+        try(Stream<Path> files = Files.walk(packageDir)){
+            for(Path file : (Iterable<Path>) files::iterator){
+                String relative = root.relativize(file).toString().replace(File.separatorChar, '/');
+
+                if(isCandidate(relative) && containsDescriptor(Files.readAllBytes(file)))
+                    classNames.add(toClassName(relative));
+            }
+        }
+    }
+
+    private static void scanJar(Path jar, String packagePath, Set<String> classNames) throws IOException {
+        try(JarFile jarFile = new JarFile(jar.toFile())){
+            Enumeration<JarEntry> entries = jarFile.entries();
+
+            while(entries.hasMoreElements()){
+                JarEntry entry = entries.nextElement();
+
+                if(!entry.getName().startsWith(packagePath) || !isCandidate(entry.getName()))
+                    continue;
+
+                try(InputStream in = jarFile.getInputStream(entry)){
+                    if(containsDescriptor(in.readAllBytes()))
+                        classNames.add(toClassName(entry.getName()));
+                }
+            }
+        }
+    }
+
+    private static boolean isCandidate(String path){
+        // Nested and synthetic classes can't be benchmarks, as well as module and package descriptors
+        return path.endsWith(".class") && !path.contains("$") && !path.endsWith("module-info.class") && !path.endsWith("package-info.class");
+    }
+
+    private static String toClassName(String path){
+        return path.substring(0, path.length() - ".class".length()).replace('/', '.');
+    }
+
+    private static boolean containsDescriptor(byte[] bytes){
+        outer:
+        for(int i = 0; i <= bytes.length - BENCHMARK_DESCRIPTOR.length; i++){
+            for(int j = 0; j < BENCHMARK_DESCRIPTOR.length; j++)
+                if(bytes[i + j] != BENCHMARK_DESCRIPTOR[j])
+                    continue outer;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Classes matching name pattern and tags of the settings.
+     */
+    public static List<Class<?>> select(@NotNull List<Class<?>> classes, @NotNull SuiteSettings settings){
+        Pattern namePattern = settings.getNamePattern() != null ? Pattern.compile(settings.getNamePattern()) : null;
+
+        return classes.stream()
+                .filter(clazz -> namePattern == null || namePattern.matcher(clazz.getName()).find())
+                .filter(clazz -> settings.getTags().isEmpty() || hasAnyTag(clazz, settings.getTags()))
+                .toList();
+    }
+
+    private static boolean hasAnyTag(Class<?> clazz, Set<String> tags){
+        Tag tagAnno = clazz.getAnnotation(Tag.class);
+
+        return tagAnno != null && Arrays.stream(tagAnno.value()).anyMatch(tags::contains);
+    }
+
+    public static SuiteResults run(@NotNull String packageName, @NotNull SuiteSettings settings){
+        return run(select(discover(packageName), settings), settings);
+    }
+
+    public static SuiteResults run(@NotNull List<Class<?>> classes, @NotNull SuiteSettings settings){
+        long suiteStart = System.nanoTime();
+        long deadline = settings.getBudgetMillis() > 0 ? suiteStart + TimeUnit.MILLISECONDS.toNanos(settings.getBudgetMillis()) : Long.MAX_VALUE;
+
+        Map<Class<?>, BenchmarkResults<?>> measured = new ConcurrentHashMap<>();
+        Set<String> skipped = ConcurrentHashMap.newKeySet();
+
+        // Latency-sensitive classes go first, one at a time, while the machine is otherwise idle
+        for(Class<?> clazz : classes){
+            if(clazz.isAnnotationPresent(Parallel.class))
+                continue;
+
+            measureClass(clazz, null, deadline, measured, skipped);
+        }
+
+        List<Class<?>> parallelClasses = classes.stream().filter(clazz -> clazz.isAnnotationPresent(Parallel.class)).toList();
+
+        if(!parallelClasses.isEmpty()){
+            List<List<String>> launchers = launchers(Math.min(Math.max(1, settings.getParallelism()), parallelClasses.size()), settings.isPinCpus());
+
+            // Every slot owns a CPU set, classes are taken from the shared queue by whichever slot is free
+            BlockingQueue<Class<?>> queue = new LinkedBlockingQueue<>(parallelClasses);
+            ExecutorService executor = Executors.newFixedThreadPool(launchers.size());
+
+            for(List<String> launcher : launchers){
+                executor.execute(() -> {
+                    Class<?> clazz;
+                    while((clazz = queue.poll()) != null)
+                        measureClass(clazz, launcher, deadline, measured, skipped);
+                });
+            }
+
+            executor.shutdown();
+
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        SuiteResults suiteResults = new SuiteResults();
+        suiteResults.setWallClockNanos(System.nanoTime() - suiteStart);
+
+        for(Class<?> clazz : classes){
+            if(measured.containsKey(clazz))
+                suiteResults.getResults().add(measured.get(clazz));
+            else if(skipped.contains(clazz.getName()))
+                suiteResults.getSkipped().add(clazz.getName());
+        }
+
+        return suiteResults;
+    }
+
+    /**
+     * @param launcher command prefix of child JVM to measure class in, if null - class is measured in the current JVM
+     */
+    private static void measureClass(Class<?> clazz, List<String> launcher, long deadline, Map<Class<?>, BenchmarkResults<?>> measured, Set<String> skipped){
+        if(System.nanoTime() >= deadline){
+            skipped.add(clazz.getName());
+            return;
+        }
+
+        try {
+            measured.put(clazz, Lightrun.run(clazz, method -> true, null, StreamSettings.retainAll(), launcher));
+        } catch (Exception e) {
+            System.out.println("Unable to measure " + clazz.getName() + "! Exception: " + e.getMessage());
+            skipped.add(clazz.getName());
+        }
+    }
+
+    /**
+     * Command prefixes of parallel slots: taskset pinning every slot to a disjoint range of CPUs,
+     * or no prefix at all (plain child JVMs), if pinning is off, taskset is unavailable or there are fewer CPUs than slots.
+     */
+    static List<List<String>> launchers(int slots, boolean pinCpus){
+        Optional<String> taskset = pinCpus ? findTaskset() : Optional.empty();
+        int cpus = Runtime.getRuntime().availableProcessors();
+
+        if(pinCpus && taskset.isEmpty())
+            System.out.println("taskset is not available, parallel benchmarks are not pinned to CPU sets...");
+
+        List<List<String>> launchers = new ArrayList<>();
+
+        for(int slot = 0; slot < slots; slot++){
+            if(taskset.isEmpty() || cpus < slots){
+                launchers.add(List.of());
+                continue;
+            }
+
+            // Remainder CPUs go to the last slot
+            int from = slot * (cpus / slots);
+            int to = slot == slots - 1 ? cpus - 1 : from + cpus / slots - 1;
+
+            launchers.add(List.of(taskset.get(), "-c", from + "-" + to));
+        }
+
+        return launchers;
+    }
+
+    private static Optional<String> findTaskset(){
+        if(!System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux"))
+            return Optional.empty();
+
+        return Stream.of("/usr/bin/taskset", "/bin/taskset")
+                .filter(path -> Files.isExecutable(Path.of(path)))
+                .findFirst();
+    }
+
+    /**
+     * Command line entry point: {@code <package> [--name=regex] [--tags=a,b] [--budget=millis] [--parallelism=n] [--json=file]}.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 1){
+            System.out.println("Usage: BenchmarkSuite <package> [--name=regex] [--tags=a,b] [--budget=millis] [--parallelism=n] [--json=file]");
+            System.exit(2);
+        }
+
+        SuiteSettings settings = new SuiteSettings();
+        Path jsonFile = null;
+
+        for(String arg : Arrays.asList(args).subList(1, args.length)){
+            String value = arg.substring(arg.indexOf('=') + 1);
+
+            if(arg.startsWith("--name=")) settings.setNamePattern(value);
+            else if(arg.startsWith("--tags=")) settings.getTags().addAll(Arrays.asList(value.split(",")));
+            else if(arg.startsWith("--budget=")) settings.setBudgetMillis(Long.parseLong(value));
+            else if(arg.startsWith("--parallelism=")) settings.setParallelism(Integer.parseInt(value));
+            else if(arg.startsWith("--json=")) jsonFile = Path.of(value);
+            else System.out.println("Unknown option " + arg + "! Ignored...");
+        }
+
+        SuiteResults results = run(args[0], settings);
+        System.out.println(results);
+
+        if(jsonFile != null)
+            Files.writeString(jsonFile, results.asJson(), StandardCharsets.UTF_8);
+    }
+}
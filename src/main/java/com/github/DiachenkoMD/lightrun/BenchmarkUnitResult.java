@@ -4,22 +4,61 @@ import com.github.DiachenkoMD.lightrun.annotations.Order;
 import lombok.Data;
 
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Optional;
 
 @Data
 public class BenchmarkUnitResult {
     String name;
+    Status status = Status.OK;
+    // Exception (type and message) unit failed with, null for successfully measured units
+    String failure;
     Object result;
     Class<?> unitMethodReturnType;
 
     Arguments injected;
+    // Time data source took to generate injected arguments, not included into unit time
+    long argumentsNanos;
+    // Values of @Param fields the unit was measured with (empty, if benchmark has no parameters)
+    Map<String, String> params;
     Time time;
+    Statistics statistics;
+    // Raw samples (nanoseconds per invocation) which statistics were built from
+    double[] samples;
+    // Latencies of all measured invocations (sample-time mode) or batches (throughput mode), in nanoseconds per invocation
+    LatencyHistogram histogram;
+    // Harness cost per invocation, already subtracted from statistics
+    double overheadNanos;
+    // Invocations timed together (configured or calibrated) and logical operations per invocation, times are per operation
+    int batchSize = 1;
+    int operationsPerInvocation = 1;
+    WarmupResult warmup;
+    // Filled only for units measured in throughput mode
+    ThroughputResult throughput;
+    AllocationResult allocation;
+    // Filled only for units marked with @Profile
+    ProfileResult profile;
+    // Filled only for candidate units of @Compare groups
+    ComparisonResult comparison;
+    // Filled only for units marked with @Footprint
+    FootprintResult footprint;
     Method originMethod;
     public void setNanos(long nanos){
-        time = new Time();
+        setNanos((double) nanos);
+    }
+
+    public void setNanos(double nanos){
+        // Keeping clock settings of already measured time
+        if(time == null)
+            time = new Time();
+
         time.setNanos(nanos);
     }
 
+    public boolean isFailed(){
+        return status != Status.OK;
+    }
+
     public Integer getOrder(){
         Optional<Order> order = Optional.ofNullable(originMethod.getAnnotation(Order.class));
 
@@ -36,13 +75,71 @@ public class BenchmarkUnitResult {
         return "";
     }
 
+    /**
+     * Returned value as is, without placeholders of void and null results.
+     */
+    Object rawResult(){
+        return result;
+    }
+
+    public void setSamples(double[] samples){
+        this.samples = samples;
+        this.statistics = Statistics.of(samples, samples.length);
+        setNanos(statistics.getMean());
+    }
+
+    /**
+     * Builds statistics from histogram instead of raw samples, which are not kept in sample-time mode.
+     */
+    public void useHistogram(LatencyHistogram histogram){
+        this.histogram = histogram;
+        this.samples = null;
+        this.statistics = Statistics.of(histogram);
+        setNanos(statistics.getMean());
+    }
+
+    /**
+     * Releases raw samples and histogram, keeping already computed statistics.
+     */
+    public void dropSamples(){
+        this.samples = null;
+        this.histogram = null;
+    }
+
     @Override
     public String toString() {
         return "\n"+name+": {\n" +
+                (isFailed() ? "   Status: " + status + (failure != null ? " (" + failure + ")" : "") + "\n" : "") +
                 "   Output: " + result + "\n" +
                 "   Return type: " + unitMethodReturnType + "\n" +
-                "   Ticks: " + time.getNanos() / 100 + "\n"+
+                (params != null && !params.isEmpty() ? "   Params: " + params + "\n" : "") +
+                "   Ticks: " + time.getTicks() + "\n"+
                 "   Nanos: " + time.getNanos() + "\n" +
+                "   Time: " + time.format() + " (" + time.getMode() + ")\n" +
+                (statistics != null ? "   Statistics: " + statistics + "\n" : "") +
+                "   Overhead: " + overheadNanos + "\n" +
+                "   Batch size: " + batchSize + (operationsPerInvocation > 1 ? " (" + operationsPerInvocation + " ops per invocation)" : "") + "\n" +
+                (injected != null ? "   Arguments generation: " + argumentsNanos + " ns\n" : "") +
+                (warmup != null ? "   Warmup: " + warmup + "\n" : "") +
+                (throughput != null ? "   Throughput: " + throughput + "\n" : "") +
+                (histogram != null ? "   Histogram: " + histogram + "\n" : "") +
+                (allocation != null ? "   Allocation: " + allocation + "\n" : "") +
+                (profile != null ? "   Profile: " + profile + "\n" : "") +
+                (comparison != null ? "   Comparison: " + comparison + "\n" : "") +
+                (footprint != null ? "   Footprint: " + footprint + "\n" : "") +
                 "}\n";
     }
+
+    public enum Status {
+        OK,
+        /**
+         * Unit (or its setup, data source and etc.) threw an exception
+         */
+        FAILED,
+        /**
+         * Unit didn't finish within {@link com.github.DiachenkoMD.lightrun.annotations.Timeout}
+         */
+        TIMEOUT,
+        OUT_OF_MEMORY
+    }
 }
@@ -0,0 +1,100 @@
+package com.github.DiachenkoMD.lightrun;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Consumes values, so JIT is unable to prove them unused and eliminate computations producing them.
+ * <br/>
+ * Unit can declare parameter of this type at any position: it is injected by harness, while the rest of parameters
+ * are filled with {@link Arguments} of data source in their order. Every invoker (thread) gets its own instance.
+ * <br/>
+ * Consumed values are compared against volatile fields, which never hold matching values in practice,
+ * so consumption costs a couple of reads and neither stores nor boxes anything.
+ */
+public final class Blackhole {
+    // Pairs of distinct values: consumed value is never equal to both of them at once
+    private volatile boolean bool1 = false, bool2 = true;
+    private volatile byte b1 = 1, b2 = 2;
+    private volatile char c1 = 'A', c2 = 'B';
+    private volatile short s1 = 1, s2 = 2;
+    private volatile int i1 = 1, i2 = 2;
+    private volatile long l1 = 1, l2 = 2;
+    private volatile float f1 = 1, f2 = 2;
+    private volatile double d1 = 1, d2 = 2;
+
+    // Objects are published rarely (with growing intervals) to a field, so escape analysis has to keep them
+    private volatile Object obj1;
+    private int objMask = 1;
+    private int objCounter;
+
+    public void consume(boolean value){
+        if(value == bool1 & value == bool2)
+            throw new IllegalStateException("Blackhole is broken!");
+    }
+
+    public void consume(byte value){
+        if(value == b1 & value == b2)
+            throw new IllegalStateException("Blackhole is broken!");
+    }
+
+    public void consume(char value){
+        if(value == c1 & value == c2)
+            throw new IllegalStateException("Blackhole is broken!");
+    }
+
+    public void consume(short value){
+        if(value == s1 & value == s2)
+            throw new IllegalStateException("Blackhole is broken!");
+    }
+
+    public void consume(int value){
+        if(value == i1 & value == i2)
+            throw new IllegalStateException("Blackhole is broken!");
+    }
+
+    public void consume(long value){
+        if(value == l1 & value == l2)
+            throw new IllegalStateException("Blackhole is broken!");
+    }
+
+    public void consume(float value){
+        if(value == f1 & value == f2)
+            throw new IllegalStateException("Blackhole is broken!");
+    }
+
+    public void consume(double value){
+        if(value == d1 & value == d2)
+            throw new IllegalStateException("Blackhole is broken!");
+    }
+
+    public void consume(Object value){
+        if((++objCounter & objMask) == 0){
+            obj1 = value;
+            objMask = (objMask << 1) + 1;
+        }
+    }
+
+    /**
+     * Arguments to invoke unit with: fresh blackholes are put at positions of {@link Blackhole} parameters,
+     * passed arguments fill the rest in order.
+     */
+    static Object[] inject(Method method, Object[] methodArgs){
+        Class<?>[] parameterTypes = method.getParameterTypes();
+
+        if(Arrays.stream(parameterTypes).noneMatch(type -> type == Blackhole.class))
+            return methodArgs;
+
+        Object[] injected = new Object[parameterTypes.length];
+        int argIndex = 0;
+
+        for(int i = 0; i < parameterTypes.length; i++){
+            if(parameterTypes[i] == Blackhole.class)
+                injected[i] = new Blackhole();
+            else if(argIndex < methodArgs.length)
+                injected[i] = methodArgs[argIndex++];
+        }
+
+        return injected;
+    }
+}
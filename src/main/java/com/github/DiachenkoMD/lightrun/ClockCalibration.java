@@ -0,0 +1,79 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Timer;
+import lombok.Data;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolution of a unit clock: the smallest step its readings change by (granularity) and the cost of one reading
+ * (latency). Every clock is calibrated once, on first request, by the requesting thread.
+ */
+@Data
+public class ClockCalibration {
+    private static final Map<Timer.Mode, ClockCalibration> calibrations = new ConcurrentHashMap<>();
+    private static final int LATENCY_READINGS = 100_000;
+    private static final int GRANULARITY_STEPS = 50;
+    private static final long MAX_GRANULARITY_NANOS = 1_000_000_000;
+    // Sample has to span this many clock steps (or readings), so quantization error stays within 1%
+    private static final int PRECISION = 100;
+    private static final long MIN_SAMPLE_NANOS = 1_000;
+
+    private Timer.Mode mode;
+    private double granularityNanos;
+    private double latencyNanos;
+
+    public static ClockCalibration of(Timer.Mode mode){
+        Timer.Mode effective = UnitClock.effective(mode);
+
+        // Single shot is timed by the wall clock
+        if(effective == Timer.Mode.SINGLE_SHOT)
+            effective = Timer.Mode.WALL;
+
+        return calibrations.computeIfAbsent(effective, ClockCalibration::calibrate);
+    }
+
+    /**
+     * Shortest sample (batch time) the clock resolves precisely.
+     */
+    public long getTargetSampleNanos(){
+        return Math.max(MIN_SAMPLE_NANOS, Math.round(PRECISION * Math.max(granularityNanos, latencyNanos)));
+    }
+
+    private static ClockCalibration calibrate(Timer.Mode mode){
+        ClockCalibration calibration = new ClockCalibration();
+        calibration.setMode(mode);
+
+        // Warming clock reads up, so latency is of compiled code
+        long sink = 0;
+        for(int i = 0; i < LATENCY_READINGS; i++)
+            sink += UnitClock.now(mode);
+
+        long start = System.nanoTime();
+        for(int i = 0; i < LATENCY_READINGS; i++)
+            sink += UnitClock.now(mode);
+        calibration.setLatencyNanos((double) (System.nanoTime() - start) / LATENCY_READINGS);
+
+        // Granularity is the smallest observed change of readings, coarse clocks are given limited time to change
+        long minStep = Long.MAX_VALUE;
+        long deadline = System.nanoTime() + MAX_GRANULARITY_NANOS;
+
+        for(int step = 0; step < GRANULARITY_STEPS && System.nanoTime() < deadline; step++){
+            long first = UnitClock.now(mode), next;
+
+            while((next = UnitClock.now(mode)) == first && System.nanoTime() < deadline)
+                sink += next;
+
+            if(next != first)
+                minStep = Math.min(minStep, next - first);
+        }
+
+        calibration.setGranularityNanos(minStep == Long.MAX_VALUE ? MAX_GRANULARITY_NANOS : minStep);
+
+        // Keeping readings alive, so JIT can't drop them (consumed once, so latency loop stays free of volatile reads)
+        new Blackhole().consume(sink);
+
+        return calibration;
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.DiachenkoMD.lightrun;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Interleaved comparison of a candidate unit against the baseline unit of the same key (see {@link com.github.DiachenkoMD.lightrun.annotations.Compare}).
+ * Speedup above 1 means candidate is faster than baseline.
+ */
+@Data
+public class ComparisonResult {
+    private String key;
+    // Baseline result is referenced, so its name stays actual after renaming by arguments and parameters
+    @EqualsAndHashCode.Exclude
+    private BenchmarkUnitResult baselineResult;
+    private int rounds;
+    // Geometric mean of per-round ratios baseline time / candidate time with its confidence interval
+    private double speedup;
+    private double ciLower;
+    private double ciUpper;
+    private double tStatistic;
+    private boolean significant;
+
+    public String getBaseline(){
+        return baselineResult != null ? baselineResult.getName() : null;
+    }
+
+    @Override
+    public String toString() {
+        return "{key=" + key +
+                ", baseline=" + getBaseline() +
+                ", speedup=" + speedup +
+                ", ci=[" + ciLower + "; " + ciUpper + "]" +
+                ", significant=" + significant + "}";
+    }
+}
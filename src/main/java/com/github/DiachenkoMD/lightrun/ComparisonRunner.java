@@ -0,0 +1,210 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Compare;
+import com.github.DiachenkoMD.lightrun.annotations.DataSource;
+import com.github.DiachenkoMD.lightrun.annotations.Timer;
+
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * Measures units sharing a {@link Compare} key together and compares candidates against the baseline.
+ * <br/>
+ * Every round measures one batch of each unit in a freshly shuffled order, so i-th samples of all units are taken
+ * side by side and drift of CPU frequency or temperature cancels out of their ratio. Speedup and its confidence
+ * interval are built from logarithms of per-round ratios (paired t-test), so they are symmetric for faster and slower units.
+ */
+class ComparisonRunner {
+    /**
+     * Splits units into measurement groups in units order: units sharing a key (baseline first) or a single unit.
+     */
+    static List<List<Method>> groups(List<Method> units){
+        Map<String, List<Method>> byKey = new LinkedHashMap<>();
+        List<List<Method>> groups = new ArrayList<>();
+
+        for(Method method : units){
+            Compare anno = method.getAnnotation(Compare.class);
+
+            if(anno == null || !isComparable(method)){
+                groups.add(List.of(method));
+                continue;
+            }
+
+            List<Method> group = byKey.get(anno.value());
+
+            if(group == null){
+                group = new ArrayList<>();
+                byKey.put(anno.value(), group);
+                groups.add(group);
+            }
+
+            if(anno.baseline())
+                group.add(0, method);
+            else
+                group.add(method);
+        }
+
+        // Units of a key can only be interleaved on the same arguments sets
+        List<List<Method>> checked = new ArrayList<>();
+
+        for(List<Method> group : groups){
+            Set<String> dataSources = new HashSet<>();
+            for(Method method : group){
+                DataSource dataSourceAnno = method.getAnnotation(DataSource.class);
+                dataSources.add(dataSourceAnno != null ? dataSourceAnno.value() : "");
+            }
+
+            if(dataSources.size() > 1){
+                System.out.println("Units compared as " + group.get(0).getAnnotation(Compare.class).value() + " use different data sources! Measured independently...");
+                group.forEach(method -> checked.add(List.of(method)));
+            }else{
+                checked.add(group);
+            }
+        }
+
+        return checked;
+    }
+
+    private static boolean isComparable(Method method){
+        if(UnitClock.mode(method) == Timer.Mode.SINGLE_SHOT
+                || AsyncRunner.resolve(method) != null
+                || ThroughputRunner.resolve(method) != null
+                || SampleTimeRunner.resolve(method) != null){
+            System.out.println("Unit " + method.getName() + " is not measured in default mode and can't be compared! Measured independently...");
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Measures group on the passed instance. Results go in group order, candidates carry their comparison against the baseline.
+     */
+    static List<BenchmarkUnitResult> measure(List<Method> group, BenchmarkState<?> state, Object benchmarkClass, Object[] methodArgs) throws Throwable {
+        int size = group.size();
+
+        MeasurementSettings[] settings = new MeasurementSettings[size];
+        UnitInvoker[] invokers = new UnitInvoker[size];
+        int[] batchSizes = new int[size];
+        double[] overheads = new double[size];
+        int[] ops = new int[size];
+        WarmupResult[] warmups = new WarmupResult[size];
+        AllocationResult[] allocations = new AllocationResult[size];
+
+        for(int i = 0; i < size; i++){
+            Method method = group.get(i);
+
+            settings[i] = MeasurementSettings.resolve(method);
+            ops[i] = settings[i].getOperationsPerInvocation();
+            invokers[i] = state.invoker(method, benchmarkClass, methodArgs);
+            batchSizes[i] = settings[i].batchSizeFor(invokers[i], UnitClock.mode(method));
+            overheads[i] = UnitInvoker.overheadNanos(state.timedBatchSize(batchSizes[i]), UnitClock.mode(method));
+            allocations[i] = new AllocationResult();
+        }
+
+        Random random = new Random();
+        List<Integer> order = new ArrayList<>();
+        for(int i = 0; i < size; i++)
+            order.add(i);
+
+        // Units are warmed up in shuffled order too, so none of them is always measured right after its own warmup
+        Collections.shuffle(order, random);
+        for(int i : order){
+            warmups[i] = WarmupResult.warmup(invokers[i], WarmupSettings.resolve(group.get(i)), batchSizes[i]);
+            LightrunEvents.warmupComplete(group.get(i), warmups[i]);
+        }
+
+        double[][] samples = new double[size][Math.max(16, settings[0].getIterations())];
+        long gcCountBefore = AllocationProfiler.gcCount();
+        long gcTimeBefore = AllocationProfiler.gcTimeMillis();
+
+        long start = System.nanoTime();
+        int round = 0;
+
+        // Rounds are counted by the baseline settings
+        while(settings[0].hasNextIteration(round, System.nanoTime() - start)){
+            UnitWatchdog.checkInterrupted();
+            Collections.shuffle(order, random);
+
+            for(int i : order){
+                long endTime = invokers[i].measure(batchSizes[i]);
+                allocations[i].addAllocated(invokers[i].lastAllocatedBytes(), (long) batchSizes[i] * ops[i]);
+
+                if(round == samples[i].length)
+                    samples[i] = Arrays.copyOf(samples[i], round * 2);
+
+                samples[i][round] = Math.max(0, (double) endTime / batchSizes[i] - overheads[i]) / ops[i];
+                LightrunEvents.iterationComplete(group.get(i), round, samples[i][round]);
+            }
+
+            ++round;
+        }
+
+        List<BenchmarkUnitResult> results = new ArrayList<>(size);
+
+        for(int i = 0; i < size; i++){
+            // Collections happened during rounds are shared by all units of the group
+            allocations[i].addGc(gcCountBefore, gcTimeBefore);
+
+            BenchmarkUnitResult unitRes = new BenchmarkUnitResult();
+            unitRes.setOperationsPerInvocation(ops[i]);
+            unitRes.setResult(invokers[i].lastResult());
+            unitRes.setSamples(Arrays.copyOf(samples[i], round));
+            unitRes.setBatchSize(batchSizes[i]);
+            unitRes.setOverheadNanos(overheads[i]);
+            unitRes.setWarmup(warmups[i]);
+            unitRes.setAllocation(allocations[i]);
+
+            if(i > 0)
+                unitRes.setComparison(compare(group.get(0).getAnnotation(Compare.class).value(), results.get(0), unitRes));
+
+            results.add(unitRes);
+        }
+
+        return results;
+    }
+
+    /**
+     * Compares candidate with baseline by their samples paired by index (round).
+     */
+    static ComparisonResult compare(String key, BenchmarkUnitResult baseline, BenchmarkUnitResult candidate){
+        ComparisonResult comparison = new ComparisonResult();
+        comparison.setKey(key);
+        comparison.setBaselineResult(baseline);
+
+        double[] baselineSamples = baseline.getSamples() != null ? baseline.getSamples() : new double[0];
+        double[] candidateSamples = candidate.getSamples() != null ? candidate.getSamples() : new double[0];
+        int rounds = Math.min(baselineSamples.length, candidateSamples.length);
+
+        // Rounds with zero time (fully eaten by overhead subtraction) have no ratio
+        double[] logRatios = new double[rounds];
+        int count = 0;
+
+        for(int i = 0; i < rounds; i++){
+            if(baselineSamples[i] > 0 && candidateSamples[i] > 0)
+                logRatios[count++] = Math.log(baselineSamples[i] / candidateSamples[i]);
+        }
+
+        comparison.setRounds(count);
+
+        if(count < 2){
+            comparison.setSpeedup(count == 1 ? Math.exp(logRatios[0]) : Double.NaN);
+            comparison.setCiLower(Double.NaN);
+            comparison.setCiUpper(Double.NaN);
+            comparison.setTStatistic(Double.NaN);
+            return comparison;
+        }
+
+        Statistics stats = Statistics.of(logRatios, count);
+        double standardError = stats.getStdDev() / Math.sqrt(count);
+
+        comparison.setSpeedup(Math.exp(stats.getMean()));
+        comparison.setCiLower(Math.exp(stats.getCiLower()));
+        comparison.setCiUpper(Math.exp(stats.getCiUpper()));
+        comparison.setTStatistic(standardError > 0 ? stats.getMean() / standardError : stats.getMean() == 0 ? 0 : Math.copySign(Double.POSITIVE_INFINITY, stats.getMean()));
+        // Confidence interval of the mean log ratio excluding zero is the two-sided paired t-test at Statistics.CONFIDENCE
+        comparison.setSignificant(stats.getCiLower() > 0 || stats.getCiUpper() < 0);
+
+        return comparison;
+    }
+}
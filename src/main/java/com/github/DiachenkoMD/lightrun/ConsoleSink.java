@@ -0,0 +1,42 @@
+package com.github.DiachenkoMD.lightrun;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Prints every result as a single line right after it was measured.
+ */
+public class ConsoleSink implements ResultSink {
+    private final PrintStream out;
+
+    public ConsoleSink(){
+        this(System.out);
+    }
+
+    public ConsoleSink(PrintStream out){
+        this.out = out;
+    }
+
+    @Override
+    public void onBenchmarkStart(BenchmarkResults<?> results) {
+        out.println(results.getUID());
+    }
+
+    @Override
+    public void accept(BenchmarkUnitResult result) {
+        Statistics stats = result.getStatistics();
+
+        if(result.isFailed()){
+            out.println("  " + result.getName() + ": " + result.getStatus() + (result.getFailure() != null ? " (" + result.getFailure() + ")" : ""));
+            return;
+        }
+
+        if(stats == null){
+            out.println("  " + result.getName() + ": " + result.getTime().format());
+            return;
+        }
+
+        out.println(String.format(Locale.ROOT, "  %s: %.3f +- %.3f ns (%d samples) -> %s",
+                result.getName(), stats.getMean(), stats.getError(), stats.getCount(), result.getResult()));
+    }
+}
@@ -0,0 +1,12 @@
+package com.github.DiachenkoMD.lightrun;
+
+import lombok.Data;
+
+@Data
+public class FootprintResult {
+    // Measured objects themselves
+    private long shallowBytes;
+    // Everything reachable only through measured objects, including them
+    private long retainedBytes;
+    private long retainedObjects;
+}
@@ -0,0 +1,817 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Compare;
+import com.github.DiachenkoMD.lightrun.annotations.Fork;
+import com.github.DiachenkoMD.lightrun.annotations.Profile;
+import com.github.DiachenkoMD.lightrun.annotations.Timeout;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Runs benchmark units in child JVMs and merges streamed back results.
+ * <br/>
+ * Child JVM is started with the same java.home and classpath, measures requested units in-process
+ * and prints every result as a single Base64 line marked with {@link #RESULT_PREFIX} to stdout. Starts of units
+ * (marked with {@link #UNIT_START_PREFIX}) are published by the parent as its own progress events as they arrive,
+ * starts of measurements ({@link #MEASUREMENT_PREFIX}) set the deadline parent watches child JVM with.
+ * Everything else printed by child (units output) is forwarded to the parent stdout as is.
+ * Child JVM silent for longer than {@link Timeout} of its units allows is killed by the parent and replaced by a new one.
+ */
+public class ForkedRunner {
+    static final String CHILD_PROPERTY = "lightrun.fork.child";
+    static final String RESULT_PREFIX = "#lightrun-result#";
+    static final String UNIT_START_PREFIX = "#lightrun-unit-start#";
+    static final String MEASUREMENT_PREFIX = "#lightrun-measurement#";
+    // Stream settings of the parent, child JVM applies them before sending results
+    static final String RETAIN_RESULTS_PROPERTY = "lightrun.fork.retainResults";
+    static final String RETAIN_ARGUMENTS_PROPERTY = "lightrun.fork.retainArguments";
+    // Child JVM halts itself with this code, when a timed out unit can't be stopped
+    static final int RUNAWAY_EXIT_CODE = 86;
+    // How often the parent checks child JVM against the deadline of what it's doing, ms
+    private static final long WATCH_INTERVAL_MILLIS = 50;
+    // Time child JVM is given at least outside of measurements (JVM start, set up, data sources, tear down), ms
+    private static final long MIN_IDLE_MILLIS = 10_000;
+
+    // Results (by unit signature) child JVM resuming a halted one skips, and arguments sets it has passed so far
+    private static final Map<String, Integer> resumeCounts = new HashMap<>();
+    private static final Map<Method, Integer> passedCounts = new HashMap<>();
+
+    public static boolean isForkedChild(){
+        return Boolean.getBoolean(CHILD_PROPERTY);
+    }
+
+    /**
+     * @param forkAnno isolation settings, if null - one child JVM runs all units
+     * @param launcher command prefix child JVM is started with (e.g. taskset pinning it to CPU set), may be empty
+     * @param emit receives every merged result as soon as all forks have delivered it
+     */
+    static void run(Class<?> benchmarkClazz, List<Method> unitMethods, Fork forkAnno, List<String> launcher, StreamSettings streamSettings, ResultSink emit){
+        run(benchmarkClazz, unitMethods,
+                forkAnno != null ? forkAnno.value() : Fork.Isolation.CLASS,
+                forkAnno != null ? forkAnno.count() : 1,
+                forkAnno != null ? forkAnno.jvmArgs() : new String[0],
+                launcher, streamSettings, emit);
+    }
+
+    static void run(Class<?> benchmarkClazz, List<Method> unitMethods, Fork.Isolation isolation, int count, String[] jvmArgs, List<String> launcher, StreamSettings streamSettings, ResultSink emit){
+        Map<String, Method> methodsBySignature = unitMethods.stream()
+                .collect(Collectors.toMap(ForkedRunner::signature, m -> m, (a, b) -> a, LinkedHashMap::new));
+
+        // Deciding which units go to the same child JVM
+        List<List<String>> targets = isolation == Fork.Isolation.UNIT
+                ? methodsBySignature.keySet().stream().map(List::of).toList()
+                : List.of(new ArrayList<>(methodsBySignature.keySet()));
+
+        // Results of the same unit and arguments from different child JVMs are merged into one
+        ForkMerger merger = new ForkMerger(Math.max(1, count), emit);
+
+        for(List<String> target : targets){
+            if(target.isEmpty())
+                continue;
+
+            for(int fork = 0; fork < Math.max(1, count); fork++){
+                try {
+                    launch(benchmarkClazz, target, launcher, jvmArgs, streamSettings, methodsBySignature, merger);
+                } catch (IOException e) {
+                    System.out.println("Unable to fork JVM for " + benchmarkClazz.getSimpleName() + "! Exception: " + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    merger.finish();
+                    return;
+                }
+            }
+        }
+
+        // Results some fork hasn't delivered (e.g. it crashed) are passed on as merged so far
+        merger.finish();
+    }
+
+    /**
+     * Merges results of the same unit and arguments set from different child JVMs, passing each one on as soon as
+     * the last fork delivers it. Comparison group is held back until its next result is known: candidates are compared
+     * with samples of the merged baseline, which the sink may drop.
+     */
+    private static class ForkMerger {
+        private final int count;
+        private final ResultSink emit;
+
+        // Results by "signature#ordinal" some forks haven't delivered yet, and amount of forks which have
+        private final Map<String, BenchmarkUnitResult> pending = new LinkedHashMap<>();
+        private final Map<String, Integer> arrivals = new HashMap<>();
+        // Baseline and candidates of the last comparison group
+        private final Map<String, BenchmarkUnitResult> group = new LinkedHashMap<>();
+
+        ForkMerger(int count, ResultSink emit){
+            this.count = count;
+            this.emit = emit;
+        }
+
+        void accept(String key, BenchmarkUnitResult res){
+            if(count == 1){
+                complete(key, res);
+                return;
+            }
+
+            BenchmarkUnitResult merged = pending.merge(key, res, ForkedRunner::mergeForks);
+
+            if(arrivals.merge(key, 1, Integer::sum) == count){
+                pending.remove(key);
+                arrivals.remove(key);
+                complete(key, merged);
+            }
+        }
+
+        void finish(){
+            new ArrayList<>(pending.keySet()).forEach(key -> complete(key, pending.remove(key)));
+            arrivals.clear();
+            flushGroup();
+        }
+
+        /**
+         * Samples of all forks stay paired by round, as every fork appends them in the same order.
+         */
+        private void complete(String key, BenchmarkUnitResult res){
+            ComparisonResult comparison = res.getComparison();
+
+            if(comparison != null){
+                Method baselineMethod = comparison.getBaselineResult().getOriginMethod();
+                BenchmarkUnitResult baseline = baselineMethod != null
+                        ? group.get(signature(baselineMethod) + key.substring(key.lastIndexOf('#')))
+                        : null;
+
+                res.setComparison(baseline != null && !res.isFailed() && !baseline.isFailed()
+                        ? ComparisonRunner.compare(comparison.getKey(), baseline, res)
+                        : null);
+
+                group.put(key, res);
+                return;
+            }
+
+            flushGroup();
+
+            if(res.getOriginMethod() != null && res.getOriginMethod().getAnnotation(Compare.class) != null)
+                group.put(key, res);
+            else
+                emit.accept(res);
+        }
+
+        private void flushGroup(){
+            group.values().forEach(emit::accept);
+            group.clear();
+        }
+    }
+
+    /**
+     * Measures units in a child JVM. Child JVM halted on a runaway unit is replaced by a new one resuming after the last
+     * passed result, as long as every child JVM passes something.
+     */
+    private static void launch(Class<?> benchmarkClazz, List<String> signatures, List<String> launcher, String[] jvmArgs, StreamSettings streamSettings, Map<String, Method> methodsBySignature, ForkMerger merger) throws IOException, InterruptedException {
+        // Amount of results received by unit signature, they are numbered from zero without gaps
+        Map<String, Integer> received = new HashMap<>();
+        BiConsumer<String, BenchmarkUnitResult> results = (key, res) -> {
+            received.merge(key.substring(0, key.lastIndexOf('#')), 1, Integer::sum);
+            merger.accept(key, res);
+        };
+        int exitCode;
+        int before;
+
+        do {
+            before = received.values().stream().mapToInt(Integer::intValue).sum();
+            exitCode = launchChild(benchmarkClazz, signatures, launcher, jvmArgs, streamSettings, methodsBySignature, received, results);
+
+            if(exitCode == RUNAWAY_EXIT_CODE && received.values().stream().mapToInt(Integer::intValue).sum() > before)
+                System.out.println(String.format("Forked JVM of %s was halted on a runaway unit! The rest is measured in a new one...", benchmarkClazz.getSimpleName()));
+        } while(exitCode == RUNAWAY_EXIT_CODE && received.values().stream().mapToInt(Integer::intValue).sum() > before);
+
+        if(exitCode != 0){
+            System.out.println(String.format("Forked JVM of %s exited with code %d! Results may be incomplete...", benchmarkClazz.getSimpleName(), exitCode));
+
+            // Units child JVM died before (e.g. crashed) are reported as failed instead of being lost
+            for(String signature : signatures){
+                if(!received.containsKey(signature))
+                    results.accept(signature + "#0", UnitWatchdog.failed(methodsBySignature.get(signature), BenchmarkUnitResult.Status.FAILED, "Forked JVM exited with code " + exitCode));
+            }
+        }
+    }
+
+    private static int launchChild(Class<?> benchmarkClazz, List<String> signatures, List<String> launcher, String[] jvmArgs, StreamSettings streamSettings, Map<String, Method> methodsBySignature, Map<String, Integer> receivedCounts, BiConsumer<String, BenchmarkUnitResult> results) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(launcher);
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(Arrays.asList(jvmArgs));
+        command.add("-D" + CHILD_PROPERTY + "=true");
+        command.add("-D" + RETAIN_RESULTS_PROPERTY + "=" + streamSettings.isRetainResults());
+        command.add("-D" + RETAIN_ARGUMENTS_PROPERTY + "=" + streamSettings.isRetainArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ForkedRunner.class.getName());
+        command.add(benchmarkClazz.getName());
+
+        // Units are passed with amount of results to skip, when child JVM resumes a halted one
+        for(String signature : signatures){
+            int resumeCount = receivedCounts.getOrDefault(signature, 0);
+            command.add(resumeCount > 0 ? signature + "=" + resumeCount : signature);
+        }
+
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        // Child JVM may hang outside of supervised measurement too (set up, data sources, tear down, JVM itself),
+        // so the parent kills it, once it's silent longer than units timeouts allow. Units without timeout aren't limited
+        long unitsBudget = signatures.stream().mapToLong(signature -> budgetNanos(methodsBySignature.get(signature))).max().orElse(-1);
+        long idleBudget = unitsBudget < 0 ? -1 : Math.max(unitsBudget, TimeUnit.MILLISECONDS.toNanos(MIN_IDLE_MILLIS));
+        AtomicLong deadline = new AtomicLong(idleBudget < 0 ? 0 : System.nanoTime() + idleBudget);
+        AtomicBoolean killed = new AtomicBoolean();
+
+        Thread watcher = new Thread(() -> {
+            try {
+                while(!process.waitFor(WATCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)){
+                    long due = deadline.get();
+
+                    if(due != 0 && System.nanoTime() - due > 0){
+                        killed.set(true);
+                        process.destroyForcibly();
+                        return;
+                    }
+                }
+            } catch (InterruptedException ignored) {}
+        }, "lightrun-fork-watchdog");
+        watcher.setDaemon(true);
+        watcher.start();
+
+        // Units of the current measurement without results yet, they are the ones reported, if child JVM is killed
+        Set<Method> running = new LinkedHashSet<>();
+        Map<String, String> runningParams = new HashMap<>();
+
+        BiConsumer<String, BenchmarkUnitResult> received = (key, res) -> {
+            running.remove(res.getOriginMethod());
+            deadline.set(idleBudget < 0 ? 0 : System.nanoTime() + idleBudget);
+            results.accept(key, res);
+        };
+
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))){
+            String line;
+            while((line = reader.readLine()) != null){
+                // Unit could print something without line break, so the marker is not necessarily at the line start
+                String marker = RESULT_PREFIX;
+                int markerIndex = line.indexOf(marker);
+
+                if(markerIndex < 0){
+                    marker = UNIT_START_PREFIX;
+                    markerIndex = line.indexOf(marker);
+                }
+
+                if(markerIndex < 0){
+                    marker = MEASUREMENT_PREFIX;
+                    markerIndex = line.indexOf(marker);
+                }
+
+                if(markerIndex < 0){
+                    System.out.println(line);
+                    continue;
+                }
+
+                if(markerIndex > 0)
+                    System.out.println(line.substring(0, markerIndex));
+
+                if(marker.equals(RESULT_PREFIX)){
+                    decode(line.substring(markerIndex + marker.length()), methodsBySignature, received);
+                    continue;
+                }
+
+                if(marker.equals(UNIT_START_PREFIX)){
+                    decodeUnitStart(line.substring(markerIndex + marker.length()), methodsBySignature, (units, params) -> {
+                        runningParams.clear();
+                        if(params != null)
+                            runningParams.putAll(params);
+                    });
+                    continue;
+                }
+
+                List<Method> units = decodeUnits(line.substring(markerIndex + marker.length()), methodsBySignature);
+                running.clear();
+                running.addAll(units);
+
+                // Units of a group are measured one by one, each within its own timeout
+                long groupBudget = units.stream().mapToLong(ForkedRunner::budgetNanos).reduce(0, (a, b) -> a < 0 || b < 0 ? -1 : a + b);
+                deadline.set(groupBudget < 0 || idleBudget < 0 ? 0 : System.nanoTime() + groupBudget + idleBudget);
+            }
+        } catch (IOException e) {
+            // Killed child JVM has its output closed
+            if(!killed.get())
+                throw e;
+        }
+
+        int exitCode = process.waitFor();
+        watcher.interrupt();
+
+        if(!killed.get())
+            return exitCode;
+
+        System.out.println(String.format("Forked JVM of %s hangs past units timeout! Killed...", benchmarkClazz.getSimpleName()));
+
+        // Units child JVM hung on are reported as timed out, so the next child JVM resumes after them
+        for(Method method : running){
+            String signature = signature(method);
+            BenchmarkUnitResult res = UnitWatchdog.failed(method, BenchmarkUnitResult.Status.TIMEOUT, "Forked JVM hangs past unit timeout");
+            res.setParams(new LinkedHashMap<>(runningParams));
+            res.setName(new BenchmarkState<>(benchmarkClazz, res.getParams()).unitName(res.getName(), BenchmarkState.parameterSpace(benchmarkClazz).size() > 1));
+
+            results.accept(signature + "#" + receivedCounts.getOrDefault(signature, 0), res);
+        }
+
+        return RUNAWAY_EXIT_CODE;
+    }
+
+    /**
+     * Time unit measurement may take in child JVM before it's killed, -1 if unit has no timeout.
+     */
+    private static long budgetNanos(Method unitMethod){
+        Timeout anno = UnitWatchdog.resolve(unitMethod);
+
+        return anno != null ? anno.timeUnit().toNanos(anno.value()) + TimeUnit.MILLISECONDS.toNanos(anno.grace()) : -1;
+    }
+
+    private static BenchmarkUnitResult mergeForks(BenchmarkUnitResult first, BenchmarkUnitResult second){
+        // Unit failed in any child JVM is reported as failed, measurements of the other ones are kept
+        if(first.isFailed() && first.getStatistics() == null)
+            return keepFailure(second, first);
+
+        if(second.isFailed() && second.getStatistics() == null)
+            return keepFailure(first, second);
+
+        if(first.getHistogram() != null && second.getHistogram() != null)
+            first.getHistogram().merge(second.getHistogram());
+
+        if(first.getSamples() != null && second.getSamples() != null){
+            double[] samples = Arrays.copyOf(first.getSamples(), first.getSamples().length + second.getSamples().length);
+            System.arraycopy(second.getSamples(), 0, samples, first.getSamples().length, second.getSamples().length);
+
+            first.setSamples(samples);
+        }else if(first.getHistogram() != null){
+            // Sample-time units carry histogram only
+            first.useHistogram(first.getHistogram());
+        }
+
+        first.setResult(second.getResult());
+        first.setOverheadNanos((first.getOverheadNanos() + second.getOverheadNanos()) / 2);
+        first.setArgumentsNanos((first.getArgumentsNanos() + second.getArgumentsNanos()) / 2);
+
+        if(first.getWarmup() != null && second.getWarmup() != null)
+            first.getWarmup().merge(second.getWarmup());
+
+        if(first.getThroughput() != null && second.getThroughput() != null)
+            first.getThroughput().merge(second.getThroughput());
+
+        if(first.getAllocation() != null && second.getAllocation() != null)
+            first.getAllocation().merge(second.getAllocation());
+
+        if(first.getProfile() != null && second.getProfile() != null)
+            first.getProfile().merge(second.getProfile());
+
+        // Footprint of the same arguments set doesn't depend on JVM, the first measured one is kept
+        if(first.getFootprint() == null)
+            first.setFootprint(second.getFootprint());
+
+        return first;
+    }
+
+    private static BenchmarkUnitResult keepFailure(BenchmarkUnitResult target, BenchmarkUnitResult failed){
+        if(!target.isFailed()){
+            target.setStatus(failed.getStatus());
+            target.setFailure(failed.getFailure());
+        }
+
+        return target;
+    }
+
+    /**
+     * Child JVM entry point. Arguments: benchmark class name followed by signatures of units to measure
+     * (with "=" and amount of results to skip, when child JVM resumes a halted one).
+     */
+    public static void main(String[] args) throws Exception {
+        Class<?> benchmarkClazz = Class.forName(args[0]);
+        Set<String> signatures = new HashSet<>();
+
+        for(String arg : Arrays.asList(args).subList(1, args.length)){
+            int separator = arg.lastIndexOf('=');
+            signatures.add(separator < 0 ? arg : arg.substring(0, separator));
+
+            if(separator >= 0)
+                resumeCounts.put(arg.substring(0, separator), Integer.parseInt(arg.substring(separator + 1)));
+        }
+
+        // Ordinal of result among results of the same unit is what identifies arguments set across forks
+        Map<Method, Integer> ordinals = new HashMap<>();
+
+        // Samples are always sent, the parent needs them to merge forks and compare units
+        StreamSettings streamSettings = StreamSettings.retainAll();
+        streamSettings.setRetainResults(Boolean.getBoolean(RETAIN_RESULTS_PROPERTY));
+        streamSettings.setRetainArguments(Boolean.getBoolean(RETAIN_ARGUMENTS_PROPERTY));
+
+        // Every result is streamed to the parent right away instead of being kept until the class is done
+        Lightrun.run(benchmarkClazz, method -> signatures.contains(signature(method)), res -> {
+            try {
+                String signature = signature(res.getOriginMethod());
+                int ordinal = ordinals.merge(res.getOriginMethod(), 1, Integer::sum) - 1 + resumeCounts.getOrDefault(signature, 0);
+                System.out.println(RESULT_PREFIX + encode(res, ordinal));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, streamSettings);
+
+        System.out.flush();
+    }
+
+    /**
+     * Called by child JVM before every measurement of units (one group on one arguments set). Unit which ignored
+     * interruption would hang or disturb the rest of child JVM, so it's killed together with it, once results of
+     * the whole group it timed out in are passed to the parent.
+     */
+    static void haltOnRunaway(){
+        if(isForkedChild() && UnitWatchdog.hasRunaway()){
+            System.out.flush();
+            Runtime.getRuntime().halt(RUNAWAY_EXIT_CODE);
+        }
+    }
+
+    /**
+     * Whether child JVM resuming a halted one skips measurement of units (one group on one arguments set), as their
+     * results were passed by the halted child JVM.
+     */
+    static boolean isMeasuredBefore(List<Method> group){
+        if(resumeCounts.isEmpty())
+            return false;
+
+        boolean isMeasured = true;
+        for(Method unit : group)
+            isMeasured &= passedCounts.merge(unit, 1, Integer::sum) <= resumeCounts.getOrDefault(signature(unit), 0);
+
+        return isMeasured;
+    }
+
+    /**
+     * Passes start of units measured by child JVM to the parent (see {@link LightrunEvents#unitStart(List, Map)}).
+     */
+    static void forwardUnitStart(List<Method> units, Map<String, String> params){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try(DataOutputStream out = new DataOutputStream(bytes)){
+            out.writeInt(units.size());
+            for(Method unit : units)
+                writeString(out, signature(unit));
+
+            out.writeInt(params == null ? -1 : params.size());
+            if(params != null)
+                for(Map.Entry<String, String> param : params.entrySet()){
+                    writeString(out, param.getKey());
+                    writeString(out, param.getValue());
+                }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        System.out.println(UNIT_START_PREFIX + Base64.getEncoder().encodeToString(bytes.toByteArray()));
+    }
+
+    /**
+     * Passes measurement of units on the next arguments set to the parent, which kills child JVM hanging in it.
+     */
+    static void forwardMeasurement(List<Method> units){
+        if(!isForkedChild())
+            return;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try(DataOutputStream out = new DataOutputStream(bytes)){
+            out.writeInt(units.size());
+            for(Method unit : units)
+                writeString(out, signature(unit));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        System.out.println(MEASUREMENT_PREFIX + Base64.getEncoder().encodeToString(bytes.toByteArray()));
+    }
+
+    private static List<Method> decodeUnits(String encoded, Map<String, Method> methodsBySignature) throws IOException {
+        try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(encoded)))){
+            List<Method> units = new ArrayList<>();
+            int unitsCount = in.readInt();
+            for(int i = 0; i < unitsCount; i++){
+                Method method = methodsBySignature.get(readString(in));
+                if(method != null)
+                    units.add(method);
+            }
+
+            return units;
+        }
+    }
+
+    private static void decodeUnitStart(String encoded, Map<String, Method> methodsBySignature, BiConsumer<List<Method>, Map<String, String>> started) throws IOException {
+        try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(encoded)))){
+            List<Method> units = new ArrayList<>();
+            int unitsCount = in.readInt();
+            for(int i = 0; i < unitsCount; i++){
+                Method method = methodsBySignature.get(readString(in));
+                if(method != null)
+                    units.add(method);
+            }
+
+            int paramsCount = in.readInt();
+            Map<String, String> params = paramsCount < 0 ? null : new LinkedHashMap<>();
+            for(int i = 0; i < paramsCount; i++)
+                params.put(readString(in), readString(in));
+
+            if(!units.isEmpty()){
+                LightrunEvents.unitStart(units, params);
+                started.accept(units, params);
+            }
+        }
+    }
+
+    public static String signature(Method method){
+        return method.getName() + Arrays.stream(method.getParameterTypes())
+                .map(Class::getName)
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    static String encode(BenchmarkUnitResult res, int ordinal) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try(DataOutputStream out = new DataOutputStream(bytes)){
+            writeString(out, signature(res.getOriginMethod()));
+            out.writeInt(ordinal);
+            writeString(out, res.getName());
+            out.writeInt(res.getStatus().ordinal());
+            writeString(out, res.getFailure());
+            writeString(out, res.getResult() == null ? null : String.valueOf(res.getResult()));
+
+            Map<String, String> params = res.getParams();
+            out.writeInt(params == null ? -1 : params.size());
+            if(params != null)
+                for(Map.Entry<String, String> param : params.entrySet()){
+                    writeString(out, param.getKey());
+                    writeString(out, param.getValue());
+                }
+
+            // Arguments are transferred in their textual form
+            Object[] args = res.getInjected() != null ? res.getInjected().getArgs() : null;
+            out.writeInt(args == null ? -1 : args.length);
+            if(args != null)
+                for(Object arg : args)
+                    writeString(out, String.valueOf(arg));
+
+            out.writeLong(res.getArgumentsNanos());
+
+            // Sample-time units have no samples, their statistics are restored from histogram
+            out.writeInt(res.getSamples() == null ? -1 : res.getSamples().length);
+            if(res.getSamples() != null)
+                for(double sample : res.getSamples())
+                    out.writeDouble(sample);
+
+            out.writeDouble(res.getOverheadNanos());
+            out.writeInt(res.getBatchSize());
+            out.writeInt(res.getOperationsPerInvocation());
+
+            WarmupResult warmup = res.getWarmup();
+            out.writeBoolean(warmup != null);
+            if(warmup != null){
+                out.writeLong(warmup.getNanos());
+                out.writeInt(warmup.getIterations());
+                out.writeBoolean(warmup.isSteadyState());
+            }
+
+            ThroughputResult throughput = res.getThroughput();
+            out.writeBoolean(throughput != null);
+            if(throughput != null){
+                out.writeInt(throughput.getThreads());
+                out.writeLong(throughput.getOperations());
+                out.writeInt(throughput.getRuns());
+                out.writeInt(throughput.getThreadOpsPerSecond().length);
+                for(double threadOps : throughput.getThreadOpsPerSecond())
+                    out.writeDouble(threadOps);
+            }
+
+            AllocationResult allocation = res.getAllocation();
+            out.writeBoolean(allocation != null);
+            if(allocation != null){
+                out.writeLong(allocation.getAllocatedBytes());
+                out.writeLong(allocation.getOperations());
+                out.writeLong(allocation.getGcCount());
+                out.writeLong(allocation.getGcTimeMillis());
+            }
+
+            LatencyHistogram histogram = res.getHistogram();
+            out.writeBoolean(histogram != null);
+            if(histogram != null)
+                histogram.write(out);
+
+            // Stacks are passed as is, profile file is written by the parent once forks are merged
+            ProfileResult profile = res.getProfile();
+            out.writeBoolean(profile != null);
+            if(profile != null){
+                out.writeInt(profile.getMode().ordinal());
+                out.writeInt(profile.getIntervalMillis());
+                out.writeLong(profile.getSamples());
+                out.writeLong(profile.getSamplerNanos());
+                out.writeLong(profile.getWindowNanos());
+                out.writeDouble(profile.getControlMeanNanos());
+
+                Map<String, Long> stacks = profile.getStacks();
+                out.writeInt(stacks == null ? -1 : stacks.size());
+                if(stacks != null)
+                    for(Map.Entry<String, Long> stack : stacks.entrySet()){
+                        writeString(out, stack.getKey());
+                        out.writeLong(stack.getValue());
+                    }
+
+                writeString(out, profile.getFile());
+            }
+
+            // Baseline of comparison is passed by signature and linked to its merged result by the parent
+            ComparisonResult comparison = res.getComparison();
+            out.writeBoolean(comparison != null);
+            if(comparison != null){
+                writeString(out, comparison.getKey());
+                writeString(out, signature(comparison.getBaselineResult().getOriginMethod()));
+            }
+
+            FootprintResult footprint = res.getFootprint();
+            out.writeBoolean(footprint != null);
+            if(footprint != null){
+                out.writeLong(footprint.getShallowBytes());
+                out.writeLong(footprint.getRetainedBytes());
+                out.writeLong(footprint.getRetainedObjects());
+            }
+        }
+
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    private static void decode(String encoded, Map<String, Method> methodsBySignature, BiConsumer<String, BenchmarkUnitResult> results) throws IOException {
+        try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(encoded)))){
+            String signature = readString(in);
+            int ordinal = in.readInt();
+
+            Method method = methodsBySignature.get(signature);
+            if(method == null)
+                throw new IOException("Forked JVM reported unknown unit " + signature);
+
+            BenchmarkUnitResult res = new BenchmarkUnitResult();
+            res.setOriginMethod(method);
+            res.setUnitMethodReturnType(method.getReturnType());
+            res.setName(readString(in));
+            res.setStatus(BenchmarkUnitResult.Status.values()[in.readInt()]);
+            res.setFailure(readString(in));
+            res.setResult(readString(in));
+
+            int paramsCount = in.readInt();
+            if(paramsCount >= 0){
+                Map<String, String> params = new LinkedHashMap<>();
+                for(int i = 0; i < paramsCount; i++)
+                    params.put(readString(in), readString(in));
+
+                res.setParams(params);
+            }
+
+            int argsCount = in.readInt();
+            if(argsCount >= 0){
+                Object[] args = new Object[argsCount];
+                for(int i = 0; i < argsCount; i++)
+                    args[i] = readString(in);
+
+                res.setInjected(Arguments.of(args));
+            }
+
+            res.setArgumentsNanos(in.readLong());
+
+            int samplesCount = in.readInt();
+            if(samplesCount >= 0){
+                double[] samples = new double[samplesCount];
+                for(int i = 0; i < samplesCount; i++)
+                    samples[i] = in.readDouble();
+                res.setSamples(samples);
+            }
+
+            res.setOverheadNanos(in.readDouble());
+            res.setBatchSize(in.readInt());
+            res.setOperationsPerInvocation(in.readInt());
+
+            if(in.readBoolean()){
+                WarmupResult warmup = new WarmupResult();
+                warmup.setNanos(in.readLong());
+                warmup.setIterations(in.readInt());
+                warmup.setSteadyState(in.readBoolean());
+                res.setWarmup(warmup);
+            }
+
+            if(in.readBoolean()){
+                ThroughputResult throughput = new ThroughputResult();
+                throughput.setThreads(in.readInt());
+                throughput.setOperations(in.readLong());
+                throughput.setRuns(in.readInt());
+
+                double[] threadOpsPerSecond = new double[in.readInt()];
+                for(int i = 0; i < threadOpsPerSecond.length; i++)
+                    threadOpsPerSecond[i] = in.readDouble();
+                throughput.setThreadOpsPerSecond(threadOpsPerSecond);
+
+                res.setThroughput(throughput);
+            }
+
+            if(in.readBoolean()){
+                AllocationResult allocation = new AllocationResult();
+                allocation.setAllocatedBytes(in.readLong());
+                allocation.setOperations(in.readLong());
+                allocation.setGcCount(in.readLong());
+                allocation.setGcTimeMillis(in.readLong());
+                res.setAllocation(allocation);
+            }
+
+            if(in.readBoolean()){
+                if(samplesCount >= 0)
+                    res.setHistogram(LatencyHistogram.read(in));
+                else
+                    res.useHistogram(LatencyHistogram.read(in));
+            }
+
+            if(in.readBoolean()){
+                ProfileResult profile = new ProfileResult();
+                profile.setMode(Profile.Mode.values()[in.readInt()]);
+                profile.setIntervalMillis(in.readInt());
+                profile.setSamples(in.readLong());
+                profile.setSamplerNanos(in.readLong());
+                profile.setWindowNanos(in.readLong());
+                profile.setControlMeanNanos(in.readDouble());
+
+                int stacksCount = in.readInt();
+                profile.setStacks(stacksCount < 0 ? null : new HashMap<>());
+                for(int i = 0; i < stacksCount; i++)
+                    profile.getStacks().put(readString(in), in.readLong());
+
+                profile.setFile(readString(in));
+                res.setProfile(profile);
+            }
+
+            if(in.readBoolean()){
+                ComparisonResult comparison = new ComparisonResult();
+                comparison.setKey(readString(in));
+
+                BenchmarkUnitResult baseline = new BenchmarkUnitResult();
+                baseline.setOriginMethod(methodsBySignature.get(readString(in)));
+                comparison.setBaselineResult(baseline);
+
+                res.setComparison(comparison);
+            }
+
+            if(in.readBoolean()){
+                FootprintResult footprint = new FootprintResult();
+                footprint.setShallowBytes(in.readLong());
+                footprint.setRetainedBytes(in.readLong());
+                footprint.setRetainedObjects(in.readLong());
+                res.setFootprint(footprint);
+            }
+
+            // Failed units have neither samples nor histogram, so their time is restored empty
+            if(res.getTime() == null && res.isFailed())
+                res.setNanos(0);
+
+            // Clock settings are not transferred, they are resolved from the same annotations as in the child
+            if(res.getTime() != null)
+                res.getTime().configure(UnitClock.resolve(method));
+
+            results.accept(signature + "#" + ordinal, res);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if(value == null){
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if(length < 0)
+            return null;
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
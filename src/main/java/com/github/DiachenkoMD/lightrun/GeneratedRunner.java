@@ -0,0 +1,39 @@
+package com.github.DiachenkoMD.lightrun;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Direct-call runner of a {@link com.github.DiachenkoMD.lightrun.annotations.Benchmark} class, generated at compile time
+ * by lightrun-processor as {@code <benchmark class binary name>_LightrunRunner} in the same package.
+ * <br/>
+ * When runner is present, units are neither discovered by scanning class methods nor linked through reflection:
+ * instances are created, data sources are called and arguments are unpacked (typed) by plain generated code.
+ * Units, which generated code can't call (private ones), return null and are handled reflectively as before.
+ */
+public interface GeneratedRunner<T> {
+    String SUFFIX = "_LightrunRunner";
+
+    T newInstance();
+
+    /**
+     * Unit methods in declaration order, looked up once by exact signatures.
+     */
+    List<Method> units();
+
+    /**
+     * Names of unit parameters filled by data source arguments, in order (Blackholes are excluded).
+     */
+    String[] argumentNames(int unit);
+
+    /**
+     * Arguments stream of unit's data source or null, if unit has no data source or it can't be called directly.
+     */
+    Stream<Arguments> dataSource(int unit, T instance);
+
+    /**
+     * Invoker calling unit directly with arguments unpacked to parameter types or null, if unit can't be called directly.
+     */
+    UnitInvoker invoker(int unit, T instance, Object[] args);
+}
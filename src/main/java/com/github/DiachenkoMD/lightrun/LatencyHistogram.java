@@ -0,0 +1,175 @@
+package com.github.DiachenkoMD.lightrun;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Log-linear bucketed histogram of non-negative latencies (nanoseconds), in the manner of HdrHistogram.
+ * <br/>
+ * Values below {@link #SUB_BUCKET_COUNT} are counted exactly, larger ones fall into buckets of doubling width, each split
+ * into {@link #SUB_BUCKET_COUNT} / 2 linear sub-buckets, so relative error never exceeds 1 / {@link #SUB_BUCKET_COUNT}.
+ * Counts array is allocated once and covers the whole long range: recording neither allocates nor resizes.
+ * <br/>
+ * Histogram is not thread-safe: every thread records into its own instance, instances are merged afterwards.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 8;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int BUCKETS_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * HALF_COUNT;
+
+    private final long[] counts = new long[BUCKETS_COUNT];
+    private long totalCount;
+    private long min = Long.MAX_VALUE;
+    private long max = 0;
+    // Exact moments, so mean and deviation don't suffer from bucketing
+    private double sum;
+    private double sumOfSquares;
+
+    public void record(long value){
+        if(value < 0)
+            value = 0;
+
+        ++counts[indexOf(value)];
+        ++totalCount;
+
+        if(value < min) min = value;
+        if(value > max) max = value;
+
+        sum += value;
+        sumOfSquares += (double) value * value;
+    }
+
+    static int indexOf(long value){
+        if(value < SUB_BUCKET_COUNT)
+            return (int) value;
+
+        // Exponent of bucket width: value >>> exponent always lands in [HALF_COUNT, SUB_BUCKET_COUNT)
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> exponent);
+
+        return SUB_BUCKET_COUNT + (exponent - 1) * HALF_COUNT + (subBucket - HALF_COUNT);
+    }
+
+    /**
+     * Middle of the value range counted by bucket with the given index.
+     */
+    static long valueAt(int index){
+        if(index < SUB_BUCKET_COUNT)
+            return index;
+
+        int offset = index - SUB_BUCKET_COUNT;
+        int exponent = offset / HALF_COUNT + 1;
+        long lowest = (long) (HALF_COUNT + offset % HALF_COUNT) << exponent;
+
+        return lowest + ((1L << exponent) >> 1);
+    }
+
+    public void merge(LatencyHistogram other){
+        for(int i = 0; i < BUCKETS_COUNT; i++)
+            counts[i] += other.counts[i];
+
+        totalCount += other.totalCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+    }
+
+    public long getCount(){
+        return totalCount;
+    }
+
+    public long getMin(){
+        return totalCount > 0 ? min : 0;
+    }
+
+    public long getMax(){
+        return max;
+    }
+
+    public double getMean(){
+        return totalCount > 0 ? sum / totalCount : 0;
+    }
+
+    public double getStdDev(){
+        if(totalCount < 2)
+            return 0;
+
+        double mean = getMean();
+        return Math.sqrt(Math.max(0, (sumOfSquares - totalCount * mean * mean) / (totalCount - 1)));
+    }
+
+    /**
+     * @param quantile value in range [0, 1]
+     */
+    public long getValueAtPercentile(double quantile){
+        if(totalCount == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * totalCount));
+        long seen = 0;
+
+        for(int i = 0; i < BUCKETS_COUNT; i++){
+            seen += counts[i];
+
+            // Bucket middle may lie outside of the actually recorded range
+            if(seen >= rank)
+                return Math.max(getMin(), Math.min(max, valueAt(i)));
+        }
+
+        return max;
+    }
+
+    /**
+     * Writes non-empty buckets only, so mostly empty histogram stays small.
+     */
+    void write(DataOutput out) throws IOException {
+        int nonEmpty = 0;
+        for(long count : counts)
+            if(count != 0)
+                ++nonEmpty;
+
+        out.writeInt(nonEmpty);
+        for(int i = 0; i < BUCKETS_COUNT; i++){
+            if(counts[i] != 0){
+                out.writeInt(i);
+                out.writeLong(counts[i]);
+            }
+        }
+
+        out.writeLong(totalCount);
+        out.writeLong(min);
+        out.writeLong(max);
+        out.writeDouble(sum);
+        out.writeDouble(sumOfSquares);
+    }
+
+    static LatencyHistogram read(DataInput in) throws IOException {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        int nonEmpty = in.readInt();
+        for(int i = 0; i < nonEmpty; i++){
+            int index = in.readInt();
+            histogram.counts[index] = in.readLong();
+        }
+
+        histogram.totalCount = in.readLong();
+        histogram.min = in.readLong();
+        histogram.max = in.readLong();
+        histogram.sum = in.readDouble();
+        histogram.sumOfSquares = in.readDouble();
+
+        return histogram;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram(count=" + totalCount +
+                ", p50=" + getValueAtPercentile(0.5) +
+                ", p99=" + getValueAtPercentile(0.99) +
+                ", p99.99=" + getValueAtPercentile(0.9999) +
+                ", max=" + max + ")";
+    }
+}
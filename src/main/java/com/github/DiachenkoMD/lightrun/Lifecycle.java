@@ -0,0 +1,78 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Level;
+import com.github.DiachenkoMD.lightrun.annotations.Setup;
+import com.github.DiachenkoMD.lightrun.annotations.TearDown;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link Setup} and {@link TearDown} hooks of benchmark class grouped by {@link Level}.
+ */
+class Lifecycle {
+    private static final Map<Class<?>, Lifecycle> cache = new ConcurrentHashMap<>();
+
+    private final Map<Level, List<Method>> setups = new EnumMap<>(Level.class);
+    private final Map<Level, List<Method>> tearDowns = new EnumMap<>(Level.class);
+
+    static Lifecycle of(Class<?> benchmarkClazz){
+        return cache.computeIfAbsent(benchmarkClazz, Lifecycle::scan);
+    }
+
+    private static Lifecycle scan(Class<?> benchmarkClazz){
+        Lifecycle lifecycle = new Lifecycle();
+
+        // Ordering by name, so hooks of the same level run in predictable order
+        Method[] methods = benchmarkClazz.getDeclaredMethods();
+        Arrays.sort(methods, Comparator.comparing(Method::getName));
+
+        for(Method method : methods){
+            Setup setupAnno = method.getAnnotation(Setup.class);
+            TearDown tearDownAnno = method.getAnnotation(TearDown.class);
+
+            if(setupAnno == null && tearDownAnno == null)
+                continue;
+
+            if(method.getParameterCount() != 0)
+                throw new IllegalArgumentException("Lifecycle method " + method.getName() + " should not accept any arguments!");
+
+            method.setAccessible(true);
+
+            if(setupAnno != null)
+                lifecycle.setups.computeIfAbsent(setupAnno.value(), level -> new ArrayList<>()).add(method);
+
+            if(tearDownAnno != null)
+                lifecycle.tearDowns.computeIfAbsent(tearDownAnno.value(), level -> new ArrayList<>()).add(method);
+        }
+
+        return lifecycle;
+    }
+
+    boolean has(Level level){
+        return setups.containsKey(level) || tearDowns.containsKey(level);
+    }
+
+    void setup(Level level, Object instance) throws Throwable {
+        invokeAll(setups.get(level), instance);
+    }
+
+    void tearDown(Level level, Object instance) throws Throwable {
+        invokeAll(tearDowns.get(level), instance);
+    }
+
+    private static void invokeAll(List<Method> methods, Object instance) throws Throwable {
+        if(methods == null)
+            return;
+
+        for(Method method : methods){
+            try {
+                method.invoke(instance);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,20 +1,69 @@
 package com.github.DiachenkoMD.lightrun;
 
+import com.github.DiachenkoMD.lightrun.annotations.Async;
 import com.github.DiachenkoMD.lightrun.annotations.Benchmark;
+import com.github.DiachenkoMD.lightrun.annotations.Compare;
 import com.github.DiachenkoMD.lightrun.annotations.DataSource;
+import com.github.DiachenkoMD.lightrun.annotations.Fork;
+import com.github.DiachenkoMD.lightrun.annotations.Profile;
+import com.github.DiachenkoMD.lightrun.annotations.SampleTime;
+import com.github.DiachenkoMD.lightrun.annotations.Throughput;
+import com.github.DiachenkoMD.lightrun.annotations.Timeout;
 import com.github.DiachenkoMD.lightrun.annotations.Unit;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
 import java.util.stream.Stream;
 
 public class Lightrun {
+    // Unprofiled batches measured after profiled window to estimate profiler impact
+    private static final int CONTROL_ITERATIONS = 10;
+
+    /**
+     * Registers listener of progress events of all following runs in this JVM (see {@link BenchmarkListener}).
+     */
+    public static void addListener(@NotNull BenchmarkListener listener){
+        LightrunEvents.addListener(listener);
+    }
+
+    public static void removeListener(@NotNull BenchmarkListener listener){
+        LightrunEvents.removeListener(listener);
+    }
+
     public static <T> BenchmarkResults<T> measure(@NotNull Class<T> benchmarkClazz) throws NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return run(benchmarkClazz, method -> true, null, StreamSettings.retainAll());
+    }
+
+    /**
+     * Measures benchmark passing every unit result to the sink as soon as it is produced. Returned container holds
+     * UID, columns and origin, but no results. Results are stripped of return values, arguments and samples.
+     */
+    public static <T> BenchmarkResults<T> stream(@NotNull Class<T> benchmarkClazz, @NotNull ResultSink sink) throws NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return run(benchmarkClazz, method -> true, sink, new StreamSettings());
+    }
+
+    public static <T> BenchmarkResults<T> stream(@NotNull Class<T> benchmarkClazz, @NotNull ResultSink sink, @NotNull StreamSettings streamSettings) throws NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return run(benchmarkClazz, method -> true, sink, streamSettings);
+    }
+
+    /**
+     * @param sink receiver of results, if null - results are collected to the returned container
+     */
+    static <T> BenchmarkResults<T> run(@NotNull Class<T> benchmarkClazz, @NotNull Predicate<Method> unitFilter, ResultSink sink, @NotNull StreamSettings streamSettings) throws NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return run(benchmarkClazz, unitFilter, sink, streamSettings, null);
+    }
+
+    /**
+     * @param launcher command prefix of child JVMs (may be empty), if not null - benchmark is always measured in a child JVM
+     */
+    static <T> BenchmarkResults<T> run(@NotNull Class<T> benchmarkClazz, @NotNull Predicate<Method> unitFilter, ResultSink sink, @NotNull StreamSettings streamSettings, List<String> launcher) throws NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
         // Getting benchmark annotation to acquire detailed info
         Benchmark benchmarkAnno = benchmarkClazz.getAnnotation(Benchmark.class);
 
@@ -29,146 +78,469 @@ public class Lightrun {
 
         if(benchmarkAnno.colName().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.NAME, benchmarkAnno.colName().value());
         if(benchmarkAnno.colTicks().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.TICKS, benchmarkAnno.colTicks().value());
+        if(benchmarkAnno.colTime().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.TIME, benchmarkAnno.colTime().value());
         if(benchmarkAnno.colOutput().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.OUTPUT, benchmarkAnno.colOutput().value());
+        if(benchmarkAnno.colParams().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.PARAMS, benchmarkAnno.colParams().value());
+        if(benchmarkAnno.colMean().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.MEAN, benchmarkAnno.colMean().value());
+        if(benchmarkAnno.colStdDev().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.STD_DEV, benchmarkAnno.colStdDev().value());
+        if(benchmarkAnno.colMin().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.MIN, benchmarkAnno.colMin().value());
+        if(benchmarkAnno.colMax().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.MAX, benchmarkAnno.colMax().value());
+        if(benchmarkAnno.colP50().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.P50, benchmarkAnno.colP50().value());
+        if(benchmarkAnno.colP90().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.P90, benchmarkAnno.colP90().value());
+        if(benchmarkAnno.colP99().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.P99, benchmarkAnno.colP99().value());
+        if(benchmarkAnno.colP999().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.P999, benchmarkAnno.colP999().value());
+        if(benchmarkAnno.colP9999().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.P9999, benchmarkAnno.colP9999().value());
+        if(benchmarkAnno.colError().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.ERROR, benchmarkAnno.colError().value());
+        if(benchmarkAnno.colSamples().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.SAMPLES, benchmarkAnno.colSamples().value());
+        if(benchmarkAnno.colOverhead().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.OVERHEAD, benchmarkAnno.colOverhead().value());
+        if(benchmarkAnno.colBatchSize().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.BATCH_SIZE, benchmarkAnno.colBatchSize().value());
+        if(benchmarkAnno.colArgumentsTime().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.ARGUMENTS_TIME, benchmarkAnno.colArgumentsTime().value());
+        if(benchmarkAnno.colWarmup().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.WARMUP_TIME, benchmarkAnno.colWarmup().value());
+        if(benchmarkAnno.colSteadyState().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.STEADY_STATE, benchmarkAnno.colSteadyState().value());
+        if(benchmarkAnno.colOpsPerSecond().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.OPS_PER_SEC, benchmarkAnno.colOpsPerSecond().value());
+        if(benchmarkAnno.colOpsPerSecondPerThread().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.OPS_PER_SEC_PER_THREAD, benchmarkAnno.colOpsPerSecondPerThread().value());
+        if(benchmarkAnno.colAllocBytesPerOp().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.ALLOC_BYTES_PER_OP, benchmarkAnno.colAllocBytesPerOp().value());
+        if(benchmarkAnno.colGcCount().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.GC_COUNT, benchmarkAnno.colGcCount().value());
+        if(benchmarkAnno.colGcTime().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.GC_TIME, benchmarkAnno.colGcTime().value());
+        if(benchmarkAnno.colProfilerOverhead().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.PROFILER_OVERHEAD, benchmarkAnno.colProfilerOverhead().value());
+        if(benchmarkAnno.colNanosPerInput().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.NANOS_PER_INPUT, benchmarkAnno.colNanosPerInput().value());
+        if(benchmarkAnno.colScaling().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.SCALING, benchmarkAnno.colScaling().value());
+        if(benchmarkAnno.colStatus().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.STATUS, benchmarkAnno.colStatus().value());
+        if(benchmarkAnno.colShallowSize().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.SHALLOW_SIZE, benchmarkAnno.colShallowSize().value());
+        if(benchmarkAnno.colRetainedSize().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.RETAINED_SIZE, benchmarkAnno.colRetainedSize().value());
+        if(benchmarkAnno.colRetainedObjects().isActive()) resultsContainer.addColumn(BenchmarkOutputColumn.RETAINED_OBJECTS, benchmarkAnno.colRetainedObjects().value());
+
+        // Deciding where results go: either to the passed sink or to the container itself
+        ResultSink target = sink != null ? sink : resultsContainer::addResult;
+        ResultSink emit = res -> {
+            // Child JVMs pass stacks to the parent, which writes profiles of already merged forks
+            if(res.getProfile() != null && !ForkedRunner.isForkedChild())
+                writeProfile(benchmarkAnno.value(), res);
+
+            target.accept(streamSettings.apply(res));
+            LightrunEvents.unitComplete(res);
+        };
+
+        LightrunMonitor.register();
+        target.onBenchmarkStart(resultsContainer);
+
+        // Generated runner (if class was compiled with lightrun-processor) already knows units, so class is not scanned
+        GeneratedRunner<T> runner = BenchmarkState.runner(benchmarkClazz);
 
         // Getting list of methods, which contains
-        List<Method> unitMethods = Arrays.stream(
+        List<Method> unitMethods = (runner != null ? runner.units().stream() : Arrays.stream(
                 benchmarkClazz.getDeclaredMethods()
         )
         .parallel()
         .filter(
                 method -> method.getAnnotation(Unit.class) != null // benchmarking only methods marked with "unit"
-        ).toList();
-
-        // Warming up class and methods
-        warmupBenchmark(benchmarkClazz, unitMethods);
-
-        // Issuing real benchmarking
-        T benchmarkClass = (T) benchmarkClazz.getConstructor().newInstance();
-
-        resultsContainer.setOrigin(benchmarkClass);
-
-        unitMethods.forEach(
-            method -> {
-                method.setAccessible(true);
-
-                // Getting DataSource to further decide, should we get special arguments for this method or not.
-                DataSource dataSourceAnno = method.getAnnotation(DataSource.class);
-
-                if(dataSourceAnno == null){ // simply benchmarking method without data source
-                    measureMethod(method, benchmarkClass)
-                            .ifPresent(resultsContainer::addResult);
-                }else{
-                    try {
-                        // Getting source of arguments to inject
-                        Method dataSourceMethod = benchmarkClazz.getDeclaredMethod(dataSourceAnno.value());
-                        dataSourceMethod.setAccessible(true);
+        ))
+        .filter(unitFilter)
+        .toList();
+
+        // Delegating measurement to child JVMs, if benchmark asks for isolation or suite pins it (and we are not a child JVM already)
+        Fork forkAnno = benchmarkClazz.getAnnotation(Fork.class);
+
+        if((forkAnno != null || launcher != null) && !ForkedRunner.isForkedChild()){
+            // Parent JVM only needs origin instance, parameters and lifecycle are handled by children
+            resultsContainer.setOrigin(runner != null ? runner.newInstance() : benchmarkClazz.getConstructor().newInstance());
+            // Every child JVM (fork) measures its units on every parameters combination, reporting their starts as it goes
+            // (single shot units take their only sample in child JVMs of their own, one per fork)
+            List<Method> coldUnits = unitMethods.stream().filter(SingleShotRunner::isSingleShot).toList();
+            List<Method> warmUnits = unitMethods.stream().filter(method -> !coldUnits.contains(method)).toList();
+            List<String> childLauncher = launcher != null ? launcher : List.of();
+
+            int forks = forkAnno != null ? Math.max(1, forkAnno.count()) : 1;
+            int childJvms = coldUnits.stream().mapToInt(SingleShotRunner::childJvms).sum();
+            LightrunEvents.benchmarkStart(benchmarkAnno.value(), (warmUnits.size() * forks + childJvms) * BenchmarkState.parameterSpace(benchmarkClazz).size());
+
+            ForkedRunner.run(benchmarkClazz, warmUnits, forkAnno, childLauncher, streamSettings, emit);
+
+            for(Method method : coldUnits)
+                ForkedRunner.run(benchmarkClazz, List.of(method), Fork.Isolation.UNIT, SingleShotRunner.childJvms(method), forkAnno != null ? forkAnno.jvmArgs() : new String[0], childLauncher, streamSettings, emit);
+
+            LightrunEvents.benchmarkComplete(benchmarkAnno.value());
+            target.onBenchmarkComplete(resultsContainer);
+            return resultsContainer;
+        }
 
-                        Stream<Arguments> dataSourceValue = (Stream<Arguments>) dataSourceMethod.invoke(benchmarkClass);
+        // Units, which may need a hard kill on timeout, and cold (single shot) ones get their own child JVMs (unless we are a child JVM already)
+        List<Method> forkedUnits = ForkedRunner.isForkedChild() ? List.of() : unitMethods.stream()
+                .filter(method -> UnitWatchdog.isForked(method) || SingleShotRunner.isSingleShot(method))
+                .toList();
+        List<Method> localUnits = unitMethods.stream().filter(method -> !forkedUnits.contains(method)).toList();
+
+        // Units compared with each other are measured together, the rest - one by one
+        List<List<Method>> measurementGroups = ComparisonRunner.groups(localUnits);
+
+        // Every combination of @Param values is measured on its own instance, prepared outside of timed region
+        List<Map<String, String>> parameterSpace = BenchmarkState.parameterSpace(benchmarkClazz);
+        LightrunEvents.benchmarkStart(benchmarkAnno.value(), (localUnits.size() + forkedUnits.stream().mapToInt(SingleShotRunner::childJvms).sum()) * parameterSpace.size());
+
+        for(Map<String, String> params : parameterSpace){
+            BenchmarkState<T> state = new BenchmarkState<>(benchmarkClazz, params);
+            T benchmarkClass;
+
+            try {
+                benchmarkClass = state.newInstance();
+            } catch (Throwable e) {
+                System.out.println("Unable to prepare " + benchmarkClazz.getSimpleName() + " with params " + params + "! Skipped...");
+                e.printStackTrace();
+                continue;
+            }
 
-                        // Looping through stream of arguments and invoking current method with them (index needed to customize unit name)
-                        AtomicInteger atomicIndex = new AtomicInteger(0);
-                        dataSourceValue.forEach(
-                                x -> {
+            if(resultsContainer.getOrigin() == null)
+                resultsContainer.setOrigin(benchmarkClass);
+
+            // Naming unit after parameters combination
+            ResultSink paramsEmit = res -> {
+                res.setParams(params);
+                res.setName(state.unitName(res.getName(), parameterSpace.size() > 1));
+
+                emit.accept(res);
+            };
+
+            measurementGroups.forEach(
+                group -> {
+                    Method method = group.get(0);
+                    LightrunEvents.unitStart(group, params);
+                    int runnerIndex = runner != null ? runner.units().indexOf(method) : -1;
+
+                    // Getting DataSource to further decide, should we get special arguments for this method or not (units of a group share it).
+                    DataSource dataSourceAnno = method.getAnnotation(DataSource.class);
+
+                    if(dataSourceAnno == null){ // simply benchmarking method without data source
+                        measureGroup(group, state, benchmarkClass).forEach(paramsEmit::accept);
+                    }else{
+                        try {
+                            // Data source is evaluated on the prepared instance, so it can depend on parameters
+                            long sourceStart = System.nanoTime();
+                            Stream<Arguments> dataSourceValue = dataSource(runner, runnerIndex, benchmarkClazz, dataSourceAnno, benchmarkClass);
+                            long sourceNanos = System.nanoTime() - sourceStart;
+
+                            // Stream is consumed one arguments set at a time (prefetched ahead, if asked) and closed afterwards (releasing files and etc.)
+                            try(dataSourceValue; ArgumentsPipeline pipeline = new ArgumentsPipeline(dataSourceValue, dataSourceAnno, sourceNanos)){
+                                // Names of parameters filled with data source arguments, every unit of a group names them on its own
+                                List<String[]> argumentNames = group.stream()
+                                        .map(unit -> argumentNames(runner, unit))
+                                        .toList();
+
+                                // Looping through arguments and invoking current method with them (index needed to customize unit name)
+                                int index = 0;
+                                Arguments x;
+
+                                while((x = pipeline.next()) != null){
                                     // Getting arguments to inject and measuring method speed
                                     Object[] injectableArgs = x.getArgs();
-                                    BenchmarkUnitResult res = measureMethod(method, benchmarkClass, injectableArgs).orElse(null);
+                                    List<BenchmarkUnitResult> results;
+
+                                    pipeline.beforeMeasurement();
+                                    try {
+                                        results = measureGroup(group, state, benchmarkClass, injectableArgs);
+                                    } finally {
+                                        pipeline.afterMeasurement();
+                                    }
+
+                                    for(int unitIndex = 0; unitIndex < results.size(); unitIndex++){
+                                        BenchmarkUnitResult res = results.get(unitIndex);
+                                        String[] names = argumentNames.get(unitIndex);
 
-                                    if(res != null){
                                         // Making replacements (needed for customizing method name)
                                         String unitName = res.getName()
-                                                .replaceAll("\\$i", String.valueOf(atomicIndex.getAndIncrement()));
-
-                                        Parameter[] parameters = method.getParameters();
+                                                .replaceAll("\\$i", String.valueOf(index));
 
-                                        int paramIndex = 0;
-                                        for(Parameter param : parameters){
-                                            unitName = unitName.replaceAll("\\$"+param.getName(), injectableArgs[paramIndex].toString());
-                                            ++paramIndex;
-                                        }
+                                        for(int paramIndex = 0; paramIndex < names.length; paramIndex++)
+                                            unitName = unitName.replaceAll("\\$"+names[paramIndex], Matcher.quoteReplacement(injectableArgs[paramIndex].toString()));
 
                                         // Updating method name and adding unit measuring result to container
                                         res.setName(unitName);
                                         res.setInjected(x);
+                                        res.setArgumentsNanos(pipeline.lastNanos());
 
-                                        resultsContainer.addResult(res);
+                                        paramsEmit.accept(res);
                                     }
+
+                                    ++index;
                                 }
-                        );
-                    } catch (NoSuchMethodException e) {
-                        System.out.println("No data source with name " + dataSourceAnno.value() + " was not found! Skipped...");
-                    } catch (Exception e) {
-                        e.printStackTrace();
+                            }
+                        } catch (NoSuchMethodException e) {
+                            System.out.println("No data source with name " + dataSourceAnno.value() + " was not found! Skipped...");
+                        } catch (Exception e) {
+                            // Failed data source fails the rest of unit arguments sets
+                            e.printStackTrace();
+                            group.forEach(unit -> paramsEmit.accept(UnitWatchdog.failed(unit, e)));
+                        }
                     }
                 }
+            );
+
+            try {
+                state.release(benchmarkClass);
+            } catch (Throwable e) {
+                e.printStackTrace();
             }
-        );
+        }
 
+        // Starts of forked units are reported by their child JVMs
+        for(Method method : forkedUnits){
+            ForkedRunner.run(benchmarkClazz, List.of(method), Fork.Isolation.UNIT, SingleShotRunner.childJvms(method), new String[0], List.of(), streamSettings, emit);
+        }
+
+        LightrunEvents.benchmarkComplete(benchmarkAnno.value());
+        target.onBenchmarkComplete(resultsContainer);
 
         return resultsContainer;
     }
 
 
-    private static void warmupBenchmark(Class<?> benchmarkClazz, List<Method> methods){
+    /**
+     * Measures unit (under supervision, if it's limited with @Timeout). Unit failed to be measured is reported by result with failure status.
+     */
+    private static BenchmarkUnitResult measureMethod(Method method, BenchmarkState<?> state, Object benchmarkClass, Object... methodArgs){
+        Timeout timeoutAnno = UnitWatchdog.resolve(method);
+
         try {
-            Object benchmarkClass = benchmarkClazz.getConstructor().newInstance();
+            BenchmarkUnitResult res = timeoutAnno != null
+                    ? UnitWatchdog.supervise(method, timeoutAnno, () -> measureUnit(method, state, benchmarkClass, methodArgs))
+                    : measureUnit(method, state, benchmarkClass, methodArgs);
 
-            for(Method method : methods) {
-                method.setAccessible(true);
+            // Footprint is taken on the state unit was left in, out of timed regions and timeout
+            UnitFootprint.measure(res, method, benchmarkClass, methodArgs);
 
-                // Getting DataSource to further decide, should we get special arguments for this method or not.
-                DataSource dataSourceAnno = method.getAnnotation(DataSource.class);
+            return res;
+        } catch (Throwable e) {
+            BenchmarkUnitResult failed = UnitWatchdog.failed(method, e);
 
-                if (dataSourceAnno == null) { // simply warming up method without data source
-                    method.invoke(benchmarkClass);
-                } else {
-                    // Getting source of arguments to inject
-                    Method dataSourceMethod = benchmarkClazz.getDeclaredMethod(dataSourceAnno.value());
-                    dataSourceMethod.setAccessible(true);
+            if(failed.getStatus() == BenchmarkUnitResult.Status.FAILED)
+                e.printStackTrace();
+            else
+                System.out.println("Unit " + failed.getName() + " failed with " + failed.getStatus() + "! " + failed.getFailure());
 
-                    Stream<Arguments> dataSourceValue = (Stream<Arguments>) dataSourceMethod.invoke(benchmarkClass);
+            return failed;
+        }
+    }
 
-                    // Looping through stream of arguments and invoking current method with them
-                    for (Arguments injectableArgs : dataSourceValue.toList()) {
-                        method.invoke(benchmarkClass, injectableArgs.getArgs());
-                    }
-                }
-            }
-        }catch (Exception e){
-            System.out.println(String.format("Error while warming up %s! Exception: %s", benchmarkClazz.getSimpleName(), e.getMessage()));
-            e.printStackTrace();
+    /**
+     * Measures group of units on the same arguments: a single unit by itself, units compared with each other - interleaved.
+     * Failed group is reported by failed result of every unit.
+     */
+    private static List<BenchmarkUnitResult> measureGroup(List<Method> group, BenchmarkState<?> state, Object benchmarkClass, Object... methodArgs){
+        // Child JVM stops on a runaway unit and (being its replacement) skips what the halted one has measured
+        ForkedRunner.haltOnRunaway();
+
+        if(ForkedRunner.isMeasuredBefore(group))
+            return List.of();
+
+        ForkedRunner.forwardMeasurement(group);
+
+        if(group.size() == 1)
+            return List.of(measureMethod(group.get(0), state, benchmarkClass, methodArgs));
+
+        // Group is supervised with the baseline timeout
+        Timeout timeoutAnno = UnitWatchdog.resolve(group.get(0));
+
+        List<BenchmarkUnitResult> results = new ArrayList<>();
+        UnitWatchdog.Measurement measurement = () -> {
+            results.addAll(ComparisonRunner.measure(group, state, benchmarkClass, methodArgs));
+
+            for(int i = 0; i < results.size(); i++)
+                describeUnit(results.get(i), group.get(i));
+
+            return results.get(0);
+        };
+
+        try {
+            if(timeoutAnno != null)
+                UnitWatchdog.supervise(group.get(0), timeoutAnno, measurement);
+            else
+                measurement.run();
+
+            for(int i = 0; i < results.size(); i++)
+                UnitFootprint.measure(results.get(i), group.get(i), benchmarkClass, methodArgs);
+
+            return results;
+        } catch (Throwable e) {
+            List<BenchmarkUnitResult> failed = group.stream().map(unit -> UnitWatchdog.failed(unit, e)).toList();
+
+            if(failed.get(0).getStatus() == BenchmarkUnitResult.Status.FAILED)
+                e.printStackTrace();
+            else
+                System.out.println("Units compared as " + group.get(0).getAnnotation(Compare.class).value() + " failed with " + failed.get(0).getStatus() + "! " + failed.get(0).getFailure());
+
+            return failed;
         }
     }
-    private static Optional<BenchmarkUnitResult> measureMethod(Method method, Object benchmarkClass, Object... methodArgs){
+
+    private static BenchmarkUnitResult measureUnit(Method method, BenchmarkState<?> state, Object benchmarkClass, Object... methodArgs) throws Throwable {
         BenchmarkUnitResult unitRes = new BenchmarkUnitResult();
+        MeasurementSettings settings = MeasurementSettings.resolve(method);
+        WarmupSettings warmupSettings = WarmupSettings.resolve(method);
+        int ops = settings.getOperationsPerInvocation();
 
-        try {
-            // Deciding what method to measure
-            if(methodArgs.length > 0){
-                long startTime = System.nanoTime();
-                unitRes.setResult(method.invoke(benchmarkClass, methodArgs));
-                long endTime = System.nanoTime() - startTime;
-                unitRes.setNanos(endTime);
-            }else{
-                long startTime = System.nanoTime();
-                unitRes.setResult(method.invoke(benchmarkClass));
-                long endTime = System.nanoTime() - startTime;
-                unitRes.setNanos(endTime);
+        unitRes.setOperationsPerInvocation(ops);
+
+        // Cold first invocations take precedence over any other mode, as they forbid warmup
+        if(SingleShotRunner.isSingleShot(method)){
+            SingleShotRunner.measure(unitRes, method, state, benchmarkClass, methodArgs, settings);
+            return describeUnit(unitRes, method);
+        }
+
+        // Asynchronous units are timed until completion of what they return, not until they return
+        Async asyncAnno = AsyncRunner.resolve(method);
+
+        if(asyncAnno != null){
+            AsyncRunner.measure(unitRes, method, state, benchmarkClass, methodArgs, asyncAnno, settings, warmupSettings);
+            return describeUnit(unitRes, method);
+        }
+
+        // Concurrent units are measured by throughput runner, the rest - by sampling them on the current thread
+        Throughput throughputAnno = ThroughputRunner.resolve(method);
+
+        if(throughputAnno != null){
+            ThroughputRunner.measure(unitRes, method, state, benchmarkClass, methodArgs, throughputAnno, settings, warmupSettings);
+            return describeUnit(unitRes, method);
+        }
+
+        // Sample-time units are recorded invocation by invocation into a histogram
+        SampleTime sampleTimeAnno = SampleTimeRunner.resolve(method);
+
+        if(sampleTimeAnno != null){
+            SampleTimeRunner.measure(unitRes, method, state, benchmarkClass, methodArgs, sampleTimeAnno, settings, warmupSettings);
+            return describeUnit(unitRes, method);
+        }
+
+        double[] samples = new double[Math.max(16, settings.getIterations() * settings.getForks())];
+        int samplesCount = 0;
+        int batchSize = settings.getBatchSize();
+        double overhead = 0;
+
+        UnitInvoker invoker = null;
+        WarmupResult warmup = null;
+        AllocationResult allocation = new AllocationResult();
+        Profile profileAnno = UnitProfiler.resolve(method);
+        ProfileResult profile = null;
+
+        for(int fork = 0; fork < settings.getForks(); fork++){
+            // First fork is measured on the passed instance, the following ones - on fresh (prepared) instances
+            Object forkInstance = fork == 0 ? benchmarkClass : state.newInstance();
+            invoker = state.invoker(method, forkInstance, methodArgs);
+
+            if(fork == 0){
+                // Batch is calibrated once (on the first fork invoker) and the following forks reuse it
+                batchSize = settings.batchSizeFor(invoker, UnitClock.mode(method));
+
+                // Calibrating harness cost before any timed region, so it can be subtracted from every sample
+                overhead = UnitInvoker.overheadNanos(state.timedBatchSize(batchSize), UnitClock.mode(method));
+            }
+
+            // Warming up exactly the invoker (and instance) which is going to be measured
+            WarmupResult forkWarmup = WarmupResult.warmup(invoker, warmupSettings, batchSize);
+            LightrunEvents.warmupComplete(method, forkWarmup);
+            if(warmup == null)
+                warmup = forkWarmup;
+            else
+                warmup.merge(forkWarmup);
+
+            long gcCountBefore = AllocationProfiler.gcCount();
+            long gcTimeBefore = AllocationProfiler.gcTimeMillis();
+
+            UnitProfiler profiler = UnitProfiler.start(profileAnno, Thread.currentThread());
+
+            long forkStart = System.nanoTime();
+            int iteration = 0;
+
+            while(settings.hasNextIteration(iteration, System.nanoTime() - forkStart)){
+                // Supervised unit stops between batches once its timeout is over
+                UnitWatchdog.checkInterrupted();
+
+                long endTime = invoker.measure(batchSize);
+                allocation.addAllocated(invoker.lastAllocatedBytes(), (long) batchSize * ops);
+
+                if(samplesCount == samples.length)
+                    samples = Arrays.copyOf(samples, samplesCount * 2);
+
+                // Harness overhead is per invocation, so it's subtracted before normalizing to operations
+                samples[samplesCount] = Math.max(0, (double) endTime / batchSize - overhead) / ops;
+                LightrunEvents.iterationComplete(method, iteration, samples[samplesCount++]);
+                ++iteration;
             }
 
+            allocation.addGc(gcCountBefore, gcTimeBefore);
 
-            // Adding info to current benchmarking unit
-            Unit unitAnno = method.getDeclaredAnnotation(Unit.class);
-            unitRes.setName(unitAnno.value());
-            unitRes.setUnitMethodReturnType(method.getReturnType());
+            if(profiler != null){
+                ProfileResult forkProfile = profiler.stop();
+                forkProfile.setControlMeanNanos(UnitProfiler.measureControl(invoker, batchSize, overhead, Math.min(iteration, CONTROL_ITERATIONS)) / ops);
 
-            unitRes.setOriginMethod(method);
+                if(profile == null)
+                    profile = forkProfile;
+                else
+                    profile.merge(forkProfile);
+            }
 
-            // Returning measuring result
-            return Optional.of(unitRes);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return Optional.empty();
+            if(forkInstance != benchmarkClass)
+                state.release(forkInstance);
         }
+
+        unitRes.setResult(invoker.lastResult());
+        unitRes.setSamples(Arrays.copyOf(samples, samplesCount));
+        unitRes.setBatchSize(batchSize);
+        unitRes.setOverheadNanos(overhead);
+        unitRes.setWarmup(warmup);
+        unitRes.setAllocation(allocation);
+        unitRes.setProfile(profile);
+
+        // Returning measuring result
+        return describeUnit(unitRes, method);
+    }
+
+    /**
+     * Names of unit parameters filled with data source arguments (known without -parameters to generated runner).
+     */
+    private static String[] argumentNames(GeneratedRunner<?> runner, Method method){
+        int runnerIndex = runner != null ? runner.units().indexOf(method) : -1;
+
+        return runnerIndex >= 0
+                ? runner.argumentNames(runnerIndex)
+                : Arrays.stream(method.getParameters())
+                        .filter(param -> param.getType() != Blackhole.class) // Blackholes are injected by harness and take no data source arguments
+                        .map(Parameter::getName)
+                        .toArray(String[]::new);
+    }
+
+    /**
+     * Arguments stream of unit: called directly by generated runner, if possible, otherwise looked up by name.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Stream<Arguments> dataSource(GeneratedRunner<T> runner, int runnerIndex, Class<T> benchmarkClazz, DataSource dataSourceAnno, T benchmarkClass) throws ReflectiveOperationException {
+        Stream<Arguments> generated = runner != null && runnerIndex >= 0 ? runner.dataSource(runnerIndex, benchmarkClass) : null;
+
+        if(generated != null)
+            return generated;
+
+        // Getting source of arguments to inject
+        Method dataSourceMethod = benchmarkClazz.getDeclaredMethod(dataSourceAnno.value());
+        dataSourceMethod.setAccessible(true);
+
+        return (Stream<Arguments>) dataSourceMethod.invoke(benchmarkClass);
+    }
+
+    private static void writeProfile(String uid, BenchmarkUnitResult res){
+        try {
+            res.getProfile().write(UnitProfiler.resolve(res.getOriginMethod()).outputDir(), uid, res.getName());
+        } catch (IOException e) {
+            System.out.println("Unable to write profile of " + res.getName() + "! Exception: " + e.getMessage());
+        }
+    }
+
+    private static BenchmarkUnitResult describeUnit(BenchmarkUnitResult unitRes, Method method){
+        // Adding info to current benchmarking unit
+        Unit unitAnno = method.getDeclaredAnnotation(Unit.class);
+        unitRes.setName(unitAnno.value());
+        unitRes.setUnitMethodReturnType(method.getReturnType());
+
+        unitRes.setOriginMethod(method);
+        unitRes.getTime().configure(UnitClock.resolve(method));
+
+        return unitRes;
     }
 }
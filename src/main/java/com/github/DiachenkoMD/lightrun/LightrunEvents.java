@@ -0,0 +1,189 @@
+package com.github.DiachenkoMD.lightrun;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers run events to {@link BenchmarkListener}s from a daemon dispatcher thread.
+ * <br/>
+ * Publisher only claims a preallocated slot of a ring buffer and fills it with references it already has, so publishing
+ * allocates nothing and never waits for listeners. Dispatcher parks, when the ring is empty, and is unparked by
+ * the next publisher (only publishers seeing it waiting pay for unpark). Iteration events are dropped when the ring
+ * is full, the rest of events wait for a free slot (they are published outside of timed regions).
+ */
+final class LightrunEvents {
+    private static final int CAPACITY = 4096; // power of two
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final List<BenchmarkListener> listeners = new CopyOnWriteArrayList<>();
+    private static final Slot[] ring = new Slot[CAPACITY];
+    // Next sequence to claim and next sequence to dispatch
+    private static final AtomicLong claimed = new AtomicLong();
+    private static volatile long dispatched = 0;
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static volatile boolean isActive = false;
+    private static volatile Thread dispatcher;
+    private static volatile boolean isDispatcherWaiting = false;
+
+    static {
+        for(int i = 0; i < CAPACITY; i++)
+            ring[i] = new Slot();
+    }
+
+    private enum Type {BENCHMARK_START, UNIT_START, WARMUP_COMPLETE, ITERATION_COMPLETE, UNIT_COMPLETE, BENCHMARK_COMPLETE}
+
+    private static final class Slot {
+        // Sequence the slot is filled for plus one, written last
+        private volatile long published;
+        private Type type;
+        private int count;
+        private double value;
+        private Object payload;
+        private Object extra;
+    }
+
+    private LightrunEvents(){}
+
+    static synchronized void addListener(BenchmarkListener listener){
+        listeners.add(listener);
+
+        if(dispatcher == null){
+            dispatcher = new Thread(LightrunEvents::dispatch, "lightrun-events");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+
+        isActive = true;
+    }
+
+    static synchronized void removeListener(BenchmarkListener listener){
+        listeners.remove(listener);
+        isActive = !listeners.isEmpty();
+    }
+
+    /**
+     * Iteration events, which were not delivered because listeners were too slow.
+     */
+    static long droppedEvents(){
+        return dropped.get();
+    }
+
+    static void benchmarkStart(String uid, int plannedUnits){
+        publish(Type.BENCHMARK_START, plannedUnits, 0, uid, null);
+    }
+
+    static void unitStart(List<Method> units, Map<String, String> params){
+        // Child JVM reports progress to the parent, which publishes it to its own listeners
+        if(ForkedRunner.isForkedChild())
+            ForkedRunner.forwardUnitStart(units, params);
+
+        publish(Type.UNIT_START, 0, 0, units, params);
+    }
+
+    static void warmupComplete(Method unit, WarmupResult warmup){
+        publish(Type.WARMUP_COMPLETE, 0, 0, unit, warmup);
+    }
+
+    static void iterationComplete(Method unit, int iteration, double nanosPerOperation){
+        publish(Type.ITERATION_COMPLETE, iteration, nanosPerOperation, unit, null);
+    }
+
+    static void unitComplete(BenchmarkUnitResult result){
+        publish(Type.UNIT_COMPLETE, 0, 0, result, null);
+    }
+
+    static void benchmarkComplete(String uid){
+        publish(Type.BENCHMARK_COMPLETE, 0, 0, uid, null);
+    }
+
+    private static void publish(Type type, int count, double value, Object payload, Object extra){
+        if(!isActive)
+            return;
+
+        long sequence;
+
+        while(true){
+            sequence = claimed.get();
+
+            if(sequence - dispatched >= CAPACITY){
+                if(type == Type.ITERATION_COMPLETE){
+                    dropped.incrementAndGet();
+                    return;
+                }
+
+                LockSupport.parkNanos(POLL_NANOS);
+                continue;
+            }
+
+            if(claimed.compareAndSet(sequence, sequence + 1))
+                break;
+        }
+
+        Slot slot = ring[(int) (sequence & (CAPACITY - 1))];
+        slot.type = type;
+        slot.count = count;
+        slot.value = value;
+        slot.payload = payload;
+        slot.extra = extra;
+        slot.published = sequence + 1;
+
+        // Both flags are volatile: either dispatcher sees the slot on its re-check or publisher sees it waiting
+        if(isDispatcherWaiting)
+            LockSupport.unpark(dispatcher);
+    }
+
+    private static void dispatch(){
+        long sequence = 0;
+
+        while(true){
+            Slot slot = ring[(int) (sequence & (CAPACITY - 1))];
+
+            if(slot.published != sequence + 1){
+                isDispatcherWaiting = true;
+
+                if(slot.published != sequence + 1)
+                    LockSupport.park(LightrunEvents.class);
+
+                isDispatcherWaiting = false;
+                continue;
+            }
+
+            Type type = slot.type;
+            int count = slot.count;
+            double value = slot.value;
+            Object payload = slot.payload;
+            Object extra = slot.extra;
+
+            // Released slot keeps no references to results
+            slot.payload = null;
+            slot.extra = null;
+            dispatched = ++sequence;
+
+            for(BenchmarkListener listener : listeners){
+                try {
+                    deliver(listener, type, count, value, payload, extra);
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void deliver(BenchmarkListener listener, Type type, int count, double value, Object payload, Object extra){
+        switch (type){
+            case BENCHMARK_START -> listener.onBenchmarkStart((String) payload, count);
+            case UNIT_START -> listener.onUnitStart((List<Method>) payload, (Map<String, String>) extra);
+            case WARMUP_COMPLETE -> listener.onWarmupComplete((Method) payload, (WarmupResult) extra);
+            case ITERATION_COMPLETE -> listener.onIterationComplete((Method) payload, count, value);
+            case UNIT_COMPLETE -> listener.onUnitComplete((BenchmarkUnitResult) payload);
+            case BENCHMARK_COMPLETE -> listener.onBenchmarkComplete((String) payload);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Benchmark;
+import com.github.DiachenkoMD.lightrun.annotations.Unit;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Platform MBean tracking run progress from events. Registered once per JVM on the first run (not in child JVMs),
+ * unless {@value #JMX_PROPERTY} system property is false.
+ * <br/>
+ * Benchmarks running at the same time (suite slots) are tracked separately and summed up: units are counted since
+ * the first of them started, until the last one completes. Iteration attributes follow the unit started last.
+ */
+class LightrunMonitor implements LightrunMonitorMXBean, BenchmarkListener {
+    static final String JMX_PROPERTY = "lightrun.jmx";
+    private static final int WINDOW = 64;
+
+    private static volatile boolean isRegistered = false;
+
+    // Running benchmarks by UID
+    private final Map<String, Progress> running = new LinkedHashMap<>();
+    private String benchmark;
+    private int plannedUnits;
+    private int completedUnits;
+    private long results;
+    private long failedResults;
+    private long startNanos;
+
+    private List<Method> iterationUnits = List.of();
+    private long iterations;
+    private double lastIterationNanos = -1;
+    private final double[] window = new double[WINDOW];
+    private int windowSize;
+    private int windowNext;
+
+    static synchronized void register(){
+        if(isRegistered || ForkedRunner.isForkedChild() || !Boolean.parseBoolean(System.getProperty(JMX_PROPERTY, "true")))
+            return;
+
+        isRegistered = true;
+
+        try {
+            LightrunMonitor monitor = new LightrunMonitor();
+            ManagementFactory.getPlatformMBeanServer().registerMBean(monitor, new ObjectName(OBJECT_NAME));
+            LightrunEvents.addListener(monitor);
+        } catch (Exception | LinkageError e) {
+            // JMX is unavailable (e.g. stripped runtime), runs are not affected
+            System.out.println("Unable to register Lightrun MBean! Exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Progress of a single running benchmark.
+     */
+    private static final class Progress {
+        private int runs;
+        private String currentUnit;
+        // Units started together and not completed yet
+        private int inProgressUnits;
+    }
+
+    @Override
+    public synchronized void onBenchmarkStart(String uid, int plannedUnits) {
+        // Counters restart with the first of concurrently running benchmarks
+        if(running.isEmpty()){
+            this.plannedUnits = 0;
+            this.completedUnits = 0;
+            this.results = 0;
+            this.failedResults = 0;
+            this.startNanos = System.nanoTime();
+            resetIterations();
+        }
+
+        ++running.computeIfAbsent(uid, key -> new Progress()).runs;
+        this.benchmark = String.join(", ", running.keySet());
+        this.plannedUnits += plannedUnits;
+    }
+
+    @Override
+    public synchronized void onUnitStart(List<Method> units, Map<String, String> params) {
+        Progress progress = running.get(units.get(0).getDeclaringClass().getAnnotation(Benchmark.class).value());
+
+        if(progress == null)
+            return;
+
+        completedUnits += progress.inProgressUnits;
+        progress.inProgressUnits = units.size();
+
+        progress.currentUnit = units.stream()
+                .map(unit -> unit.getDeclaredAnnotation(Unit.class).value())
+                .collect(Collectors.joining(" vs "))
+                + (params != null && !params.isEmpty() ? " [" + BenchmarkState.describe(params) + "]" : "");
+
+        iterationUnits = units;
+        resetIterations();
+    }
+
+    @Override
+    public synchronized void onIterationComplete(Method unit, int iteration, double nanosPerOperation) {
+        // Iterations of units of other running benchmarks would mix into the window
+        if(!iterationUnits.contains(unit))
+            return;
+
+        ++iterations;
+        lastIterationNanos = nanosPerOperation;
+
+        window[windowNext] = nanosPerOperation;
+        windowNext = (windowNext + 1) % WINDOW;
+        windowSize = Math.min(WINDOW, windowSize + 1);
+    }
+
+    @Override
+    public synchronized void onUnitComplete(BenchmarkUnitResult result) {
+        ++results;
+
+        if(result.isFailed())
+            ++failedResults;
+    }
+
+    @Override
+    public synchronized void onBenchmarkComplete(String uid) {
+        Progress progress = running.get(uid);
+
+        if(progress == null)
+            return;
+
+        completedUnits += progress.inProgressUnits;
+        progress.inProgressUnits = 0;
+        progress.currentUnit = null;
+
+        if(--progress.runs == 0)
+            running.remove(uid);
+
+        // The last completed benchmark stays named once nothing runs
+        if(!running.isEmpty())
+            this.benchmark = String.join(", ", running.keySet());
+    }
+
+    private void resetIterations(){
+        iterations = 0;
+        lastIterationNanos = -1;
+        windowSize = 0;
+        windowNext = 0;
+    }
+
+    @Override
+    public synchronized String getBenchmark() {
+        return benchmark;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return !running.isEmpty();
+    }
+
+    @Override
+    public synchronized String getCurrentUnit() {
+        String currentUnits = running.values().stream()
+                .map(progress -> progress.currentUnit)
+                .filter(unit -> unit != null)
+                .collect(Collectors.joining(", "));
+
+        return currentUnits.isEmpty() ? null : currentUnits;
+    }
+
+    @Override
+    public synchronized int getPlannedUnits() {
+        return plannedUnits;
+    }
+
+    @Override
+    public synchronized int getCompletedUnits() {
+        return completedUnits;
+    }
+
+    @Override
+    public synchronized int getRemainingUnits() {
+        return Math.max(0, plannedUnits - completedUnits);
+    }
+
+    @Override
+    public synchronized long getResults() {
+        return results;
+    }
+
+    @Override
+    public synchronized long getFailedResults() {
+        return failedResults;
+    }
+
+    @Override
+    public synchronized long getElapsedMillis() {
+        return benchmark != null ? (System.nanoTime() - startNanos) / 1_000_000 : -1;
+    }
+
+    @Override
+    public synchronized long getEtaMillis() {
+        if(running.isEmpty())
+            return 0;
+
+        if(completedUnits == 0)
+            return -1;
+
+        return getElapsedMillis() * getRemainingUnits() / completedUnits;
+    }
+
+    @Override
+    public synchronized long getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public synchronized double getLastIterationNanos() {
+        return lastIterationNanos;
+    }
+
+    @Override
+    public synchronized int getRollingWindow() {
+        return windowSize;
+    }
+
+    @Override
+    public synchronized double getRollingMeanNanos() {
+        return windowSize > 0 ? Statistics.of(window, windowSize).getMean() : -1;
+    }
+
+    @Override
+    public synchronized double getRollingStdDevNanos() {
+        return windowSize > 0 ? Statistics.of(window, windowSize).getStdDev() : -1;
+    }
+
+    @Override
+    public synchronized double getRollingMinNanos() {
+        return windowSize > 0 ? Statistics.of(window, windowSize).getMin() : -1;
+    }
+
+    @Override
+    public synchronized double getRollingMaxNanos() {
+        return windowSize > 0 ? Statistics.of(window, windowSize).getMax() : -1;
+    }
+
+    @Override
+    public long getDroppedEvents() {
+        return LightrunEvents.droppedEvents();
+    }
+}
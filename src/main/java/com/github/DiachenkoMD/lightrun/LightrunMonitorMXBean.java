@@ -0,0 +1,57 @@
+package com.github.DiachenkoMD.lightrun;
+
+/**
+ * Live progress of the running benchmark (or benchmarks running at the same time), registered as {@value #OBJECT_NAME} (see jconsole or jcmd).
+ * Times are in nanoseconds per operation unless stated otherwise, -1 - not known yet.
+ */
+public interface LightrunMonitorMXBean {
+    String OBJECT_NAME = "com.github.DiachenkoMD.lightrun:type=Monitor";
+
+    String getBenchmark();
+
+    boolean isRunning();
+
+    /**
+     * Unit (units of a comparison) measured right now, with parameters. Units of concurrently running benchmarks are comma-separated.
+     */
+    String getCurrentUnit();
+
+    int getPlannedUnits();
+
+    int getCompletedUnits();
+
+    int getRemainingUnits();
+
+    /**
+     * Results produced so far (one per arguments set) and failed ones among them.
+     */
+    long getResults();
+
+    long getFailedResults();
+
+    long getElapsedMillis();
+
+    /**
+     * Remaining time estimated by average time of completed units.
+     */
+    long getEtaMillis();
+
+    long getIterations();
+
+    double getLastIterationNanos();
+
+    /**
+     * Statistics of the last iterations of the current unit.
+     */
+    int getRollingWindow();
+
+    double getRollingMeanNanos();
+
+    double getRollingStdDevNanos();
+
+    double getRollingMinNanos();
+
+    double getRollingMaxNanos();
+
+    long getDroppedEvents();
+}
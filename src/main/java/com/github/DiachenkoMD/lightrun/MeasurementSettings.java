@@ -0,0 +1,98 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Measurement;
+import com.github.DiachenkoMD.lightrun.annotations.OperationsPerInvocation;
+import com.github.DiachenkoMD.lightrun.annotations.Timer;
+import lombok.Data;
+
+import java.lang.reflect.Method;
+
+@Data
+public class MeasurementSettings {
+    private static final int MAX_AUTO_BATCH = 1 << 30;
+    private static final int CALIBRATION_RUNS = 3;
+
+    private int iterations = 1;
+    private int batchSize = 1;
+    private int forks = 1;
+    private long timeBudgetNanos = 0;
+    // Batch size is calibrated per unit to span target sample time (0 - derived from clock resolution)
+    private boolean autoBatch = true;
+    private long sampleTimeNanos = 0;
+    private int operationsPerInvocation = 1;
+
+    public static MeasurementSettings of(Measurement anno){
+        MeasurementSettings settings = new MeasurementSettings();
+
+        if(anno != null){
+            settings.setIterations(anno.iterations());
+            settings.setBatchSize(Math.max(1, anno.batchSize()));
+            settings.setAutoBatch(anno.batchSize() <= 0);
+            settings.setSampleTimeNanos(anno.timeUnit().toNanos(Math.max(0, anno.sampleTime())));
+            settings.setForks(Math.max(1, anno.forks()));
+            settings.setTimeBudgetNanos(anno.timeUnit().toNanos(Math.max(0, anno.time())));
+        }
+
+        // Without iterations and time budget we would loop forever, so at least one sample is always taken
+        if(settings.getIterations() <= 0 && settings.getTimeBudgetNanos() == 0)
+            settings.setIterations(1);
+
+        return settings;
+    }
+
+    /**
+     * Method-level {@link Measurement} overrides the one placed on benchmark class.
+     */
+    public static MeasurementSettings resolve(Method unitMethod){
+        Measurement anno = unitMethod.getAnnotation(Measurement.class);
+
+        if(anno == null)
+            anno = unitMethod.getDeclaringClass().getAnnotation(Measurement.class);
+
+        MeasurementSettings settings = of(anno);
+
+        OperationsPerInvocation opsAnno = unitMethod.getAnnotation(OperationsPerInvocation.class);
+
+        if(opsAnno == null)
+            opsAnno = unitMethod.getDeclaringClass().getAnnotation(OperationsPerInvocation.class);
+
+        if(opsAnno != null)
+            settings.setOperationsPerInvocation(Math.max(1, opsAnno.value()));
+
+        return settings;
+    }
+
+    /**
+     * Batch size unit is measured with: configured one or, if batch is calibrated, the smallest one spanning target
+     * sample time. Calibration runs batches of growing size on the passed invoker, warming it up on the way.
+     */
+    public int batchSizeFor(UnitInvoker invoker, Timer.Mode clock) throws Throwable {
+        if(!autoBatch)
+            return batchSize;
+
+        long targetNanos = sampleTimeNanos > 0 ? sampleTimeNanos : ClockCalibration.of(clock).getTargetSampleNanos();
+        long batch = 1;
+
+        while(batch < MAX_AUTO_BATCH){
+            // Fastest of a few runs, so a single cold or interrupted run doesn't stop the growth early
+            long elapsed = Long.MAX_VALUE;
+            for(int i = 0; i < CALIBRATION_RUNS; i++)
+                elapsed = Math.min(elapsed, invoker.measure(batch));
+
+            if(elapsed >= targetNanos)
+                break;
+
+            // Growing at most tenfold per step, as unit may speed up once compiled
+            batch = Math.min(MAX_AUTO_BATCH, batch * Math.max(2, Math.min(10, targetNanos / Math.max(1, elapsed))));
+        }
+
+        return (int) batch;
+    }
+
+    public boolean hasNextIteration(int completedIterations, long elapsedNanos){
+        if(timeBudgetNanos > 0 && elapsedNanos >= timeBudgetNanos)
+            return false;
+
+        return iterations <= 0 || completedIterations < iterations;
+    }
+}
@@ -0,0 +1,286 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Object layout of the running JVM: header, reference and alignment sizes (from HotSpot flags) and field offsets of
+ * classes (from Unsafe, which also reads references of JDK classes closed by modules). Classes Unsafe can't lay out
+ * (records, hidden classes) or runtimes without Unsafe fall back to reflection and packed fields estimation.
+ * <br/>
+ * Unsafe (of jdk.unsupported module) is reached through method handles looked up at runtime, so the build doesn't
+ * depend on internal API. Handles are constant, so JIT links calls through them as direct ones.
+ */
+final class ObjectLayout {
+    private static final Object unsafe = initUnsafe();
+    private static final MethodHandle objectFieldOffset = unsafeMethod("objectFieldOffset", long.class, Field.class);
+    private static final MethodHandle getObject = unsafeMethod("getObject", Object.class, Object.class, long.class);
+    private static final MethodHandle arrayBaseOffset = unsafeMethod("arrayBaseOffset", int.class, Class.class);
+    private static final MethodHandle arrayIndexScale = unsafeMethod("arrayIndexScale", int.class, Class.class);
+    private static final boolean isUnsafeAvailable = objectFieldOffset != null && getObject != null && arrayBaseOffset != null && arrayIndexScale != null;
+
+    private final int alignment;
+    private final int headerBytes;
+    private final int referenceBytes;
+    private final int arrayHeaderBytes;
+
+    private final ClassValue<ClassLayout> classes = new ClassValue<>() {
+        @Override
+        protected ClassLayout computeValue(Class<?> type) {
+            return layout(type);
+        }
+    };
+
+    private static final ObjectLayout current = new ObjectLayout();
+
+    private ObjectLayout(){
+        HotSpotDiagnosticMXBean bean = null;
+
+        try {
+            bean = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        } catch (RuntimeException | LinkageError e) {
+            System.out.println("HotSpot flags are not available, default object layout is assumed: " + e.getMessage());
+        }
+
+        boolean isCompressedOops = Boolean.parseBoolean(option(bean, "UseCompressedOops", "true"));
+        boolean isCompressedClassPointers = Boolean.parseBoolean(option(bean, "UseCompressedClassPointers", "true"));
+        alignment = Integer.parseInt(option(bean, "ObjectAlignmentInBytes", "8"));
+
+        // Mark word and (compressed) class pointer, arrays add length and align their elements to heap word
+        headerBytes = isCompressedClassPointers ? 12 : 16;
+        referenceBytes = isCompressedOops ? 4 : 8;
+        arrayHeaderBytes = isUnsafeAvailable ? arrayBaseOffset(Object[].class) : (headerBytes + 4 + 7) / 8 * 8;
+    }
+
+    static ObjectLayout current(){
+        return current;
+    }
+
+    private static String option(HotSpotDiagnosticMXBean bean, String name, String defaultValue){
+        try {
+            return bean != null ? bean.getVMOption(name).getValue() : defaultValue;
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
+        }
+    }
+
+    private static Object initUnsafe(){
+        try {
+            Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+
+            return field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            System.out.println("Unsafe is not available, object layout is estimated: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Handle of Unsafe method bound to its instance, null if there is no Unsafe or such method.
+     */
+    private static MethodHandle unsafeMethod(String name, Class<?> returnType, Class<?>... parameterTypes){
+        if(unsafe == null)
+            return null;
+
+        try {
+            return MethodHandles.publicLookup()
+                    .findVirtual(unsafe.getClass(), name, MethodType.methodType(returnType, parameterTypes))
+                    .bindTo(unsafe);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.out.println("Unsafe." + name + " is not available, object layout is estimated: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static long objectFieldOffset(Field field){
+        try {
+            return (long) objectFieldOffset.invokeExact(field);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object getObject(Object obj, long offset){
+        try {
+            return (Object) getObject.invokeExact(obj, offset);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int arrayBaseOffset(Class<?> type){
+        try {
+            return (int) arrayBaseOffset.invokeExact(type);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int arrayIndexScale(Class<?> type){
+        try {
+            return (int) arrayIndexScale.invokeExact(type);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Shallow size of object, bytes.
+     */
+    long sizeOf(Object obj){
+        Class<?> type = obj.getClass();
+
+        if(type.isArray()){
+            Class<?> component = type.getComponentType();
+            long base = isUnsafeAvailable ? arrayBaseOffset(type) : arrayHeaderBytes;
+            long scale = isUnsafeAvailable ? arrayIndexScale(type) : fieldBytes(component);
+
+            return align(base + scale * Array.getLength(obj));
+        }
+
+        return classes.get(type).size;
+    }
+
+    /**
+     * Passes every non-null reference the object holds (elements of reference arrays, instance fields of the rest) to visitor.
+     */
+    void forEachReference(Object obj, ReferenceVisitor visitor){
+        Class<?> type = obj.getClass();
+
+        if(type.isArray()){
+            if(!type.getComponentType().isPrimitive()){
+                for(Object element : (Object[]) obj){
+                    if(element != null)
+                        visitor.visit(element);
+                }
+            }
+
+            return;
+        }
+
+        ClassLayout layout = classes.get(type);
+
+        for(long offset : layout.referenceOffsets){
+            Object value = getObject(obj, offset);
+            if(value != null)
+                visitor.visit(value);
+        }
+
+        for(Field field : layout.referenceFields){
+            try {
+                Object value = field.get(obj);
+                if(value != null)
+                    visitor.visit(value);
+            } catch (IllegalAccessException e) {
+                // Field was made accessible while laying class out
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private ClassLayout layout(Class<?> type){
+        List<Field> fields = new ArrayList<>();
+        for(Class<?> current = type; current != null; current = current.getSuperclass()){
+            for(Field field : current.getDeclaredFields()){
+                if(!Modifier.isStatic(field.getModifiers()))
+                    fields.add(field);
+            }
+        }
+
+        ClassLayout layout = new ClassLayout();
+
+        // Exact offsets, unless Unsafe refuses the class
+        if(isUnsafeAvailable){
+            try {
+                long end = headerBytes;
+                List<Long> offsets = new ArrayList<>();
+
+                for(Field field : fields){
+                    long offset = objectFieldOffset(field);
+                    end = Math.max(end, offset + fieldBytes(field.getType()));
+
+                    if(!field.getType().isPrimitive())
+                        offsets.add(offset);
+                }
+
+                layout.size = align(end);
+                layout.referenceOffsets = offsets.stream().mapToLong(Long::longValue).toArray();
+                layout.referenceFields = new Field[0];
+
+                return layout;
+            } catch (UnsupportedOperationException e) {
+                // Records and hidden classes are laid out by estimation below
+            }
+        }
+
+        long size = headerBytes;
+        List<Field> referenceFields = new ArrayList<>();
+
+        for(Field field : fields){
+            size += fieldBytes(field.getType());
+
+            if(!field.getType().isPrimitive()){
+                try {
+                    field.setAccessible(true);
+                    referenceFields.add(field);
+                } catch (RuntimeException e) {
+                    // Closed by module, references of this field are not followed
+                }
+            }
+        }
+
+        layout.size = align(size);
+        layout.referenceOffsets = new long[0];
+        layout.referenceFields = referenceFields.toArray(new Field[0]);
+
+        return layout;
+    }
+
+    private int fieldBytes(Class<?> type){
+        if(!type.isPrimitive())
+            return referenceBytes;
+
+        if(type == long.class || type == double.class)
+            return 8;
+
+        if(type == int.class || type == float.class)
+            return 4;
+
+        if(type == short.class || type == char.class)
+            return 2;
+
+        return 1;
+    }
+
+    private long align(long size){
+        return (size + alignment - 1) / alignment * alignment;
+    }
+
+    private static final class ClassLayout {
+        private long size;
+        private long[] referenceOffsets;
+        private Field[] referenceFields;
+    }
+
+    interface ReferenceVisitor {
+        void visit(Object reference);
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Profile;
+import lombok.Data;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stacks sampled during unit measurement and the cost of sampling them.
+ */
+@Data
+public class ProfileResult {
+    private Profile.Mode mode;
+    private int intervalMillis;
+    private long samples;
+    // CPU time sampler thread itself spent taking stacks (pauses of target thread are not included), 0 - not observable (JFR)
+    private long samplerNanos;
+    // Length of profiled measurement windows
+    private long windowNanos;
+    // Mean time per invocation measured right after profiled window without profiler, NaN - not measured
+    private double controlMeanNanos = Double.NaN;
+    // Collapsed stacks (root first, frames joined with ';') with their sample counts, released once written
+    private Map<String, Long> stacks = new HashMap<>();
+    private String file;
+
+    /**
+     * Sampler's own CPU time as a share of measurement window, NaN - not observable. It's the CPU sampling takes from
+     * the machine, not the time target thread spent stopped at safepoints (see {@link #getObservedOverhead(double)}).
+     */
+    public double getSamplerCpuShare(){
+        if(mode == Profile.Mode.JFR || windowNanos == 0)
+            return Double.NaN;
+
+        return (double) samplerNanos / windowNanos;
+    }
+
+    /**
+     * Relative slowdown of profiled measurement compared to unprofiled control run, NaN - no control run.
+     */
+    public double getObservedOverhead(double profiledMeanNanos){
+        if(Double.isNaN(controlMeanNanos) || controlMeanNanos <= 0)
+            return Double.NaN;
+
+        return profiledMeanNanos / controlMeanNanos - 1;
+    }
+
+    /**
+     * Observed slowdown when control run was measured, sampler CPU share of window (a lower-bound estimate) otherwise.
+     */
+    public double getOverhead(double profiledMeanNanos){
+        double observed = getObservedOverhead(profiledMeanNanos);
+
+        return Double.isNaN(observed) ? getSamplerCpuShare() : observed;
+    }
+
+    public void merge(ProfileResult other){
+        samples += other.getSamples();
+        samplerNanos += other.getSamplerNanos();
+        windowNanos += other.getWindowNanos();
+
+        if(Double.isNaN(controlMeanNanos))
+            controlMeanNanos = other.getControlMeanNanos();
+        else if(!Double.isNaN(other.getControlMeanNanos()))
+            controlMeanNanos = (controlMeanNanos + other.getControlMeanNanos()) / 2;
+
+        if(stacks != null && other.getStacks() != null)
+            other.getStacks().forEach((stack, count) -> stacks.merge(stack, count, Long::sum));
+    }
+
+    /**
+     * Writes collapsed stacks to {@code outputDir/<uid>/<unit name>.collapsed} and releases them.
+     */
+    void write(String outputDir, String uid, String unitName) throws IOException {
+        if(stacks == null)
+            return;
+
+        Path dir = Path.of(outputDir, sanitize(uid));
+        Files.createDirectories(dir);
+
+        Path target = dir.resolve(sanitize(unitName) + ".collapsed");
+
+        try(BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)){
+            for(Map.Entry<String, Long> stack : stacks.entrySet()){
+                writer.write(stack.getKey());
+                writer.write(' ');
+                writer.write(String.valueOf(stack.getValue()));
+                writer.newLine();
+            }
+        }
+
+        file = target.toString();
+        stacks = null;
+    }
+
+    private static String sanitize(String name){
+        return name.replaceAll("[^A-Za-z0-9._=-]+", "_");
+    }
+
+    @Override
+    public String toString() {
+        return "ProfileResult(mode=" + mode + ", samples=" + samples + ", samplerCpuShare=" + getSamplerCpuShare() + ", controlMeanNanos=" + controlMeanNanos + ", file=" + file + ")";
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.DiachenkoMD.lightrun;
+
+/**
+ * Receives unit results as soon as they are produced, so long parameter sweeps don't have to be kept in memory.
+ *
+ * @see Lightrun#stream(Class, ResultSink)
+ */
+@FunctionalInterface
+public interface ResultSink {
+    void accept(BenchmarkUnitResult result);
+
+    /**
+     * Called once per benchmark class before the first unit is measured. Container has UID and columns set, but no results.
+     */
+    default void onBenchmarkStart(BenchmarkResults<?> results){}
+
+    default void onBenchmarkComplete(BenchmarkResults<?> results){}
+
+    /**
+     * Combines several sinks into one, passing every result and event to each of them in order.
+     */
+    static ResultSink of(ResultSink... sinks){
+        return new ResultSink() {
+            @Override
+            public void accept(BenchmarkUnitResult result) {
+                for(ResultSink sink : sinks)
+                    sink.accept(result);
+            }
+
+            @Override
+            public void onBenchmarkStart(BenchmarkResults<?> results) {
+                for(ResultSink sink : sinks)
+                    sink.onBenchmarkStart(results);
+            }
+
+            @Override
+            public void onBenchmarkComplete(BenchmarkResults<?> results) {
+                for(ResultSink sink : sinks)
+                    sink.onBenchmarkComplete(results);
+            }
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Profile;
+import com.github.DiachenkoMD.lightrun.annotations.SampleTime;
+
+import java.lang.reflect.Method;
+
+/**
+ * Measures latency of every single unit invocation into a {@link LatencyHistogram}.
+ */
+class SampleTimeRunner {
+    // Unprofiled invocations measured after profiled window to estimate profiler impact
+    private static final int CONTROL_INVOCATIONS = 1000;
+
+    /**
+     * Method-level {@link SampleTime} overrides the one placed on benchmark class.
+     */
+    static SampleTime resolve(Method unitMethod){
+        SampleTime anno = unitMethod.getAnnotation(SampleTime.class);
+
+        if(anno == null)
+            anno = unitMethod.getDeclaringClass().getAnnotation(SampleTime.class);
+
+        return anno;
+    }
+
+    static void measure(BenchmarkUnitResult unitRes, Method method, BenchmarkState<?> state, Object benchmarkClass, Object[] methodArgs, SampleTime anno, MeasurementSettings settings, WarmupSettings warmupSettings) throws Throwable {
+        long durationNanos = anno.timeUnit().toNanos(anno.time());
+        int ops = settings.getOperationsPerInvocation();
+        // Every invocation is timed on its own, so harness cost of a single-invocation batch is subtracted
+        double overhead = UnitInvoker.overheadNanos(1, UnitClock.mode(method));
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        UnitInvoker invoker = null;
+        WarmupResult warmup = null;
+        AllocationResult allocation = new AllocationResult();
+        Profile profileAnno = UnitProfiler.resolve(method);
+        ProfileResult profile = null;
+
+        for(int fork = 0; fork < settings.getForks(); fork++){
+            // First fork is measured on the passed instance, the following ones - on fresh (prepared) instances
+            Object forkInstance = fork == 0 ? benchmarkClass : state.newInstance();
+            invoker = state.invoker(method, forkInstance, methodArgs);
+
+            WarmupResult forkWarmup = WarmupResult.warmup(invoker, warmupSettings, 1);
+            LightrunEvents.warmupComplete(method, forkWarmup);
+            if(warmup == null)
+                warmup = forkWarmup;
+            else
+                warmup.merge(forkWarmup);
+
+            long gcCountBefore = AllocationProfiler.gcCount();
+            long gcTimeBefore = AllocationProfiler.gcTimeMillis();
+
+            UnitProfiler profiler = UnitProfiler.start(profileAnno, Thread.currentThread());
+            long deadline = System.nanoTime() + durationNanos;
+
+            // At least one invocation is recorded even with zero duration
+            do {
+                UnitWatchdog.checkInterrupted();
+
+                long endTime = invoker.measure(1);
+                allocation.addAllocated(invoker.lastAllocatedBytes(), ops);
+                histogram.record(Math.round(Math.max(0, endTime - overhead) / ops));
+            } while(System.nanoTime() < deadline);
+
+            allocation.addGc(gcCountBefore, gcTimeBefore);
+
+            if(profiler != null){
+                ProfileResult forkProfile = profiler.stop();
+                forkProfile.setControlMeanNanos(UnitProfiler.measureControl(invoker, 1, overhead, CONTROL_INVOCATIONS) / ops);
+
+                if(profile == null)
+                    profile = forkProfile;
+                else
+                    profile.merge(forkProfile);
+            }
+
+            if(forkInstance != benchmarkClass)
+                state.release(forkInstance);
+        }
+
+        unitRes.setResult(invoker.lastResult());
+        unitRes.useHistogram(histogram);
+        unitRes.setBatchSize(1);
+        unitRes.setOverheadNanos(overhead);
+        unitRes.setWarmup(warmup);
+        unitRes.setAllocation(allocation);
+        unitRes.setProfile(profile);
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.DiachenkoMD.lightrun;
+
+import lombok.Data;
+
+import java.util.Locale;
+
+/**
+ * How unit time grows with input size: slope of log(time) against log(size) and the best fitting complexity class.
+ */
+@Data
+public class ScalingFit {
+    // Exponent k of time ~ size^k fitted in log-log space (1 - linear, 2 - quadratic, etc.)
+    private double slope;
+    private Complexity complexity;
+    // Nanoseconds per unit of complexity function, so time ~ constant + coefficient * complexity(size)
+    private double coefficient;
+    private int points;
+
+    public enum Complexity {
+        CONSTANT("O(1)"),
+        LOGARITHMIC("O(log n)"),
+        LINEAR("O(n)"),
+        LINEARITHMIC("O(n log n)"),
+        QUADRATIC("O(n^2)"),
+        CUBIC("O(n^3)");
+
+        private final String label;
+
+        Complexity(String label){
+            this.label = label;
+        }
+
+        public double apply(double n){
+            return switch (this){
+                case CONSTANT -> 1;
+                case LOGARITHMIC -> Math.log(n);
+                case LINEAR -> n;
+                case LINEARITHMIC -> n * Math.log(n);
+                case QUADRATIC -> n * n;
+                case CUBIC -> n * n * n;
+            };
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * Fits time against size, requires at least 3 points with 2 distinct positive sizes, otherwise returns null.
+     */
+    public static ScalingFit of(double[] sizes, double[] nanos){
+        int points = 0;
+        double minSize = Double.MAX_VALUE, maxSize = 0;
+
+        for(int i = 0; i < sizes.length; i++){
+            if(sizes[i] > 0 && nanos[i] > 0){
+                ++points;
+                minSize = Math.min(minSize, sizes[i]);
+                maxSize = Math.max(maxSize, sizes[i]);
+            }
+        }
+
+        if(points < 3 || minSize == maxSize)
+            return null;
+
+        ScalingFit fit = new ScalingFit();
+        fit.setPoints(points);
+        fit.setSlope(logLogSlope(sizes, nanos));
+
+        // Every model is fitted as time = intercept + coefficient * complexity(size), intercept absorbing fixed per-call costs.
+        // Residuals are weighted by 1 / time^2 (relative errors), so large sizes don't dominate the fit
+        double bestResidual = Double.MAX_VALUE;
+
+        for(Complexity complexity : Complexity.values()){
+            double w = 0, sx = 0, sy = 0, sxx = 0, sxy = 0;
+
+            for(int i = 0; i < sizes.length; i++){
+                if(sizes[i] <= 0 || nanos[i] <= 0)
+                    continue;
+
+                double weight = 1 / (nanos[i] * nanos[i]);
+                double x = complexity.apply(sizes[i]);
+
+                w += weight;
+                sx += weight * x;
+                sy += weight * nanos[i];
+                sxx += weight * x * x;
+                sxy += weight * x * nanos[i];
+            }
+
+            double denominator = w * sxx - sx * sx;
+            double coefficient = complexity == Complexity.CONSTANT || denominator == 0 ? 0 : (w * sxy - sx * sy) / denominator;
+
+            // Time decreasing with growing size doesn't fit any complexity class
+            if(coefficient < 0)
+                continue;
+
+            double intercept = (sy - coefficient * sx) / w;
+            double residual = 0;
+
+            for(int i = 0; i < sizes.length; i++){
+                if(sizes[i] <= 0 || nanos[i] <= 0)
+                    continue;
+
+                double relativeError = 1 - (intercept + coefficient * complexity.apply(sizes[i])) / nanos[i];
+                residual += relativeError * relativeError;
+            }
+
+            if(residual < bestResidual){
+                bestResidual = residual;
+                fit.setComplexity(complexity);
+                fit.setCoefficient(coefficient);
+            }
+        }
+
+        return fit;
+    }
+
+    private static double logLogSlope(double[] sizes, double[] nanos){
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+        int n = 0;
+
+        for(int i = 0; i < sizes.length; i++){
+            if(sizes[i] <= 0 || nanos[i] <= 0)
+                continue;
+
+            double x = Math.log(sizes[i]), y = Math.log(nanos[i]);
+            sumX += x;
+            sumY += y;
+            sumXY += x * y;
+            sumXX += x * x;
+            ++n;
+        }
+
+        return (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s (slope %.2f)", complexity, slope);
+    }
+}
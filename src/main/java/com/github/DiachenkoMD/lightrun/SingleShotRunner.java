@@ -0,0 +1,57 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Timer;
+
+import java.lang.reflect.Method;
+
+/**
+ * Measures cold latency: every fork links a fresh invoker on a fresh instance and times its very first invocation,
+ * no warmup is done. Harness overhead is not subtracted, as calibrated (warm) overhead doesn't apply to a cold call.
+ * <br/>
+ * Only the first invocation in a JVM is truly cold, so every fork is measured in its own child JVM
+ * (see {@link #childJvms(Method)}), which takes exactly one sample.
+ */
+class SingleShotRunner {
+    static boolean isSingleShot(Method unitMethod){
+        return UnitClock.mode(unitMethod) == Timer.Mode.SINGLE_SHOT;
+    }
+
+    /**
+     * Amount of child JVMs unit is measured in: one per fork for single shot units, one for the rest.
+     */
+    static int childJvms(Method unitMethod){
+        return isSingleShot(unitMethod) ? MeasurementSettings.resolve(unitMethod).getForks() : 1;
+    }
+
+    static void measure(BenchmarkUnitResult unitRes, Method method, BenchmarkState<?> state, Object benchmarkClass, Object[] methodArgs, MeasurementSettings settings) throws Throwable {
+        // Child JVM is one of the forks, in-process forks remain for units which couldn't be forked
+        int forks = ForkedRunner.isForkedChild() ? 1 : settings.getForks();
+        double[] samples = new double[forks];
+        int ops = settings.getOperationsPerInvocation();
+        UnitInvoker invoker = null;
+        AllocationResult allocation = new AllocationResult();
+
+        for(int fork = 0; fork < forks; fork++){
+            // First fork is measured on the passed instance, the following ones - on fresh (prepared) instances
+            Object forkInstance = fork == 0 ? benchmarkClass : state.newInstance();
+            invoker = state.invoker(method, forkInstance, methodArgs);
+
+            long gcCountBefore = AllocationProfiler.gcCount();
+            long gcTimeBefore = AllocationProfiler.gcTimeMillis();
+
+            samples[fork] = (double) invoker.measure(1) / ops;
+
+            allocation.addAllocated(invoker.lastAllocatedBytes(), ops);
+            allocation.addGc(gcCountBefore, gcTimeBefore);
+
+            if(forkInstance != benchmarkClass)
+                state.release(forkInstance);
+        }
+
+        unitRes.setResult(invoker.lastResult());
+        unitRes.setSamples(samples);
+        unitRes.setBatchSize(1);
+        unitRes.setOverheadNanos(0);
+        unitRes.setAllocation(allocation);
+    }
+}
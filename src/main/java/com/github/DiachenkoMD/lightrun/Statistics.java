@@ -0,0 +1,166 @@
+package com.github.DiachenkoMD.lightrun;
+
+import lombok.Data;
+
+import java.util.Arrays;
+
+/**
+ * Distribution summary of unit samples (nanoseconds per invocation).
+ */
+@Data
+public class Statistics {
+    public static final double CONFIDENCE = 0.999;
+
+    private int count;
+    private double mean;
+    private double stdDev;
+    private double min;
+    private double max;
+    private double p50;
+    private double p90;
+    private double p99;
+    private double p999;
+    private double ciLower;
+    private double ciUpper;
+
+    public static Statistics of(double[] samples, int length){
+        if(length <= 0)
+            throw new IllegalArgumentException("Unable to build statistics without samples!");
+
+        double[] sorted = Arrays.copyOf(samples, length);
+        Arrays.sort(sorted);
+
+        Statistics stats = new Statistics();
+        stats.setCount(length);
+        stats.setMin(sorted[0]);
+        stats.setMax(sorted[length - 1]);
+
+        // Calculating mean and variance with Welford's algorithm to stay stable on long runs
+        double mean = 0, m2 = 0;
+        for(int i = 0; i < length; i++){
+            double delta = sorted[i] - mean;
+            mean += delta / (i + 1);
+            m2 += delta * (sorted[i] - mean);
+        }
+
+        stats.setMean(mean);
+        stats.setStdDev(length > 1 ? Math.sqrt(m2 / (length - 1)) : 0);
+
+        stats.setP50(percentile(sorted, 0.5));
+        stats.setP90(percentile(sorted, 0.9));
+        stats.setP99(percentile(sorted, 0.99));
+        stats.setP999(percentile(sorted, 0.999));
+
+        // Confidence interval of the mean based on Student's t-distribution
+        double error = length > 1
+                ? studentQuantile(1 - (1 - CONFIDENCE) / 2, length - 1) * stats.getStdDev() / Math.sqrt(length)
+                : 0;
+
+        stats.setCiLower(mean - error);
+        stats.setCiUpper(mean + error);
+
+        return stats;
+    }
+
+    /**
+     * Summary of histogram: mean and deviation are exact, percentiles - within histogram precision.
+     */
+    public static Statistics of(LatencyHistogram histogram){
+        if(histogram.getCount() <= 0)
+            throw new IllegalArgumentException("Unable to build statistics without samples!");
+
+        long length = histogram.getCount();
+
+        Statistics stats = new Statistics();
+        stats.setCount((int) Math.min(Integer.MAX_VALUE, length));
+        stats.setMin(histogram.getMin());
+        stats.setMax(histogram.getMax());
+        stats.setMean(histogram.getMean());
+        stats.setStdDev(histogram.getStdDev());
+
+        stats.setP50(histogram.getValueAtPercentile(0.5));
+        stats.setP90(histogram.getValueAtPercentile(0.9));
+        stats.setP99(histogram.getValueAtPercentile(0.99));
+        stats.setP999(histogram.getValueAtPercentile(0.999));
+
+        double error = length > 1
+                ? studentQuantile(1 - (1 - CONFIDENCE) / 2, (int) Math.min(Integer.MAX_VALUE, length - 1)) * stats.getStdDev() / Math.sqrt(length)
+                : 0;
+
+        stats.setCiLower(stats.getMean() - error);
+        stats.setCiUpper(stats.getMean() + error);
+
+        return stats;
+    }
+
+    public double getError(){
+        return (ciUpper - ciLower) / 2;
+    }
+
+    /**
+     * @param sorted ascending sorted values
+     * @param quantile value in range [0, 1]
+     */
+    public static double percentile(double[] sorted, double quantile){
+        if(sorted.length == 1)
+            return sorted[0];
+
+        // Linear interpolation between closest ranks
+        double rank = quantile * (sorted.length - 1);
+        int lower = (int) Math.floor(rank);
+        int upper = Math.min(lower + 1, sorted.length - 1);
+
+        return sorted[lower] + (rank - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    /**
+     * Quantile of Student's t-distribution. Exact for 1 and 2 degrees of freedom, Cornish-Fisher expansion otherwise.
+     */
+    public static double studentQuantile(double p, int df){
+        if(df == 1)
+            return Math.tan(Math.PI * (p - 0.5));
+
+        if(df == 2)
+            return (2 * p - 1) / Math.sqrt(2 * p * (1 - p));
+
+        double z = normalQuantile(p);
+        double z2 = z * z, z3 = z2 * z, z5 = z3 * z2, z7 = z5 * z2, z9 = z7 * z2;
+
+        return z
+                + (z3 + z) / (4.0 * df)
+                + (5 * z5 + 16 * z3 + 3 * z) / (96.0 * df * df)
+                + (3 * z7 + 19 * z5 + 17 * z3 - 15 * z) / (384.0 * df * df * df)
+                + (79 * z9 + 776 * z7 + 1482 * z5 - 1920 * z3 - 945 * z) / (92160.0 * df * df * df * df);
+    }
+
+    /**
+     * Inverse of standard normal CDF (Acklam's rational approximation).
+     */
+    public static double normalQuantile(double p){
+        if(p <= 0 || p >= 1)
+            throw new IllegalArgumentException("Probability should be in range (0, 1)!");
+
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02, 1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02, 6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00, -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00, 3.754408661907416e+00};
+
+        double low = 0.02425;
+
+        if(p < low){
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5]) /
+                    ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+
+        if(p > 1 - low){
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5]) /
+                    ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+
+        double q = p - 0.5, r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q /
+                (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
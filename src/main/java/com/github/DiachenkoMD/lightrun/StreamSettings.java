@@ -0,0 +1,65 @@
+package com.github.DiachenkoMD.lightrun;
+
+import lombok.Data;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Controls what streamed results keep. Everything not retained is dropped (samples)
+ * or replaced with a short textual summary (unit return values and injected arguments).
+ */
+@Data
+public class StreamSettings {
+    private static final int MAX_STRING_LENGTH = 64;
+
+    private boolean retainResults = false;
+    private boolean retainArguments = false;
+    private boolean retainSamples = false;
+
+    public static StreamSettings retainAll(){
+        StreamSettings settings = new StreamSettings();
+        settings.setRetainResults(true);
+        settings.setRetainArguments(true);
+        settings.setRetainSamples(true);
+
+        return settings;
+    }
+
+    BenchmarkUnitResult apply(BenchmarkUnitResult res){
+        if(!retainResults)
+            res.setResult(summarize(res.getResult()));
+
+        if(!retainArguments && res.getInjected() != null && res.getInjected().getArgs() != null)
+            res.setInjected(Arguments.of(Arrays.stream(res.getInjected().getArgs()).map(StreamSettings::summarize).toArray()));
+
+        if(!retainSamples)
+            res.dropSamples();
+
+        return res;
+    }
+
+    /**
+     * Small immutable values are kept as is, anything else is replaced with its type (and size, if known).
+     */
+    public static Object summarize(Object value){
+        if(value == null || value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof Enum<?>)
+            return value;
+
+        if(value instanceof CharSequence seq)
+            return seq.length() <= MAX_STRING_LENGTH ? seq.toString() : seq.subSequence(0, MAX_STRING_LENGTH - 3) + "...";
+
+        if(value.getClass().isArray())
+            return value.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(value) + "]";
+
+        if(value instanceof Collection<?> collection)
+            return value.getClass().getSimpleName() + "(size=" + collection.size() + ")";
+
+        if(value instanceof Map<?, ?> map)
+            return value.getClass().getSimpleName() + "(size=" + map.size() + ")";
+
+        return value.getClass().getSimpleName();
+    }
+}
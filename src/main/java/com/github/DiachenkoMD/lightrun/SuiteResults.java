@@ -0,0 +1,38 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.export.ResultsExporter;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Results of all benchmark classes measured by {@link BenchmarkSuite}.
+ */
+@Data
+public class SuiteResults {
+    // Results in the order classes were discovered, regardless of the order they were measured in
+    private List<BenchmarkResults<?>> results = new ArrayList<>();
+    // Names of classes which were not started within suite budget or failed to run
+    private List<String> skipped = new ArrayList<>();
+    private long wallClockNanos;
+
+    public String asJson(){
+        return ResultsExporter.toJson(this);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        for(BenchmarkResults<?> res : results)
+            sb.append(res.getResults() != null && res.getActiveColumns() != null ? res.asTable() : res.getUID() + ": no results").append("\n");
+
+        sb.append(String.format("Suite: %d benchmarks measured in %.1f s", results.size(), wallClockNanos / 1e9));
+
+        if(!skipped.isEmpty())
+            sb.append(", skipped: ").append(skipped);
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.DiachenkoMD.lightrun;
+
+import lombok.Data;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Selection and scheduling settings of {@link BenchmarkSuite}.
+ */
+@Data
+public class SuiteSettings {
+    // Regular expression searched in fully qualified class name, if null - every class matches
+    private String namePattern = null;
+    // Class is selected if it has at least one of these tags, if empty - every class matches
+    private Set<String> tags = new LinkedHashSet<>();
+    // Wall-clock budget of the whole suite: classes not started within it are skipped, 0 - unlimited
+    private long budgetMillis = 0;
+    // Amount of @Parallel classes measured at once, each on its own CPU set
+    private int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    // Whether child JVMs of @Parallel classes are pinned to disjoint CPU sets with taskset (if available)
+    private boolean pinCpus = true;
+}
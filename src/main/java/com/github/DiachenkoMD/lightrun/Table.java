@@ -3,20 +3,30 @@ package com.github.DiachenkoMD.lightrun;
 import lombok.Data;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.*;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
 public class Table {
+    private static final String CELLS_DELIMITER = "| ";
+
     private String name;
     private final List<ColumnConfig> columnsSettings = new LinkedList<>();
-    private List<BenchmarkUnitResult> data = new LinkedList<>();
+    private final List<BenchmarkUnitResult> data = new ArrayList<>();
     private boolean shouldBeGrouped = false;
 
+    // Paging over ordered rows: amount of rows to skip and to render (0 - all remaining rows)
+    private int offset = 0;
+    private int limit = 0;
+
     private Comparator<BenchmarkUnitResult> orderBy;
 
     public Table(){
@@ -25,90 +35,126 @@ public class Table {
 
     @Override
     public String toString(){
-        // Getting columns sizes
-        detectColumnsSizes();
+        try {
+            StringBuilder tableOutput = new StringBuilder();
+            render(tableOutput);
+            return tableOutput.toString();
+        } catch (IOException e) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        StringBuilder tableOutput = new StringBuilder();
+    /**
+     * Streams rendered table to the writer row by row instead of building the whole table as one string.
+     */
+    public void writeTo(@NotNull Writer writer) throws IOException {
+        render(writer);
+        writer.flush();
+    }
 
-        // Rendering header row
-        String headerRow =
-                columnsSettings.stream().map(
-                        columnConfig -> formCell(columnConfig.getName(), columnConfig.getSize())
-                ).collect(Collectors.joining("| "));
+    public void writeTo(@NotNull OutputStream stream) throws IOException {
+        writeTo(new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8)));
+    }
 
-        int headerSize = headerRow.length();
+    private void render(Appendable out) throws IOException {
+        List<BenchmarkUnitResult> rows = orderedRows();
+        int from = Math.min(offset, rows.size());
+        int to = limit > 0 ? Math.min(rows.size(), from + limit) : rows.size();
 
-        // Rendering table name
-        tableOutput.append(name).append("\n");
-        // Rendering header row top border
-        tableOutput.append("-".repeat(headerSize)).append("\n");
+        // Formatting every cell exactly once, column sizes are detected along the way
+        ColumnConfig[] columns = columnsSettings.toArray(new ColumnConfig[0]);
+        int[] sizes = new int[columns.length];
+        String[][] cells = new String[to - from][columns.length];
 
-        // Rendering header row with data
-        tableOutput.append(headerRow).append("\n");
+        for(int col = 0; col < columns.length; col++){
+            int maxLength = columns[col].getName().length();
+            Function<BenchmarkUnitResult, ?> function = columns[col].getFunction();
 
-        // Rendering header row bottom border
-        tableOutput.append("-".repeat(headerSize)).append("\n");
+            for(int row = from; row < to; row++){
+                String cell = String.valueOf(function.apply(rows.get(row)));
+                cells[row - from][col] = cell;
+                maxLength = Math.max(maxLength, cell.length());
+            }
 
-        // Grouping data by method
-        if(shouldBeGrouped) {
-            this.data = this.data
-                    .stream()
-                    .collect(Collectors.groupingBy(BenchmarkUnitResult::getOriginMethod))
-                    .values()
-                    .parallelStream()
-                    .map(x -> x.stream().collect(new UnitGroupCollector()))
-                    .collect(Collectors.toList());
+            sizes[col] = maxLength + 1;
+            columns[col].setSize(sizes[col]);
         }
 
-        // Rendering table body
-        tableOutput
-                .append(
-                        data
-                                .stream()
-                                .sorted(
-                                        ((Comparator<BenchmarkUnitResult>) (o1, o2) -> {
-                                            if (o1.getOrder() != null && o2.getOrder() != null) {
-                                                return o1.getOrder() - o2.getOrder();
-                                            } else {
-                                                return 0;
-                                            }
-                                        })
-                                        .thenComparing(orderBy)
-                                )
-                                .map(
-                                        benchmarkResult -> {
-                                            StringJoiner joiner = new StringJoiner("| ");
+        int rowWidth = Arrays.stream(sizes).sum() + CELLS_DELIMITER.length() * Math.max(0, columns.length - 1);
+        String border = "-".repeat(rowWidth);
+        String padding = " ".repeat(Arrays.stream(sizes).max().orElse(0));
+
+        if(out instanceof StringBuilder builder)
+            builder.ensureCapacity(builder.length() + (rowWidth + 1) * (cells.length + 5) + String.valueOf(name).length());
 
-                                            columnsSettings.forEach(columnConfig -> joiner.add(formCell(columnConfig.getFunction().apply(benchmarkResult).toString(), columnConfig.getSize())));
+        // Rendering table name and header row surrounded by borders
+        out.append(name).append('\n');
+        out.append(border).append('\n');
+        appendRow(out, columns.length, col -> columns[col].getName(), sizes, padding);
+        out.append(border).append('\n');
 
-                                            return joiner.toString();
-                                        }
-                                ).collect(Collectors.joining("\n"))
-                ).append("\n");
+        // Rendering table body
+        for(String[] rowCells : cells)
+            appendRow(out, columns.length, col -> rowCells[col], sizes, padding);
 
-        tableOutput.append("-".repeat(headerSize));
+        out.append(border);
 
-        return tableOutput.toString();
+        if(from > 0 || to < rows.size())
+            out.append('\n').append(String.format("Rows %d-%d of %d", from + 1, to, rows.size()));
     }
 
-    private void detectColumnsSizes(){
-        columnsSettings.parallelStream().forEach(columnConfig -> {
-                var calculatedValues = data.parallelStream()
-                    .map(t -> columnConfig.getFunction().apply(t).toString())
-                    .collect(Collectors.toCollection(LinkedList::new));
+    private static void appendRow(Appendable out, int columnsCount, IntFunction<String> cells, int[] sizes, String padding) throws IOException {
+        for(int col = 0; col < columnsCount; col++){
+            if(col > 0)
+                out.append(CELLS_DELIMITER);
 
-            columnConfig.setSize(getMaxColumnLength(columnConfig.getName(), calculatedValues));
-        });
-    }
-    private static <T> int getMaxColumnLength(String placeholder, List<T> data){
-        return Math.max(placeholder.length(), data
-                .parallelStream()
-                .mapToInt(x -> x.toString().length())
-                .max().getAsInt())  + 1;
+            String cell = cells.apply(col);
+            out.append(cell).append(padding, 0, Math.max(0, sizes[col] - cell.length()));
+        }
+
+        out.append('\n');
     }
 
-    private static String formCell(String value, int size){
-        return value + " ".repeat(size - value.length());
+    /**
+     * Rows in rendering order. Grouping is done on a copy, so table data is never modified by rendering.
+     */
+    private List<BenchmarkUnitResult> orderedRows(){
+        List<BenchmarkUnitResult> rows;
+
+        // Grouping data by method
+        if(shouldBeGrouped) {
+            rows = data
+                    .parallelStream()
+                    .collect(Collectors.groupingBy(BenchmarkUnitResult::getOriginMethod, LinkedHashMap::new, new UnitGroupCollector()))
+                    .values()
+                    .stream()
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }else{
+            rows = new ArrayList<>(data);
+        }
+
+        // Order annotation is looked up once per unit method, not on every comparison
+        Map<Method, Optional<Integer>> orders = new HashMap<>();
+        Function<BenchmarkUnitResult, Integer> orderOf = res -> res.getOriginMethod() == null
+                ? null
+                : orders.computeIfAbsent(res.getOriginMethod(), method -> Optional.ofNullable(res.getOrder())).orElse(null);
+
+        rows.sort(
+                ((Comparator<BenchmarkUnitResult>) (o1, o2) -> {
+                    Integer order1 = orderOf.apply(o1), order2 = orderOf.apply(o2);
+
+                    if (order1 != null && order2 != null) {
+                        return order1 - order2;
+                    } else {
+                        return 0;
+                    }
+                })
+                .thenComparing(BenchmarkUnitResult::isFailed) // failed units go after measured ones
+                .thenComparing(orderBy)
+        );
+
+        return rows;
     }
 
     private static String capitalize(String incoming){
@@ -157,7 +203,26 @@ public class Table {
     }
 
     public void setOrderBy(Comparator<BenchmarkUnitResult> comparator){
-        this.orderBy = Objects.requireNonNullElseGet(comparator, () -> (o1, o2) -> (int) (o1.getTime().getTicks() - o2.getTime().getTicks()));
+        this.orderBy = Objects.requireNonNullElseGet(comparator, () -> (o1, o2) -> Double.compare(o1.getTime().getExactNanos(), o2.getTime().getExactNanos()));
+    }
+
+    /**
+     * Renders only top N rows (after ordering), 0 - all rows.
+     */
+    public void setLimit(int limit){
+        this.limit = Math.max(0, limit);
+    }
+
+    public void setOffset(int offset){
+        this.offset = Math.max(0, offset);
+    }
+
+    /**
+     * Renders only the given page (counting from 0) of ordered rows.
+     */
+    public void setPage(int page, int pageSize){
+        setOffset(page * pageSize);
+        setLimit(pageSize);
     }
 
     @Data
@@ -183,31 +248,23 @@ public class Table {
 
         @Override
         public BiConsumer<BenchmarkGroupResult, BenchmarkUnitResult> accumulator() {
-            return (group, unitResult) -> {
-                if (group.getOriginMethod() == null)
-                    group.setOriginMethod(unitResult.getOriginMethod());
-
-                if (group.getName() == null)
-                    group.setName(unitResult.getName());
-
-                group.addUnit(unitResult);
-                group.setNanos(group.getTime().getNanos() + unitResult.getTime().getNanos());
-            };
+            return BenchmarkGroupResult::addUnit;
         }
 
         @Override
         public BinaryOperator<BenchmarkGroupResult> combiner() {
-            return null;
+            // Partial groups of parallel streams are merged in encounter order, aggregates are computed only once at the end
+            return BenchmarkGroupResult::merge;
         }
 
         @Override
         public Function<BenchmarkGroupResult, BenchmarkGroupResult> finisher() {
-            return x -> x;
+            return BenchmarkGroupResult::summarize;
         }
 
         @Override
         public Set<Characteristics> characteristics() {
-            return Set.of(Characteristics.UNORDERED);
+            return Set.of();
         }
     }
 }
@@ -0,0 +1,45 @@
+package com.github.DiachenkoMD.lightrun;
+
+import lombok.Data;
+
+import java.util.Arrays;
+
+@Data
+public class ThroughputResult {
+    private int threads;
+    private long operations;
+    // Operations per second of every thread in every run (fork)
+    private double[] threadOpsPerSecond;
+    private int runs = 1;
+
+    /**
+     * Aggregate throughput: sum of threads throughput, averaged across runs.
+     */
+    public double getOpsPerSecond(){
+        return Arrays.stream(threadOpsPerSecond).sum() / runs;
+    }
+
+    public double getOpsPerSecondPerThread(){
+        return threadOpsPerSecond.length > 0 ? Arrays.stream(threadOpsPerSecond).sum() / threadOpsPerSecond.length : 0;
+    }
+
+    /**
+     * Merges throughput of the next fork into this one. Aggregate throughput becomes the average of forks.
+     */
+    public void merge(ThroughputResult other){
+        double[] merged = Arrays.copyOf(threadOpsPerSecond, threadOpsPerSecond.length + other.getThreadOpsPerSecond().length);
+        System.arraycopy(other.getThreadOpsPerSecond(), 0, merged, threadOpsPerSecond.length, other.getThreadOpsPerSecond().length);
+
+        threadOpsPerSecond = merged;
+        operations += other.getOperations();
+        runs += other.getRuns();
+    }
+
+    @Override
+    public String toString() {
+        return "{threads=" + threads +
+                ", operations=" + operations +
+                ", opsPerSecond=" + getOpsPerSecond() +
+                ", threadOpsPerSecond=" + Arrays.toString(threadOpsPerSecond) + "}";
+    }
+}
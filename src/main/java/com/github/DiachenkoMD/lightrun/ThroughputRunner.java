@@ -0,0 +1,231 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Profile;
+import com.github.DiachenkoMD.lightrun.annotations.Throughput;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Measures unit throughput under concurrent invocation from several threads.
+ */
+class ThroughputRunner {
+    // Upper bound of latency samples kept per run, spread evenly across threads (reservoir sampling)
+    private static final int MAX_LATENCY_SAMPLES = 100_000;
+    private static volatile boolean isVirtualFallbackReported = false;
+
+    /**
+     * Method-level {@link Throughput} overrides the one placed on benchmark class.
+     */
+    static Throughput resolve(Method unitMethod){
+        Throughput anno = unitMethod.getAnnotation(Throughput.class);
+
+        if(anno == null)
+            anno = unitMethod.getDeclaringClass().getAnnotation(Throughput.class);
+
+        return anno;
+    }
+
+    static void measure(BenchmarkUnitResult unitRes, Method method, BenchmarkState<?> state, Object benchmarkClass, Object[] methodArgs, Throughput anno, MeasurementSettings settings, WarmupSettings warmupSettings) throws Throwable {
+        int threadsCount = Math.max(1, anno.threads());
+        // Calibrated batch is picked single-threaded, on the passed instance
+        int batchSize = settings.isAutoBatch()
+                ? settings.batchSizeFor(state.invoker(method, benchmarkClass, methodArgs), UnitClock.mode(method))
+                : settings.getBatchSize();
+        int opsPerInvocation = settings.getOperationsPerInvocation();
+        long durationNanos = anno.timeUnit().toNanos(anno.time());
+        double overhead = UnitInvoker.overheadNanos(state.timedBatchSize(batchSize), UnitClock.mode(method));
+        int reservoirSize = Math.max(1, MAX_LATENCY_SAMPLES / threadsCount);
+
+        ThreadFactory threadFactory = threadFactory(anno.virtual());
+
+        double[] samples = new double[0];
+        WarmupResult warmup = null;
+        ThroughputResult throughput = null;
+        AllocationResult allocation = new AllocationResult();
+        // Unlike reservoir samples, histogram counts every measured batch, so tail latencies are never lost
+        LatencyHistogram histogram = new LatencyHistogram();
+        Profile profileAnno = UnitProfiler.resolve(method);
+        ProfileResult profile = null;
+
+        for(int fork = 0; fork < settings.getForks(); fork++){
+            // First fork is measured on the passed instance, the following ones - on fresh (prepared) instances
+            Object forkInstance = fork == 0 ? benchmarkClass : state.newInstance();
+
+            // Linking invokers beforehand, so threads only warm up and measure
+            Object[] instances = new Object[threadsCount];
+            UnitInvoker[] invokers = new UnitInvoker[threadsCount];
+            for(int i = 0; i < threadsCount; i++){
+                instances[i] = anno.scope() == Throughput.Scope.SHARED || i == 0
+                        ? forkInstance
+                        : state.newInstance();
+
+                invokers[i] = state.invoker(method, instances[i], methodArgs);
+            }
+
+            Phaser startPhaser = new Phaser(threadsCount);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+
+            double[][] reservoirs = new double[threadsCount][reservoirSize];
+            long[] recorded = new long[threadsCount];
+            long[] operations = new long[threadsCount];
+            double[] threadOpsPerSecond = new double[threadsCount];
+            WarmupResult[] warmups = new WarmupResult[threadsCount];
+            AllocationResult[] allocations = new AllocationResult[threadsCount];
+            LatencyHistogram[] histograms = new LatencyHistogram[threadsCount];
+            for(int i = 0; i < threadsCount; i++)
+                histograms[i] = new LatencyHistogram();
+
+            Thread[] threads = new Thread[threadsCount];
+
+            for(int i = 0; i < threadsCount; i++){
+                int threadIndex = i;
+
+                threads[i] = threadFactory.newThread(() -> {
+                    boolean isLinedUp = false;
+
+                    try {
+                        UnitInvoker invoker = invokers[threadIndex];
+                        warmups[threadIndex] = WarmupResult.warmup(invoker, warmupSettings, batchSize);
+
+                        // Lining all threads up before measurement
+                        isLinedUp = true;
+                        startPhaser.arriveAndAwaitAdvance();
+
+                        // Some thread failed before measurement, the run is failed anyway
+                        if(failure.get() != null)
+                            return;
+
+                        AllocationResult threadAllocation = new AllocationResult();
+                        double[] reservoir = reservoirs[threadIndex];
+                        LatencyHistogram threadHistogram = histograms[threadIndex];
+                        long seen = 0, ops = 0;
+                        long startTime = System.nanoTime();
+                        long deadline = startTime + durationNanos;
+                        long now = startTime;
+
+                        // At least one batch is measured even with zero duration
+                        do {
+                            long endTime = invoker.measure(batchSize);
+                            threadAllocation.addAllocated(invoker.lastAllocatedBytes(), (long) batchSize * opsPerInvocation);
+
+                            double latency = Math.max(0, (double) endTime / batchSize - overhead) / opsPerInvocation;
+                            ops += (long) batchSize * opsPerInvocation;
+                            threadHistogram.record(Math.round(latency));
+
+                            if(seen < reservoir.length){
+                                reservoir[(int) seen] = latency;
+                            }else{
+                                long slot = ThreadLocalRandom.current().nextLong(seen + 1);
+                                if(slot < reservoir.length)
+                                    reservoir[(int) slot] = latency;
+                            }
+                            ++seen;
+
+                            now = System.nanoTime();
+                        } while(now < deadline);
+
+                        recorded[threadIndex] = Math.min(seen, reservoir.length);
+                        operations[threadIndex] = ops;
+                        allocations[threadIndex] = threadAllocation;
+                        threadOpsPerSecond[threadIndex] = ops * 1e9 / Math.max(1, now - startTime);
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+
+                        // Thread, which failed before lining up, leaves the phaser, so the rest don't wait for it
+                        if(!isLinedUp)
+                            startPhaser.arriveAndDeregister();
+                    }
+                });
+            }
+
+            // GC counters are JVM-wide, so they are taken around the whole run (warmup of threads included)
+            long gcCountBefore = AllocationProfiler.gcCount();
+            long gcTimeBefore = AllocationProfiler.gcTimeMillis();
+
+            // Threads are profiled for the whole run, as their measurement windows are not aligned with the caller
+            UnitProfiler profiler = UnitProfiler.start(profileAnno, threads);
+
+            for(Thread thread : threads)
+                thread.start();
+            for(Thread thread : threads)
+                thread.join();
+
+            if(profiler != null){
+                ProfileResult forkProfile = profiler.stop();
+
+                if(profile == null)
+                    profile = forkProfile;
+                else
+                    profile.merge(forkProfile);
+            }
+
+            allocation.addGc(gcCountBefore, gcTimeBefore);
+
+            // Tearing down every instance created for this fork (thread-scoped ones included)
+            for(int i = 0; i < threadsCount; i++)
+                if(instances[i] != benchmarkClass && (i == 0 || instances[i] != forkInstance))
+                    state.release(instances[i]);
+
+            if(failure.get() != null)
+                throw failure.get();
+
+            // Collecting latency samples, warmup and throughput of all threads
+            for(int i = 0; i < threadsCount; i++){
+                int offset = samples.length;
+                samples = Arrays.copyOf(samples, offset + (int) recorded[i]);
+                System.arraycopy(reservoirs[i], 0, samples, offset, (int) recorded[i]);
+
+                if(warmup == null)
+                    warmup = warmups[i];
+                else
+                    warmup.merge(warmups[i]);
+
+                allocation.merge(allocations[i]);
+                histogram.merge(histograms[i]);
+            }
+
+            ThroughputResult forkThroughput = new ThroughputResult();
+            forkThroughput.setThreads(threadsCount);
+            forkThroughput.setOperations(Arrays.stream(operations).sum());
+            forkThroughput.setThreadOpsPerSecond(threadOpsPerSecond);
+
+            if(throughput == null)
+                throughput = forkThroughput;
+            else
+                throughput.merge(forkThroughput);
+
+            unitRes.setResult(invokers[0].lastResult());
+        }
+
+        unitRes.setSamples(samples);
+        unitRes.setBatchSize(batchSize);
+        unitRes.setOverheadNanos(overhead);
+        unitRes.setWarmup(warmup);
+        unitRes.setThroughput(throughput);
+        unitRes.setHistogram(histogram);
+        unitRes.setProfile(profile);
+        unitRes.setAllocation(allocation);
+    }
+
+    static ThreadFactory threadFactory(boolean isVirtual){
+        if(isVirtual){
+            // Virtual threads are looked up reflectively, as compilation target predates them
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                if(!isVirtualFallbackReported){
+                    isVirtualFallbackReported = true;
+                    System.out.println("Virtual threads are not supported by current JVM! Falling back to platform threads...");
+                }
+            }
+        }
+
+        return Thread::new;
+    }
+}
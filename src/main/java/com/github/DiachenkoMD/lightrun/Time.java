@@ -1,12 +1,68 @@
 package com.github.DiachenkoMD.lightrun;
 
+import com.github.DiachenkoMD.lightrun.annotations.Timer;
 import lombok.Data;
 
+import java.util.Locale;
+
 @Data
 public class Time {
     long nanos;
+    // Unrounded time, kept so sub-nanosecond per-operation times are not lost in presentation
+    double exactNanos;
+    // Clock the time was measured with and how it is presented (see Timer)
+    Timer.Mode mode = Timer.Mode.WALL;
+    Timer.Scale scale = Timer.Scale.NANOSECONDS;
+    long tickNanos = 100;
+
+    public void setNanos(long nanos){
+        setNanos((double) nanos);
+    }
+
+    public void setNanos(double nanos){
+        this.nanos = Math.round(nanos);
+        this.exactNanos = nanos;
+    }
 
     public long getTicks(){
-        return nanos / 100;
+        return (long) (exactNanos / Math.max(1, tickNanos));
+    }
+
+    /**
+     * Time in configured scale, ops/s is the reciprocal of time per invocation.
+     */
+    public double getScaled(){
+        return switch (scale){
+            case NANOSECONDS -> exactNanos;
+            case MICROSECONDS -> exactNanos / 1e3;
+            case MILLISECONDS -> exactNanos / 1e6;
+            case OPS_PER_SECOND -> exactNanos > 0 ? 1e9 / exactNanos : Double.POSITIVE_INFINITY;
+        };
+    }
+
+    public String format(){
+        return String.format(Locale.ROOT, scale == Timer.Scale.OPS_PER_SECOND ? "%.1f %s" : "%.3f %s", getScaled(), scale.getSymbol());
+    }
+
+    /**
+     * Applies clock and presentation settings, null - defaults.
+     */
+    void configure(Timer anno){
+        if(anno == null){
+            configure(Timer.Mode.WALL, Timer.Scale.NANOSECONDS, 100);
+            return;
+        }
+
+        configure(UnitClock.effective(anno.value()), anno.scale(), anno.tickNanos());
+    }
+
+    void configure(Time other){
+        configure(other.getMode(), other.getScale(), other.getTickNanos());
+    }
+
+    private void configure(Timer.Mode mode, Timer.Scale scale, long tickNanos){
+        this.mode = mode;
+        this.scale = scale;
+        this.tickNanos = Math.max(1, tickNanos);
     }
 }
@@ -0,0 +1,67 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Timer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Clocks units are timed with (see {@link Timer}). Thread CPU and user time are read from {@link ThreadMXBean}.
+ */
+class UnitClock {
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private static volatile boolean isFallbackReported = false;
+
+    /**
+     * Method-level {@link Timer} overrides the one placed on benchmark class.
+     */
+    static Timer resolve(Method unitMethod){
+        Timer anno = unitMethod.getAnnotation(Timer.class);
+
+        if(anno == null)
+            anno = unitMethod.getDeclaringClass().getAnnotation(Timer.class);
+
+        return anno;
+    }
+
+    static Timer.Mode mode(Method unitMethod){
+        Timer anno = resolve(unitMethod);
+
+        return anno != null ? effective(anno.value()) : Timer.Mode.WALL;
+    }
+
+    /**
+     * Clock actually used for the requested one: thread time modes fall back to wall clock, if JVM can't measure thread CPU time.
+     */
+    static Timer.Mode effective(Timer.Mode mode){
+        if(mode != Timer.Mode.CPU && mode != Timer.Mode.USER)
+            return mode;
+
+        try {
+            if(threadBean.isCurrentThreadCpuTimeSupported()){
+                if(!threadBean.isThreadCpuTimeEnabled())
+                    threadBean.setThreadCpuTimeEnabled(true);
+
+                return mode;
+            }
+        } catch (UnsupportedOperationException | SecurityException ignored) {
+            // Reported below as any other unsupported case
+        }
+
+        if(!isFallbackReported){
+            isFallbackReported = true;
+            System.out.println("Thread CPU time is not supported by JVM! Falling back to wall clock...");
+        }
+
+        return Timer.Mode.WALL;
+    }
+
+    static long now(Timer.Mode mode){
+        return switch (mode){
+            case CPU -> threadBean.getCurrentThreadCpuTime();
+            case USER -> threadBean.getCurrentThreadUserTime();
+            default -> System.nanoTime();
+        };
+    }
+}
@@ -0,0 +1,172 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Footprint;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Measures footprint of unit graphs (see {@link Footprint}).
+ * <br/>
+ * Graph is walked iteratively with an explicit stack and an identity set of visited objects, which takes a couple of
+ * reference slots per object, so walking a graph of millions of nodes needs neither deep call stack nor per-node wrappers.
+ * Objects reachable from not measured roots are marked first, measured roots then count only what is left.
+ */
+class UnitFootprint {
+    /**
+     * Method-level {@link Footprint} overrides the one placed on benchmark class.
+     */
+    static Footprint resolve(Method unitMethod){
+        Footprint anno = unitMethod.getAnnotation(Footprint.class);
+
+        if(anno == null)
+            anno = unitMethod.getDeclaringClass().getAnnotation(Footprint.class);
+
+        return anno;
+    }
+
+    /**
+     * Measures graphs selected by annotation on the state unit was left in. Does nothing for units without {@link Footprint}.
+     */
+    static void measure(BenchmarkUnitResult unitRes, Method method, Object benchmarkClass, Object[] methodArgs){
+        Footprint anno = resolve(method);
+
+        if(anno == null || unitRes.isFailed())
+            return;
+
+        List<Object> measured = new ArrayList<>();
+        List<Object> others = new ArrayList<>();
+
+        (anno.result() ? measured : others).add(unitRes.rawResult());
+
+        for(Object arg : methodArgs)
+            (anno.arguments() ? measured : others).add(arg);
+
+        // Benchmark instance itself is never measured, its fields are split between measured and the rest
+        Set<String> fieldNames = new HashSet<>(Arrays.asList(anno.fields()));
+        for(Class<?> clazz = benchmarkClass.getClass(); clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()){
+            for(Field field : clazz.getDeclaredFields()){
+                if(Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive())
+                    continue;
+
+                try {
+                    field.setAccessible(true);
+                    (fieldNames.remove(field.getName()) ? measured : others).add(field.get(benchmarkClass));
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    System.out.println("Unable to read field " + field.getName() + " of " + clazz.getSimpleName() + "! Skipped...");
+                }
+            }
+        }
+
+        for(String missing : fieldNames)
+            System.out.println("No field with name " + missing + " was found! Skipped...");
+
+        try {
+            unitRes.setFootprint(measure(measured, others));
+        } catch (RuntimeException e) {
+            System.out.println("Unable to measure footprint of " + unitRes.getName() + "! Exception: " + e.getMessage());
+        }
+    }
+
+    static FootprintResult measure(List<Object> measured, List<Object> others){
+        ObjectLayout layout = ObjectLayout.current();
+        IdentitySet visited = new IdentitySet();
+        ArrayDeque<Object> stack = new ArrayDeque<>();
+
+        // Marking everything alive without measured roots
+        for(Object root : others)
+            walk(root, layout, visited, stack, null);
+
+        FootprintResult footprint = new FootprintResult();
+        IdentitySet roots = new IdentitySet();
+
+        for(Object root : measured){
+            if(root != null && !isOpaque(root) && roots.add(root))
+                footprint.setShallowBytes(footprint.getShallowBytes() + layout.sizeOf(root));
+        }
+
+        for(Object root : measured)
+            walk(root, layout, visited, stack, footprint);
+
+        return footprint;
+    }
+
+    /**
+     * Visits everything reachable from root and not visited yet, counting it into footprint (if passed).
+     */
+    private static void walk(Object root, ObjectLayout layout, IdentitySet visited, ArrayDeque<Object> stack, FootprintResult footprint){
+        if(root == null || isOpaque(root) || !visited.add(root))
+            return;
+
+        stack.push(root);
+        ObjectLayout.ReferenceVisitor push = reference -> {
+            if(!isOpaque(reference) && visited.add(reference))
+                stack.push(reference);
+        };
+
+        while(!stack.isEmpty()){
+            Object obj = stack.pop();
+
+            if(footprint != null){
+                footprint.setRetainedBytes(footprint.getRetainedBytes() + layout.sizeOf(obj));
+                footprint.setRetainedObjects(footprint.getRetainedObjects() + 1);
+            }
+
+            layout.forEachReference(obj, push);
+        }
+    }
+
+    /**
+     * Objects, which belong to runtime rather than to measured graph.
+     */
+    private static boolean isOpaque(Object obj){
+        return obj instanceof Class<?> || obj instanceof ClassLoader || obj instanceof Thread || obj instanceof Module;
+    }
+
+    /**
+     * Open addressing set of references compared by identity.
+     */
+    private static final class IdentitySet {
+        private Object[] table = new Object[1024];
+        private int size;
+
+        boolean add(Object obj){
+            if(size * 2 >= table.length)
+                resize();
+
+            return insert(table, obj);
+        }
+
+        private boolean insert(Object[] target, Object obj){
+            int mask = target.length - 1;
+            // Fibonacci hashing takes high bits of the product, identity hashes are not spread well in low bits
+            int index = (System.identityHashCode(obj) * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(target.length) + 1);
+
+            while(target[index] != null){
+                if(target[index] == obj)
+                    return false;
+
+                index = (index + 1) & mask;
+            }
+
+            target[index] = obj;
+            if(target == table)
+                ++size;
+
+            return true;
+        }
+
+        private void resize(){
+            Object[] resized = new Object[table.length * 2];
+
+            for(Object obj : table){
+                if(obj != null)
+                    insert(resized, obj);
+            }
+
+            table = resized;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Timer;
+
+import java.lang.invoke.*;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-linked invoker of a single unit method bound to benchmark instance and arguments.
+ * <br/>
+ * Invoker is spun once through {@link LambdaMetafactory}, so the timed loop contains neither reflection nor
+ * arguments array: arguments are captured (and unboxed) at link time, primitive results are never boxed.
+ * Every result is passed to invoker's own {@link Blackhole}, so JIT can neither drop nor hoist unit calls.
+ */
+public abstract class UnitInvoker {
+    // Harness overhead per invocation for the given clock and batch size, calibrated lazily against an empty unit
+    private static final Map<Long, Double> overheadCache = new ConcurrentHashMap<>();
+    private static final int CALIBRATION_SAMPLES = 50;
+
+    // Consumer of every result produced inside timed loops
+    protected final Blackhole blackhole = new Blackhole();
+
+    // Bytes allocated by the last measure() call, negative - allocation is not tracked by JVM
+    protected long allocatedBytes;
+
+    // Clock timed loops are measured with, thread time clocks are read by the measuring thread itself
+    protected Timer.Mode clock = Timer.Mode.WALL;
+
+    /**
+     * Performs given amount of invocations in a tight loop and returns elapsed nanoseconds of the invoker's clock.
+     */
+    public abstract long measure(long invocations) throws Throwable;
+
+    public void setClock(Timer.Mode clock){
+        this.clock = clock;
+    }
+
+    protected final long now(){
+        return clock == Timer.Mode.WALL ? System.nanoTime() : UnitClock.now(clock);
+    }
+
+    /**
+     * Bytes allocated by the current thread during the last {@link #measure(long)} call or -1, if not supported.
+     * Probes wrap the timed region only, so callers' bookkeeping is never accounted.
+     */
+    public long lastAllocatedBytes(){
+        return allocatedBytes;
+    }
+
+    protected void trackAllocation(long allocatedBefore){
+        long allocatedAfter = AllocationProfiler.currentThreadAllocatedBytes();
+        allocatedBytes = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+    }
+
+    /**
+     * Result of the last invocation made by {@link #measure(long)}, boxed only on request.
+     */
+    public abstract Object lastResult();
+
+    public static UnitInvoker of(Method method, Object benchmarkClass, Object... methodArgs) throws Throwable {
+        Class<?> returnType = method.getReturnType();
+
+        // Blackhole parameters are filled by harness, the rest - by passed arguments
+        methodArgs = Blackhole.inject(method, methodArgs);
+
+        if(returnType == void.class) return new VoidInvoker(link(method, VoidUnit.class, void.class, benchmarkClass, methodArgs));
+        if(returnType == boolean.class) return new BooleanInvoker(link(method, BooleanUnit.class, boolean.class, benchmarkClass, methodArgs));
+        if(returnType == long.class) return new LongInvoker(link(method, LongUnit.class, long.class, benchmarkClass, methodArgs));
+        if(returnType == double.class || returnType == float.class) return new DoubleInvoker(link(method, DoubleUnit.class, double.class, benchmarkClass, methodArgs), returnType == float.class);
+        if(returnType.isPrimitive()) return new IntInvoker(link(method, IntUnit.class, int.class, benchmarkClass, methodArgs), returnType); // byte, short, char, int
+
+        return new ObjectInvoker(link(method, ObjectUnit.class, Object.class, benchmarkClass, methodArgs));
+    }
+
+    // Invokers of units called directly by runners generated at compile time (see GeneratedRunner)
+
+    public static UnitInvoker ofVoid(VoidUnit unit){
+        return new VoidInvoker(unit);
+    }
+
+    public static UnitInvoker ofBoolean(BooleanUnit unit){
+        return new BooleanInvoker(unit);
+    }
+
+    /**
+     * @param returnType byte, short, char or int, so the last result is restored with its original type
+     */
+    public static UnitInvoker ofInt(IntUnit unit, Class<?> returnType){
+        return new IntInvoker(unit, returnType);
+    }
+
+    public static UnitInvoker ofLong(LongUnit unit){
+        return new LongInvoker(unit);
+    }
+
+    public static UnitInvoker ofDouble(DoubleUnit unit, boolean isFloat){
+        return new DoubleInvoker(unit, isFloat);
+    }
+
+    public static UnitInvoker ofObject(ObjectUnit unit){
+        return new ObjectInvoker(unit);
+    }
+
+    /**
+     * Harness cost of one invocation (loop, call and timer amortized over the batch) measured on an empty unit.
+     */
+    public static double overheadNanos(int batchSize){
+        return overheadNanos(batchSize, Timer.Mode.WALL);
+    }
+
+    /**
+     * Harness cost measured with the given clock: reading thread CPU time costs far more than reading wall clock.
+     */
+    public static double overheadNanos(int batchSize, Timer.Mode clock){
+        return overheadCache.computeIfAbsent(((long) clock.ordinal() << 32) | batchSize, key -> calibrate(batchSize, clock));
+    }
+
+    private static double calibrate(int batchSize, Timer.Mode clock){
+        try {
+            UnitInvoker empty = of(UnitInvoker.class.getDeclaredMethod("emptyUnit"), null);
+            empty.setClock(clock);
+
+            // Letting JIT compile the loop with the same batch size before taking calibration samples
+            int warmupBatches = (int) Math.min(10_000, Math.max(50, 500_000L / batchSize));
+            for(int i = 0; i < warmupBatches; i++)
+                empty.measure(batchSize);
+
+            double[] samples = new double[CALIBRATION_SAMPLES];
+            for(int i = 0; i < samples.length; i++)
+                samples[i] = (double) empty.measure(batchSize) / batchSize;
+
+            Arrays.sort(samples);
+            return Statistics.percentile(samples, 0.5);
+        } catch (Throwable e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    private static void emptyUnit(){}
+
+    @SuppressWarnings("unchecked")
+    private static <U> U link(Method method, Class<U> unitType, Class<?> samReturnType, Object benchmarkClass, Object[] methodArgs) throws Throwable {
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+        MethodHandle impl = lookup.unreflect(method);
+
+        // Everything unit needs is captured by the lambda: receiver (if any) and arguments
+        List<Object> captured = new ArrayList<>();
+        if(!isStatic)
+            captured.add(benchmarkClass);
+        captured.addAll(Arrays.asList(methodArgs));
+
+        MethodType samType = MethodType.methodType(samReturnType);
+        MethodType factoryType = impl.type().changeReturnType(unitType);
+
+        CallSite site = LambdaMetafactory.metafactory(lookup, "run", factoryType, samType, impl, samType);
+
+        return (U) site.getTarget().invokeWithArguments(captured);
+    }
+
+    public interface VoidUnit { void run() throws Throwable; }
+    public interface BooleanUnit { boolean run() throws Throwable; }
+    public interface IntUnit { int run() throws Throwable; }
+    public interface LongUnit { long run() throws Throwable; }
+    public interface DoubleUnit { double run() throws Throwable; }
+    public interface ObjectUnit { Object run() throws Throwable; }
+
+    private static final class VoidInvoker extends UnitInvoker {
+        private final VoidUnit unit;
+
+        VoidInvoker(VoidUnit unit){ this.unit = unit; }
+
+        @Override
+        public long measure(long invocations) throws Throwable {
+            long allocatedBefore = AllocationProfiler.currentThreadAllocatedBytes();
+            long startTime = now();
+            for(long i = 0; i < invocations; i++)
+                unit.run();
+            long endTime = now() - startTime;
+            trackAllocation(allocatedBefore);
+            return endTime;
+        }
+
+        @Override
+        public Object lastResult() {
+            return null;
+        }
+    }
+
+    private static final class BooleanInvoker extends UnitInvoker {
+        private final BooleanUnit unit;
+        private boolean last;
+
+        BooleanInvoker(BooleanUnit unit){ this.unit = unit; }
+
+        @Override
+        public long measure(long invocations) throws Throwable {
+            boolean res = false;
+            long allocatedBefore = AllocationProfiler.currentThreadAllocatedBytes();
+            long startTime = now();
+            for(long i = 0; i < invocations; i++){
+                res = unit.run();
+                blackhole.consume(res);
+            }
+            long endTime = now() - startTime;
+            trackAllocation(allocatedBefore);
+            last = res;
+            return endTime;
+        }
+
+        @Override
+        public Object lastResult() {
+            return last;
+        }
+    }
+
+    private static final class IntInvoker extends UnitInvoker {
+        private final IntUnit unit;
+        private final Class<?> returnType;
+        private int last;
+
+        IntInvoker(IntUnit unit, Class<?> returnType){
+            this.unit = unit;
+            this.returnType = returnType;
+        }
+
+        @Override
+        public long measure(long invocations) throws Throwable {
+            int res = 0;
+            long allocatedBefore = AllocationProfiler.currentThreadAllocatedBytes();
+            long startTime = now();
+            for(long i = 0; i < invocations; i++){
+                res = unit.run();
+                blackhole.consume(res);
+            }
+            long endTime = now() - startTime;
+            trackAllocation(allocatedBefore);
+            last = res;
+            return endTime;
+        }
+
+        @Override
+        public Object lastResult() {
+            // Restoring original narrow type of the unit result
+            if(returnType == byte.class) return (byte) last;
+            if(returnType == short.class) return (short) last;
+            if(returnType == char.class) return (char) last;
+
+            return last;
+        }
+    }
+
+    private static final class LongInvoker extends UnitInvoker {
+        private final LongUnit unit;
+        private long last;
+
+        LongInvoker(LongUnit unit){ this.unit = unit; }
+
+        @Override
+        public long measure(long invocations) throws Throwable {
+            long res = 0;
+            long allocatedBefore = AllocationProfiler.currentThreadAllocatedBytes();
+            long startTime = now();
+            for(long i = 0; i < invocations; i++){
+                res = unit.run();
+                blackhole.consume(res);
+            }
+            long endTime = now() - startTime;
+            trackAllocation(allocatedBefore);
+            last = res;
+            return endTime;
+        }
+
+        @Override
+        public Object lastResult() {
+            return last;
+        }
+    }
+
+    private static final class DoubleInvoker extends UnitInvoker {
+        private final DoubleUnit unit;
+        private final boolean isFloat;
+        private double last;
+
+        DoubleInvoker(DoubleUnit unit, boolean isFloat){
+            this.unit = unit;
+            this.isFloat = isFloat;
+        }
+
+        @Override
+        public long measure(long invocations) throws Throwable {
+            double res = 0;
+            long allocatedBefore = AllocationProfiler.currentThreadAllocatedBytes();
+            long startTime = now();
+            for(long i = 0; i < invocations; i++){
+                res = unit.run();
+                blackhole.consume(res);
+            }
+            long endTime = now() - startTime;
+            trackAllocation(allocatedBefore);
+            last = res;
+            return endTime;
+        }
+
+        @Override
+        public Object lastResult() {
+            return isFloat ? (Object) (float) last : (Object) last;
+        }
+    }
+
+    private static final class ObjectInvoker extends UnitInvoker {
+        private final ObjectUnit unit;
+        private Object last;
+
+        ObjectInvoker(ObjectUnit unit){ this.unit = unit; }
+
+        @Override
+        public long measure(long invocations) throws Throwable {
+            Object res = null;
+            long allocatedBefore = AllocationProfiler.currentThreadAllocatedBytes();
+            long startTime = now();
+            for(long i = 0; i < invocations; i++){
+                res = unit.run();
+                blackhole.consume(res);
+            }
+            long endTime = now() - startTime;
+            trackAllocation(allocatedBefore);
+            last = res;
+            return endTime;
+        }
+
+        @Override
+        public Object lastResult() {
+            return last;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Profile;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Profiles measurement window of a single unit (one fork) with either a sampler thread or a JFR recording.
+ * <br/>
+ * Profiler is started right before the timed loop and stopped right after it, so warmup and harness bookkeeping
+ * around measurement stay out of profiles.
+ */
+class UnitProfiler {
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private final Profile anno;
+    private final Set<Long> threadIds;
+    private final ProfileResult result = new ProfileResult();
+
+    private Thread sampler;
+    private volatile boolean isRunning;
+    private Recording recording;
+    private long windowStart;
+
+    private UnitProfiler(Profile anno, Set<Long> threadIds){
+        this.anno = anno;
+        this.threadIds = threadIds;
+
+        result.setMode(anno.value());
+        result.setIntervalMillis(Math.max(1, anno.intervalMillis()));
+    }
+
+    /**
+     * Method-level {@link Profile} overrides the one placed on benchmark class.
+     */
+    static Profile resolve(Method unitMethod){
+        Profile anno = unitMethod.getAnnotation(Profile.class);
+
+        if(anno == null)
+            anno = unitMethod.getDeclaringClass().getAnnotation(Profile.class);
+
+        return anno;
+    }
+
+    /**
+     * @return started profiler of the given threads or null, if profiling is not requested
+     */
+    static UnitProfiler start(Profile anno, Thread... threads){
+        if(anno == null)
+            return null;
+
+        Set<Long> threadIds = new HashSet<>();
+        for(Thread thread : threads)
+            threadIds.add(thread.getId());
+
+        UnitProfiler profiler = new UnitProfiler(anno, threadIds);
+
+        if(anno.value() == Profile.Mode.JFR)
+            profiler.startRecording();
+        else
+            profiler.startSampler();
+
+        profiler.windowStart = System.nanoTime();
+
+        return profiler;
+    }
+
+    private void startSampler(){
+        long[] ids = threadIds.stream().mapToLong(Long::longValue).toArray();
+        long intervalNanos = Duration.ofMillis(result.getIntervalMillis()).toNanos();
+        // Sampler CPU time is its own cost, wall time would also count waiting for a CPU and target threads reaching safepoint
+        boolean isCpuTimeSupported = threadBean.isCurrentThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled();
+        isRunning = true;
+
+        sampler = new Thread(() -> {
+            while(isRunning){
+                long sampleStart = System.nanoTime();
+                long cpuStart = isCpuTimeSupported ? threadBean.getCurrentThreadCpuTime() : sampleStart;
+
+                ThreadInfo[] infos = threadBean.getThreadInfo(ids, anno.maxDepth());
+
+                long cpuEnd = isCpuTimeSupported ? threadBean.getCurrentThreadCpuTime() : System.nanoTime();
+                result.setSamplerNanos(result.getSamplerNanos() + cpuEnd - cpuStart);
+
+                for(ThreadInfo info : infos){
+                    // Thread could have already finished (or be virtual, which bean doesn't report)
+                    if(info == null || info.getStackTrace().length == 0)
+                        continue;
+
+                    StackTraceElement[] frames = info.getStackTrace();
+                    StringJoiner stack = new StringJoiner(";");
+                    for(int i = frames.length - 1; i >= 0; i--)
+                        stack.add(frames[i].getClassName() + "." + frames[i].getMethodName());
+
+                    result.getStacks().merge(stack.toString(), 1L, Long::sum);
+                    result.setSamples(result.getSamples() + 1);
+                }
+
+                long sleepNanos = intervalNanos - (System.nanoTime() - sampleStart);
+                if(sleepNanos > 0){
+                    try {
+                        Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }, "lightrun-sampler");
+
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    private void startRecording(){
+        recording = new Recording();
+        recording.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(result.getIntervalMillis())).withStackTrace();
+        recording.start();
+    }
+
+    ProfileResult stop(){
+        result.setWindowNanos(System.nanoTime() - windowStart);
+
+        if(recording != null){
+            recording.stop();
+            collectRecording();
+            recording.close();
+        }else{
+            isRunning = false;
+            sampler.interrupt();
+
+            try {
+                sampler.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Mean time per invocation of a short unprofiled run, measured right after profiled window to estimate profiler impact.
+     */
+    static double measureControl(UnitInvoker invoker, int batchSize, double overhead, int batches) throws Throwable {
+        double sum = 0;
+        int count = Math.max(1, batches);
+
+        for(int i = 0; i < count; i++)
+            sum += Math.max(0, (double) invoker.measure(batchSize) / batchSize - overhead);
+
+        return sum / count;
+    }
+
+    private void collectRecording(){
+        Path dump = null;
+
+        try {
+            dump = Files.createTempFile("lightrun-", ".jfr");
+            recording.dump(dump);
+
+            for(RecordedEvent event : RecordingFile.readAllEvents(dump)){
+                RecordedThread thread = event.getThread("sampledThread");
+                RecordedStackTrace trace = event.getStackTrace();
+
+                if(thread == null || trace == null || !threadIds.contains(thread.getJavaThreadId()))
+                    continue;
+
+                List<RecordedFrame> frames = trace.getFrames();
+                StringJoiner stack = new StringJoiner(";");
+                for(int i = Math.min(frames.size(), anno.maxDepth()) - 1; i >= 0; i--)
+                    stack.add(frames.get(i).getMethod().getType().getName() + "." + frames.get(i).getMethod().getName());
+
+                result.getStacks().merge(stack.toString(), 1L, Long::sum);
+                result.setSamples(result.getSamples() + 1);
+            }
+        } catch (IOException e) {
+            System.out.println("Unable to read JFR recording! Exception: " + e.getMessage());
+        } finally {
+            if(dump != null)
+                dump.toFile().delete();
+        }
+    }
+}
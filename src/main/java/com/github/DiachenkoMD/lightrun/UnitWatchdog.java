@@ -0,0 +1,126 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Timeout;
+import com.github.DiachenkoMD.lightrun.annotations.Unit;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Supervises units limited with {@link Timeout} and turns whatever unit measurement ended with into result status.
+ * <br/>
+ * Supervised measurement runs on its own thread, caller waits for it up to the timeout and interrupts it afterwards.
+ * Thread, which ignored interruption for the grace period, can't be stopped in-process: it's abandoned in the caller's
+ * JVM, while child JVM is halted by {@link ForkedRunner} once the timeout result is passed to the parent.
+ */
+class UnitWatchdog {
+    private static volatile boolean hasRunaway = false;
+
+    /**
+     * Method-level {@link Timeout} overrides the one placed on benchmark class.
+     */
+    static Timeout resolve(Method unitMethod){
+        Timeout anno = unitMethod.getAnnotation(Timeout.class);
+
+        if(anno == null)
+            anno = unitMethod.getDeclaringClass().getAnnotation(Timeout.class);
+
+        return anno;
+    }
+
+    static boolean isForked(Method unitMethod){
+        Timeout anno = resolve(unitMethod);
+
+        return anno != null && anno.fork();
+    }
+
+    /**
+     * Whether some supervised unit is still running after its timeout and grace period.
+     */
+    static boolean hasRunaway(){
+        return hasRunaway;
+    }
+
+    static void checkInterrupted() throws InterruptedException {
+        if(Thread.interrupted())
+            throw new InterruptedException("Unit measurement is interrupted");
+    }
+
+    static BenchmarkUnitResult supervise(Method unitMethod, Timeout anno, Measurement measurement) throws Throwable {
+        FutureTask<BenchmarkUnitResult> task = new FutureTask<>(() -> {
+            try {
+                return measurement.run();
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ExecutionException(e);
+            }
+        });
+
+        Thread worker = new Thread(task, "lightrun-unit-" + unitMethod.getName());
+        worker.setDaemon(true);
+        worker.start();
+
+        try {
+            return task.get(anno.value(), anno.timeUnit());
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            task.cancel(true);
+            worker.join(anno.grace());
+
+            if(worker.isAlive()){
+                hasRunaway = true;
+
+                if(!ForkedRunner.isForkedChild())
+                    System.out.println("Unit " + unitMethod.getName() + " ignores interruption! Abandoned, its thread keeps running (consider @Timeout(fork = true))...");
+            }
+
+            throw new TimeoutException("Unit exceeded " + anno.value() + " " + anno.timeUnit().name().toLowerCase());
+        } catch (InterruptedException e) {
+            // Caller itself is interrupted, so is the unit
+            task.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Result of unit, which wasn't measured because of the passed exception.
+     */
+    static BenchmarkUnitResult failed(Method unitMethod, Throwable cause){
+        while((cause instanceof InvocationTargetException || cause instanceof ExecutionException) && cause.getCause() != null)
+            cause = cause.getCause();
+
+        BenchmarkUnitResult.Status status;
+
+        if(cause instanceof TimeoutException)
+            status = BenchmarkUnitResult.Status.TIMEOUT;
+        else if(cause instanceof OutOfMemoryError)
+            status = BenchmarkUnitResult.Status.OUT_OF_MEMORY;
+        else
+            status = BenchmarkUnitResult.Status.FAILED;
+
+        return failed(unitMethod, status, cause.getClass().getName() + (cause.getMessage() != null ? ": " + cause.getMessage() : ""));
+    }
+
+    static BenchmarkUnitResult failed(Method unitMethod, BenchmarkUnitResult.Status status, String failure){
+        BenchmarkUnitResult res = new BenchmarkUnitResult();
+
+        res.setName(unitMethod.getDeclaredAnnotation(Unit.class).value());
+        res.setUnitMethodReturnType(unitMethod.getReturnType());
+        res.setOriginMethod(unitMethod);
+        res.setStatus(status);
+        res.setFailure(failure);
+        res.setNanos(0);
+        res.getTime().configure(UnitClock.resolve(unitMethod));
+
+        return res;
+    }
+
+    interface Measurement {
+        BenchmarkUnitResult run() throws Throwable;
+    }
+}
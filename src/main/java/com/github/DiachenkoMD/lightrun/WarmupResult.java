@@ -0,0 +1,106 @@
+package com.github.DiachenkoMD.lightrun;
+
+import lombok.Data;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+
+@Data
+public class WarmupResult {
+    private long nanos;
+    private int iterations;
+    private boolean steadyState;
+
+    /**
+     * Warms invoker up according to settings. Steady state is evaluated for fixed warmups too, so results show
+     * whether measurement started on a stable unit.
+     */
+    public static WarmupResult warmup(UnitInvoker invoker, WarmupSettings settings, int batchSize) throws Throwable {
+        return warmup(settings, () -> (double) invoker.measure(batchSize) / batchSize);
+    }
+
+    /**
+     * Warms up by running batches until settings are satisfied, for units not measured by a single invoker.
+     */
+    static WarmupResult warmup(WarmupSettings settings, Batch batch) throws Throwable {
+        CompilationMXBean compilationBean = ManagementFactory.getCompilationMXBean();
+        boolean isJitMonitored = compilationBean != null && compilationBean.isCompilationTimeMonitoringSupported();
+
+        int window = settings.getWindow();
+        double[] recent = new double[window];
+        long lastCompilationTime = isJitMonitored ? compilationBean.getTotalCompilationTime() : 0;
+
+        WarmupResult res = new WarmupResult();
+        long warmupStart = System.nanoTime();
+        long lastCompilationChange = warmupStart;
+        int iteration = 0;
+
+        while(true){
+            long elapsed = System.nanoTime() - warmupStart;
+            boolean isFixedPartDone = !settings.hasNextIteration(iteration, elapsed);
+
+            if(isFixedPartDone && (!settings.isAdaptive() || res.isSteadyState()))
+                break;
+
+            // Adaptive warmup is capped (whatever its fixed part is) to not spin forever on inherently noisy units
+            if(settings.isAdaptive() && iteration > 0 && settings.getMaxTimeNanos() > 0 && elapsed >= settings.getMaxTimeNanos())
+                break;
+
+            UnitWatchdog.checkInterrupted();
+
+            recent[iteration % window] = batch.run();
+            ++iteration;
+
+            // Tracking JIT activity: compiler is considered quiet when total compilation time is unchanged for the quiet time
+            // (measured in time, not batches, so tiny batches don't report steady state after a few microseconds)
+            long now = System.nanoTime();
+            if(isJitMonitored){
+                long compilationTime = compilationBean.getTotalCompilationTime();
+                if(compilationTime != lastCompilationTime)
+                    lastCompilationChange = now;
+                lastCompilationTime = compilationTime;
+            }
+
+            res.setSteadyState(
+                    iteration >= window && (coefficientOfVariation(recent) <= settings.getCvThreshold() || (isJitMonitored && now - lastCompilationChange >= settings.getQuietTimeNanos()))
+            );
+        }
+
+        res.setNanos(System.nanoTime() - warmupStart);
+        res.setIterations(iteration);
+
+        return res;
+    }
+
+    private static double coefficientOfVariation(double[] values){
+        double mean = 0;
+        for(double v : values)
+            mean += v;
+        mean /= values.length;
+
+        if(mean == 0)
+            return 0;
+
+        double variance = 0;
+        for(double v : values)
+            variance += (v - mean) * (v - mean);
+
+        return Math.sqrt(variance / (values.length - 1)) / mean;
+    }
+
+    /**
+     * Warmup batch returning its time per invocation.
+     */
+    interface Batch {
+        double run() throws Throwable;
+    }
+
+    /**
+     * Merges warmup of the next fork into this one.
+     */
+    public void merge(WarmupResult other){
+        nanos += other.getNanos();
+        iterations += other.getIterations();
+        steadyState = steadyState && other.isSteadyState();
+    }
+}
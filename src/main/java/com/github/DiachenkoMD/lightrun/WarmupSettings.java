@@ -0,0 +1,61 @@
+package com.github.DiachenkoMD.lightrun;
+
+import com.github.DiachenkoMD.lightrun.annotations.Warmup;
+import lombok.Data;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+@Data
+public class WarmupSettings {
+    private int iterations = 1;
+    private long timeBudgetNanos = 0;
+    private boolean adaptive = false;
+    private int window = 5;
+    private double cvThreshold = 0.05;
+    private long maxTimeNanos = 0;
+    private long quietTimeNanos = 100_000_000;
+
+    public static WarmupSettings of(Warmup anno){
+        WarmupSettings settings = new WarmupSettings();
+
+        if(anno != null){
+            settings.setIterations(anno.iterations());
+            settings.setTimeBudgetNanos(anno.timeUnit().toNanos(Math.max(0, anno.time())));
+            settings.setAdaptive(anno.adaptive());
+            settings.setWindow(Math.max(2, anno.window()));
+            settings.setCvThreshold(anno.cvThreshold());
+            // Adaptive limits are always in milliseconds, so a coarse time unit doesn't inflate their defaults
+            settings.setMaxTimeNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(0, anno.maxTime())));
+            settings.setQuietTimeNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(0, anno.quietTime())));
+        }
+
+        // Without iterations and time budget fixed part would loop forever (adaptive warmup continues after it anyway)
+        if(settings.getIterations() <= 0 && settings.getTimeBudgetNanos() == 0)
+            settings.setIterations(1);
+
+        return settings;
+    }
+
+    /**
+     * Method-level {@link Warmup} overrides the one placed on benchmark class.
+     */
+    public static WarmupSettings resolve(Method unitMethod){
+        Warmup anno = unitMethod.getAnnotation(Warmup.class);
+
+        if(anno == null)
+            anno = unitMethod.getDeclaringClass().getAnnotation(Warmup.class);
+
+        return of(anno);
+    }
+
+    /**
+     * Whether fixed part of warmup (iterations / time budget) is still in progress.
+     */
+    public boolean hasNextIteration(int completedIterations, long elapsedNanos){
+        if(timeBudgetNanos > 0 && elapsedNanos >= timeBudgetNanos)
+            return false;
+
+        return iterations <= 0 || completedIterations < iterations;
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Switches unit to async mode: every invocation is timed until completion of the {@link java.util.concurrent.Future}
+ * it returns (or until return, if unit returns anything else) and recorded into a latency histogram for {@link #time()}
+ * (per fork). Can be placed on a {@link Benchmark} class to apply to every unit or on a single {@link Unit} method.
+ * <br/>
+ * Units returning {@link java.util.concurrent.Future} are measured in async mode with default settings even without
+ * this annotation. {@link Measurement#forks()} still applies, {@link Measurement#iterations()} is ignored and warmup
+ * iterations are counted in {@link Measurement#batchSize()} completed invocations. Latencies are always taken by wall clock.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Async {
+    /**
+     * Maximum amount of invocations in flight. In closed loop (no {@link #rate()}) exactly that many are kept in flight:
+     * the next invocation is issued once the previous one completes.
+     */
+    int concurrency() default 1;
+
+    /**
+     * Target arrival rate, invocations per second. When set, unit is driven in open loop: invocations are issued by
+     * schedule regardless of completions, and latency is counted from the scheduled (not actual) issue time, so stalls
+     * delaying the following invocations are not hidden (coordinated omission).
+     */
+    double rate() default 0;
+
+    long time() default 1000;
+
+    TimeUnit timeUnit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * Issue invocations on virtual threads (falls back to platform threads when JVM doesn't support them).
+     */
+    boolean virtual() default true;
+
+    /**
+     * Name of benchmark class method (without parameters) returning {@link java.util.concurrent.Executor} invocations are issued on.
+     * Executor is not shut down by harness. Empty - a virtual thread per invocation or a pool of platform threads (see {@link #virtual()}).
+     */
+    String executor() default "";
+}
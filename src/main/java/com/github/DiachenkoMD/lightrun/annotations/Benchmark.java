@@ -11,5 +11,52 @@ public @interface Benchmark {
     String value();
     Column colName() default @Column("Name");
     Column colTicks() default @Column("Ticks");
+    // Unit time in scale of its Timer (ns by default)
+    Column colTime() default @Column(value = "Time", isActive = false);
     Column colOutput() default @Column("Result");
+    Column colParams() default @Column(value = "Params", isActive = false);
+
+    // Distribution columns (nanoseconds per invocation), disabled by default
+    Column colMean() default @Column(value = "Mean, ns", isActive = false);
+    Column colStdDev() default @Column(value = "StdDev, ns", isActive = false);
+    Column colMin() default @Column(value = "Min, ns", isActive = false);
+    Column colMax() default @Column(value = "Max, ns", isActive = false);
+    Column colP50() default @Column(value = "p50, ns", isActive = false);
+    Column colP90() default @Column(value = "p90, ns", isActive = false);
+    Column colP99() default @Column(value = "p99, ns", isActive = false);
+    Column colP999() default @Column(value = "p99.9, ns", isActive = false);
+    // Available for units with latency histogram only (sample-time and throughput modes)
+    Column colP9999() default @Column(value = "p99.99, ns", isActive = false);
+    Column colError() default @Column(value = "Error (99.9%), ns", isActive = false);
+    Column colSamples() default @Column(value = "Samples", isActive = false);
+    Column colOverhead() default @Column(value = "Overhead, ns", isActive = false);
+    Column colBatchSize() default @Column(value = "Batch", isActive = false);
+    // Data source units only: time taken to generate arguments set, it's never part of unit time
+    Column colArgumentsTime() default @Column(value = "Args generation, ms", isActive = false);
+    Column colWarmup() default @Column(value = "Warmup, ms", isActive = false);
+    Column colSteadyState() default @Column(value = "Steady state", isActive = false);
+
+    // Throughput mode columns, disabled by default
+    Column colOpsPerSecond() default @Column(value = "Ops/s", isActive = false);
+    Column colOpsPerSecondPerThread() default @Column(value = "Ops/s per thread", isActive = false);
+
+    // Allocation and GC columns, disabled by default
+    Column colAllocBytesPerOp() default @Column(value = "Alloc, B/op", isActive = false);
+    Column colGcCount() default @Column(value = "GC count", isActive = false);
+    Column colGcTime() default @Column(value = "GC time, ms", isActive = false);
+
+    // Profiled units only (see Profile): slowdown against unprofiled control run or, without it, sampler share of window
+    Column colProfilerOverhead() default @Column(value = "Profiler overhead, %", isActive = false);
+
+    // Aggregates of grouped tables (see Table#setGrouping), disabled by default
+    Column colNanosPerInput() default @Column(value = "ns/input", isActive = false);
+    Column colScaling() default @Column(value = "Scaling", isActive = false);
+
+    // Status of unit with the exception it failed with, failed units show their status in time columns anyway
+    Column colStatus() default @Column(value = "Status", isActive = false);
+
+    // Footprint of graphs selected with Footprint (per arguments set), disabled by default
+    Column colShallowSize() default @Column(value = "Shallow, B", isActive = false);
+    Column colRetainedSize() default @Column(value = "Retained, B", isActive = false);
+    Column colRetainedObjects() default @Column(value = "Retained objects", isActive = false);
 }
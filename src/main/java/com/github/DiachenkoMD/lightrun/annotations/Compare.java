@@ -0,0 +1,27 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Compares units sharing the same key against each other. Such units are measured together: on every arguments set
+ * (units have to use the same {@link DataSource}) each of them measures one batch per round, in an order shuffled
+ * anew every round, so thermal and frequency drift affects all of them alike and their samples are paired by round.
+ * <br/>
+ * Every candidate is reported with its speedup relative to the baseline (geometric mean of per-round time ratios),
+ * confidence interval and paired t-test. Rounds are counted by {@link Measurement} of the baseline,
+ * {@link Measurement#forks()} is ignored and units are measured in the default mode (throughput, sample-time, async
+ * and single shot units can't be compared).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Compare {
+    String value();
+
+    /**
+     * Unit other units of the same key are compared against. If none is marked, the first unit of the key is the baseline.
+     */
+    boolean baseline() default false;
+}
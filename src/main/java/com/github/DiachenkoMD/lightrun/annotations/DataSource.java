@@ -5,8 +5,29 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Name of benchmark class method (without arguments) returning {@code Stream<Arguments>}: unit is measured once per
+ * every arguments set. Time spent generating arguments is reported separately from unit time.
+ */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
 public @interface DataSource {
     String value();
+
+    /**
+     * Amount of arguments sets generated ahead by a background thread and handed over through a bounded queue.
+     * 0 - arguments are generated lazily by the measuring thread right before they are measured.
+     */
+    int prefetch() default 0;
+
+    /**
+     * Pauses background generation while unit is measured, so it competes neither for CPU nor for caches and GC.
+     */
+    boolean isolate() default true;
+
+    /**
+     * Forces GC and waits for heap usage to settle before every arguments set is measured, so garbage left by
+     * generation (or by previous arguments) is not collected within timed regions.
+     */
+    boolean settleHeap() default false;
 }
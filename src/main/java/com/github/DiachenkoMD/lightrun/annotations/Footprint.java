@@ -0,0 +1,35 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Measures memory footprint of object graphs once unit is measured (per arguments set): unit return value, injected
+ * arguments and/or benchmark state fields. Can be placed on a {@link Benchmark} class to apply to every unit or on a
+ * single {@link Unit} method.
+ * <br/>
+ * Sizes follow object layout of the running JVM (headers, compressed oops, alignment). Shallow size is the size of the
+ * measured objects themselves, retained size - of all objects reachable from them, except the ones also reachable
+ * from the rest of benchmark instance, arguments and return value (which would stay alive without measured objects).
+ * Classes, class loaders and threads are never walked into.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Footprint {
+    /**
+     * Measure value returned by the last unit invocation.
+     */
+    boolean result() default true;
+
+    /**
+     * Measure arguments injected from {@link DataSource}.
+     */
+    boolean arguments() default false;
+
+    /**
+     * Names of benchmark class fields (its state after measurement) to measure.
+     */
+    String[] fields() default {};
+}
@@ -0,0 +1,37 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs {@link Benchmark} class in child JVMs (same java.home and classpath) instead of the caller's JVM,
+ * so JIT profiles of one class / unit can't pollute the others.
+ * <br/>
+ * Results of all child JVMs are merged into one {@link com.github.DiachenkoMD.lightrun.BenchmarkResults}.
+ * {@link Measurement#forks()} still applies inside every child JVM.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Fork {
+    Isolation value() default Isolation.CLASS;
+
+    /**
+     * Amount of child JVMs per isolated entity.
+     */
+    int count() default 1;
+
+    String[] jvmArgs() default {};
+
+    enum Isolation {
+        /**
+         * One child JVM runs all units of the class.
+         */
+        CLASS,
+        /**
+         * Every unit gets its own child JVM.
+         */
+        UNIT
+    }
+}
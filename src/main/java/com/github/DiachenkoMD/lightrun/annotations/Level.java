@@ -0,0 +1,19 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+/**
+ * Granularity of {@link Setup} / {@link TearDown} hooks.
+ */
+public enum Level {
+    /**
+     * Once per benchmark class instance: parameters combination, fork or thread-scoped instance.
+     */
+    TRIAL,
+    /**
+     * Around every measured (or warmup) batch.
+     */
+    ITERATION,
+    /**
+     * Around every single unit invocation. Forces invocations to be timed one by one.
+     */
+    INVOCATION
+}
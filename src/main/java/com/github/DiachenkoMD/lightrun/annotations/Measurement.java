@@ -0,0 +1,46 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configures how many samples are taken for a unit. Can be placed on a {@link Benchmark} class
+ * to apply to every unit or on a single {@link Unit} method to override the class settings.
+ * <br/>
+ * Without this annotation each unit is timed exactly once, on a calibrated batch.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Measurement {
+    /**
+     * Amount of measured iterations (samples) per fork. Non-positive value means "until time budget is spent".
+     */
+    int iterations() default 10;
+
+    /**
+     * Amount of unit invocations inside one iteration. Sample value is the iteration time divided by this number.
+     * Non-positive value (default) - batch size is calibrated per unit, so one iteration spans {@link #sampleTime()}.
+     * Positive value fixes batch size (e.g. 1 to time every invocation on its own).
+     */
+    int batchSize() default 0;
+
+    /**
+     * Target time of one iteration for calibrated batch size. 0 - the shortest time unit clock resolves precisely.
+     */
+    long sampleTime() default 0;
+
+    /**
+     * Amount of independent forks. Every fork measures the unit on a fresh benchmark class instance.
+     */
+    int forks() default 1;
+
+    /**
+     * Time budget for one fork of a unit. Measurement stops when either iterations or time budget are exhausted. 0 - no budget.
+     */
+    long time() default 0;
+
+    TimeUnit timeUnit() default TimeUnit.MILLISECONDS;
+}
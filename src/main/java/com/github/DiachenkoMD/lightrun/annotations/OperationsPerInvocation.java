@@ -0,0 +1,18 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how many logical operations one unit invocation performs (e.g. a unit looping over 1000 elements).
+ * Can be placed on a {@link Benchmark} class to apply to every unit or on a single {@link Unit} method.
+ * <br/>
+ * Times, latencies, throughput and allocations are reported per operation instead of per invocation.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface OperationsPerInvocation {
+    int value();
+}
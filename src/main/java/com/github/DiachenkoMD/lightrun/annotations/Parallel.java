@@ -0,0 +1,17 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks {@link Benchmark} class as safe to be measured by suite concurrently with other such classes.
+ * Every one of them runs in a child JVM pinned to its own CPU set (when taskset is available).
+ * <br/>
+ * Classes without this annotation are considered latency-sensitive and are measured one by one on an otherwise idle suite.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Parallel {
+}
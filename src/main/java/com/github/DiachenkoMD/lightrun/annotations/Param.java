@@ -0,0 +1,19 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks field of {@link Benchmark} class as a parameter. Every unit is measured for each combination
+ * (cartesian product) of all parameters values, injected into a fresh benchmark class instance.
+ * <br/>
+ * Values are converted to the field type (primitives, their wrappers, String and enums are supported).
+ * Parameter can be referenced in unit name as $fieldName.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Param {
+    String[] value();
+}
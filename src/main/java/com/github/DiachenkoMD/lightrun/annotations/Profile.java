@@ -0,0 +1,37 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Profiles measurement window of units: stacks of the measuring thread(s) are sampled periodically and written as
+ * collapsed stacks ({@code frame;frame;frame count} lines, input of flamegraph.pl, speedscope and similar tools)
+ * to {@code outputDir/<benchmark UID>/<unit name>.collapsed}.
+ * Can be placed on a {@link Benchmark} class to apply to every unit or on a single {@link Unit} method.
+ * <br/>
+ * Warmup is not profiled (except for throughput units, whose threads warm up within the profiled run). Profiler cost is measured and reported with results, as sampling may slow the unit down.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Profile {
+    Mode value() default Mode.SAMPLING;
+
+    int intervalMillis() default 10;
+
+    int maxDepth() default 128;
+
+    String outputDir() default "lightrun-profiles";
+
+    enum Mode {
+        /**
+         * Dedicated sampler thread takes stacks through ThreadMXBean. Every sample stops target thread at safepoint.
+         */
+        SAMPLING,
+        /**
+         * JFR recording with execution samples is taken for every unit. Samples are not biased to safepoints.
+         */
+        JFR
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Switches unit to sample-time mode: every single invocation is timed for {@link #time()} (per fork) and recorded
+ * into a fixed-size latency histogram instead of keeping raw samples, so millions of invocations cost no extra memory.
+ * Can be placed on a {@link Benchmark} class to apply to every unit or on a single {@link Unit} method.
+ * <br/>
+ * {@link Measurement#forks()} still applies, {@link Measurement#iterations()} and {@link Measurement#batchSize()} are ignored.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface SampleTime {
+    long time() default 1000;
+
+    TimeUnit timeUnit() default TimeUnit.MILLISECONDS;
+}
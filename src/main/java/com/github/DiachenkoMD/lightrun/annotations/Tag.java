@@ -0,0 +1,15 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Labels {@link Benchmark} class, so suites can select it (see {@link com.github.DiachenkoMD.lightrun.SuiteSettings#getTags()}).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Tag {
+    String[] value();
+}
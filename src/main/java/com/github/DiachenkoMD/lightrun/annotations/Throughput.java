@@ -0,0 +1,42 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Switches unit to multi-threaded throughput mode: unit is invoked concurrently from {@link #threads()} threads,
+ * released together by a start barrier, each running for {@link #time()}. Can be placed on a {@link Benchmark}
+ * class to apply to every unit or on a single {@link Unit} method to override the class settings.
+ * <br/>
+ * Latency of every batch ({@link Measurement#batchSize()} invocations) is sampled along the way.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Throughput {
+    int threads() default 1;
+
+    long time() default 1000;
+
+    TimeUnit timeUnit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * Run unit on virtual threads (falls back to platform threads when JVM doesn't support them).
+     */
+    boolean virtual() default false;
+
+    Scope scope() default Scope.SHARED;
+
+    enum Scope {
+        /**
+         * All threads invoke unit on the same benchmark class instance.
+         */
+        SHARED,
+        /**
+         * Every thread gets its own benchmark class instance.
+         */
+        THREAD
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits time of a unit measurement (warmup and all measured forks of one arguments set). Can be placed on a
+ * {@link Benchmark} class to apply to every unit or on a single {@link Unit} method to override the class settings.
+ * <br/>
+ * Unit is measured on a supervised thread, which is interrupted once time is over, and reported with TIMEOUT status.
+ * Unit ignoring interruption for {@link #grace()} is abandoned in the caller's JVM, while child JVM
+ * (see {@link Fork} and {@link #fork()}) is terminated right away. Child JVM hanging outside of measurement
+ * (set up, data sources, tear down) is killed by the parent, once it's silent longer than the timeout and grace.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Timeout {
+    long value();
+
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    /**
+     * Time interrupted unit is given to stop, ms.
+     */
+    long grace() default 1000;
+
+    /**
+     * Measures unit in its own child JVM, so a unit which can't be interrupted is killed together with JVM.
+     * Ignored, if the whole benchmark class is already forked.
+     */
+    boolean fork() default false;
+}
@@ -0,0 +1,67 @@
+package com.github.DiachenkoMD.lightrun.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Selects the clock units are timed with and the scale unit time is reported in. Can be placed on a {@link Benchmark}
+ * class to apply to every unit or on a single {@link Unit} method to override the class settings.
+ * <br/>
+ * Without this annotation units are timed by wall clock and reported in nanoseconds (ticks of 100 ns).
+ * <br/>
+ * Statistics are kept in nanoseconds of the selected clock. Throughput units still count operations per wall-clock
+ * second, the clock applies to their batch latencies only.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Timer {
+    Mode value() default Mode.WALL;
+
+    Scale scale() default Scale.NANOSECONDS;
+
+    /**
+     * Length of a single tick (Ticks column) in nanoseconds.
+     */
+    long tickNanos() default 100;
+
+    enum Mode {
+        /**
+         * Elapsed time by System.nanoTime(), includes time thread spent descheduled or blocked.
+         */
+        WALL,
+        /**
+         * CPU time (user and system) consumed by the measuring thread. Falls back to wall clock, if JVM doesn't support it.
+         */
+        CPU,
+        /**
+         * CPU time consumed by the measuring thread in user mode. Usually accounted in scheduler ticks (10 ms on Linux),
+         * so it fits units with long batches only.
+         */
+        USER,
+        /**
+         * Wall time of the very first invocation on a fresh instance, without warmup. Every {@link Measurement#forks()}
+         * fork takes exactly one sample in a child JVM of its own, as only the first invocation of a unit in a JVM
+         * is truly cold ({@link Fork#jvmArgs()} of the class apply).
+         */
+        SINGLE_SHOT
+    }
+
+    enum Scale {
+        NANOSECONDS("ns"),
+        MICROSECONDS("us"),
+        MILLISECONDS("ms"),
+        OPS_PER_SECOND("ops/s");
+
+        private final String symbol;
+
+        Scale(String symbol){
+            this.symbol = symbol;
+        }
+
+        public String getSymbol(){
+            return symbol;
+        }
+    }
+}
@@ -4,9 +4,51 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Configures warmup done right before unit measurement on the same benchmark instance. Can be placed on a
+ * {@link Benchmark} class to apply to every unit or on a single {@link Unit} method to override the class settings.
+ * <br/>
+ * Without this annotation every unit is warmed up with a single batch.
+ */
 @Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.METHOD)
+@Target({ElementType.TYPE, ElementType.METHOD})
 public @interface Warmup {
-    String value();
+    /**
+     * Amount of warmup batches (batch size is taken from {@link Measurement}). Non-positive value means "until time budget is spent".
+     */
+    int iterations() default 5;
+
+    /**
+     * Warmup time budget. Warmup stops when either iterations or time budget are exhausted. 0 - no budget.
+     */
+    long time() default 0;
+
+    /**
+     * Unit of {@link #time()} only, {@link #maxTime()} and {@link #quietTime()} are always in milliseconds.
+     */
+    TimeUnit timeUnit() default TimeUnit.MILLISECONDS;
+
+    /**
+     * When enabled, warmup continues past {@link #iterations()} until steady state is detected:
+     * coefficient of variation across last {@link #window()} batches drops below {@link #cvThreshold()}
+     * or JIT compiler stays idle for {@link #quietTime()}. {@link #maxTime()} caps the adaptive warmup
+     * (fixed part included), at least one batch is always run.
+     */
+    boolean adaptive() default false;
+
+    int window() default 5;
+
+    double cvThreshold() default 0.05;
+
+    /**
+     * Cap of adaptive warmup, ms.
+     */
+    long maxTime() default 10_000;
+
+    /**
+     * Time JIT compiler has to stay idle for unit to be considered steady (at least {@link #window()} batches are run anyway), ms.
+     */
+    long quietTime() default 100;
 }
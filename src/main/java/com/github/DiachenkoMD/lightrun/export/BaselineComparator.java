@@ -0,0 +1,160 @@
+package com.github.DiachenkoMD.lightrun.export;
+
+import com.github.DiachenkoMD.lightrun.BenchmarkResults;
+import com.github.DiachenkoMD.lightrun.Statistics;
+import com.github.DiachenkoMD.lightrun.SuiteResults;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Compares results against a baseline saved with {@link ResultsExporter#writeJson}.
+ * <br/>
+ * Unit is flagged as regressed only when its mean time grew by more than threshold and Welch's t-test
+ * confirms the difference at the given significance level, so noise alone doesn't fail the build.
+ */
+public class BaselineComparator {
+    private final double threshold;
+    private final double alpha;
+
+    public BaselineComparator(double threshold, double alpha){
+        if(alpha <= 0 || alpha >= 1)
+            throw new IllegalArgumentException("Significance level should be in range (0, 1)!");
+
+        this.threshold = threshold;
+        this.alpha = alpha;
+    }
+
+    public BaselineComparator(){
+        this(0.05, 0.01);
+    }
+
+    public ComparisonReport compare(Path baselineFile, BenchmarkResults<?> current) throws IOException {
+        return compare(Json.parse(Files.readString(baselineFile, StandardCharsets.UTF_8)), Json.parse(ResultsExporter.toJson(current)));
+    }
+
+    public ComparisonReport compare(Path baselineFile, SuiteResults current) throws IOException {
+        return compare(Json.parse(Files.readString(baselineFile, StandardCharsets.UTF_8)), Json.parse(ResultsExporter.toJson(current)));
+    }
+
+    public ComparisonReport compare(Path baselineFile, Path currentFile) throws IOException {
+        return compare(Json.parse(Files.readString(baselineFile, StandardCharsets.UTF_8)), Json.parse(Files.readString(currentFile, StandardCharsets.UTF_8)));
+    }
+
+    private ComparisonReport compare(Object baselineJson, Object currentJson){
+        Map<String, Map<String, Object>> baseline = unitsByKey(baselineJson);
+        Map<String, Map<String, Object>> current = unitsByKey(currentJson);
+
+        ComparisonReport report = new ComparisonReport();
+        report.setThreshold(threshold);
+        report.setAlpha(alpha);
+
+        for(Map.Entry<String, Map<String, Object>> entry : current.entrySet()){
+            Map<String, Object> baselineStats = baseline.get(entry.getKey());
+
+            if(baselineStats == null){
+                report.getMissingInBaseline().add(entry.getKey());
+                continue;
+            }
+
+            report.getComparisons().add(compareUnit(entry.getKey(), baselineStats, entry.getValue()));
+        }
+
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(report.getMissingInCurrent()::add);
+
+        return report;
+    }
+
+    private UnitComparison compareUnit(String key, Map<String, Object> baseline, Map<String, Object> current){
+        double m1 = number(baseline, "mean"), s1 = number(baseline, "stdDev"), n1 = number(baseline, "count");
+        double m2 = number(current, "mean"), s2 = number(current, "stdDev"), n2 = number(current, "count");
+
+        UnitComparison comparison = new UnitComparison();
+        comparison.setKey(key);
+        comparison.setBaselineMean(m1);
+        comparison.setCurrentMean(m2);
+        comparison.setChange(m1 != 0 ? (m2 - m1) / m1 : 0);
+
+        // Welch's t-test: significance can't be established without variance estimations of both runs
+        if(n1 >= 2 && n2 >= 2){
+            double v1 = s1 * s1 / n1, v2 = s2 * s2 / n2;
+            double standardError = Math.sqrt(v1 + v2);
+
+            if(standardError == 0){
+                comparison.setTStatistic(m1 == m2 ? 0 : Math.copySign(Double.POSITIVE_INFINITY, m2 - m1));
+                comparison.setSignificant(m1 != m2);
+            }else{
+                double t = (m2 - m1) / standardError;
+                double df = (v1 + v2) * (v1 + v2) / (v1 * v1 / (n1 - 1) + v2 * v2 / (n2 - 1));
+                double critical = Statistics.studentQuantile(1 - alpha / 2, Math.max(1, (int) Math.floor(df)));
+
+                comparison.setTStatistic(t);
+                comparison.setSignificant(Math.abs(t) > critical);
+            }
+        }
+
+        comparison.setRegressed(comparison.isSignificant() && comparison.getChange() > threshold);
+
+        return comparison;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> unitsByKey(Object json){
+        // Suite file holds results of every benchmark class
+        if(json instanceof Map<?, ?> suite && suite.get("benchmarks") instanceof List<?> benchmarks){
+            Map<String, Map<String, Object>> units = new LinkedHashMap<>();
+
+            for(Object benchmark : benchmarks)
+                units.putAll(unitsByKey(benchmark));
+
+            return units;
+        }
+
+        Map<String, Map<String, Object>> units = new LinkedHashMap<>();
+
+        if(!(json instanceof Map<?, ?> root) || !(root.get("results") instanceof List<?> results))
+            throw new IllegalArgumentException("Not a Lightrun results file!");
+
+        String uid = String.valueOf(root.get("uid"));
+
+        for(Object item : results){
+            Map<String, Object> unit = (Map<String, Object>) item;
+
+            if(!(unit.get("statistics") instanceof Map<?, ?> stats))
+                continue;
+
+            List<String> arguments = ((List<Object>) unit.getOrDefault("arguments", List.of())).stream().map(String::valueOf).toList();
+            units.put(uid + ": " + ResultsExporter.unitKey(String.valueOf(unit.get("name")), arguments), (Map<String, Object>) stats);
+        }
+
+        return units;
+    }
+
+    private static double number(Map<String, Object> stats, String key){
+        return stats.get(key) instanceof Double value ? value : Double.NaN;
+    }
+
+    /**
+     * CI entry point: {@code <baseline.json> <current.json> [threshold] [alpha]}.
+     * Exits with 1 when any unit regressed, with 2 on invalid usage.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2){
+            System.out.println("Usage: BaselineComparator <baseline.json> <current.json> [threshold] [alpha]");
+            System.exit(2);
+        }
+
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.05;
+        double alpha = args.length > 3 ? Double.parseDouble(args[3]) : 0.01;
+
+        ComparisonReport report = new BaselineComparator(threshold, alpha).compare(Path.of(args[0]), Path.of(args[1]));
+
+        System.out.println(report);
+        System.exit(report.hasRegressions() ? 1 : 0);
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.DiachenkoMD.lightrun.export;
+
+import lombok.Data;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+
+@Data
+public class ComparisonReport {
+    private double threshold;
+    private double alpha;
+    private List<UnitComparison> comparisons = new LinkedList<>();
+    // Units present only in one of runs
+    private List<String> missingInCurrent = new LinkedList<>();
+    private List<String> missingInBaseline = new LinkedList<>();
+
+    public boolean hasRegressions(){
+        return comparisons.stream().anyMatch(UnitComparison::isRegressed);
+    }
+
+    public List<UnitComparison> getRegressions(){
+        return comparisons.stream().filter(UnitComparison::isRegressed).toList();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format(Locale.ROOT, "Baseline comparison (threshold: %.1f%%, alpha: %s)%n", threshold * 100, alpha));
+
+        for(UnitComparison comparison : comparisons){
+            String verdict = comparison.isRegressed() ? "REGRESSED" : comparison.isImproved() ? "improved" : comparison.isSignificant() ? "changed" : "same";
+
+            sb.append(String.format(Locale.ROOT, "%-10s %s: %.3f ns -> %.3f ns (%+.2f%%, t = %.2f)%n",
+                    verdict, comparison.getKey(), comparison.getBaselineMean(), comparison.getCurrentMean(), comparison.getChange() * 100, comparison.getTStatistic()));
+        }
+
+        missingInCurrent.forEach(key -> sb.append("missing    ").append(key).append(" (absent in current run)").append(System.lineSeparator()));
+        missingInBaseline.forEach(key -> sb.append("new        ").append(key).append(" (absent in baseline)").append(System.lineSeparator()));
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.DiachenkoMD.lightrun.export;
+
+import com.github.DiachenkoMD.lightrun.BenchmarkResults;
+import com.github.DiachenkoMD.lightrun.BenchmarkUnitResult;
+import com.github.DiachenkoMD.lightrun.ResultSink;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Appends every result as a CSV row right after it was measured. Can be shared by several benchmark classes,
+ * rows are distinguished by UID column. Should be closed when the run is over.
+ */
+public class CsvFileSink implements ResultSink, Closeable {
+    private final Writer writer;
+    private String currentUID;
+
+    public CsvFileSink(Path file) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8));
+        this.writer.write(ResultsExporter.csvPreamble());
+    }
+
+    @Override
+    public void onBenchmarkStart(BenchmarkResults<?> results) {
+        currentUID = results.getUID();
+    }
+
+    @Override
+    public synchronized void accept(BenchmarkUnitResult result) {
+        try {
+            writer.write(ResultsExporter.csvRow(currentUID, result));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onBenchmarkComplete(BenchmarkResults<?> results) {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
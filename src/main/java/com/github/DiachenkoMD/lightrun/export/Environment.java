@@ -0,0 +1,48 @@
+package com.github.DiachenkoMD.lightrun.export;
+
+import com.github.DiachenkoMD.lightrun.ClockCalibration;
+import com.github.DiachenkoMD.lightrun.annotations.Timer;
+import lombok.Data;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Snapshot of the environment results were produced in.
+ */
+@Data
+public class Environment {
+    private String jvmName;
+    private String jvmVendor;
+    private String jvmVersion;
+    private String osName;
+    private String osArch;
+    private int availableProcessors;
+    private long maxHeapBytes;
+    private List<String> jvmFlags;
+    private String timestamp;
+    // Resolution of the wall clock units are timed with by default
+    private double timerGranularityNanos;
+    private double timerLatencyNanos;
+
+    public static Environment current(){
+        Environment env = new Environment();
+
+        env.setJvmName(System.getProperty("java.vm.name"));
+        env.setJvmVendor(System.getProperty("java.vm.vendor"));
+        env.setJvmVersion(System.getProperty("java.vm.version"));
+        env.setOsName(System.getProperty("os.name"));
+        env.setOsArch(System.getProperty("os.arch"));
+        env.setAvailableProcessors(Runtime.getRuntime().availableProcessors());
+        env.setMaxHeapBytes(Runtime.getRuntime().maxMemory());
+        env.setJvmFlags(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        env.setTimestamp(Instant.now().toString());
+
+        ClockCalibration clock = ClockCalibration.of(Timer.Mode.WALL);
+        env.setTimerGranularityNanos(clock.getGranularityNanos());
+        env.setTimerLatencyNanos(clock.getLatencyNanos());
+
+        return env;
+    }
+}
@@ -0,0 +1,208 @@
+package com.github.DiachenkoMD.lightrun.export;
+
+import java.util.*;
+
+/**
+ * Minimal JSON support for results export: writing of primitives and a recursive-descent parser producing
+ * {@link Map} (objects), {@link List} (arrays), {@link String}, {@link Double}, {@link Boolean} and null.
+ */
+public class Json {
+    private final String source;
+    private int pos;
+
+    private Json(String source){
+        this.source = source;
+    }
+
+    public static String quote(String value){
+        if(value == null)
+            return "null";
+
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+
+        for(int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            switch (c){
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if(c < 0x20)
+                        sb.append(String.format("\\u%04x", (int) c));
+                    else
+                        sb.append(c);
+                }
+            }
+        }
+
+        return sb.append('"').toString();
+    }
+
+    public static String number(double value){
+        // JSON has no representation for NaN / infinity
+        if(Double.isNaN(value) || Double.isInfinite(value))
+            return "null";
+
+        if(value == Math.rint(value) && Math.abs(value) < 1e15)
+            return String.valueOf((long) value);
+
+        return String.valueOf(value);
+    }
+
+    public static Object parse(String source){
+        Json parser = new Json(source);
+        Object value = parser.readValue();
+
+        parser.skipWhitespace();
+        if(parser.pos != source.length())
+            throw parser.error("Unexpected trailing content");
+
+        return value;
+    }
+
+    private Object readValue(){
+        skipWhitespace();
+
+        if(pos >= source.length())
+            throw error("Unexpected end of input");
+
+        char c = source.charAt(pos);
+
+        return switch (c){
+            case '{' -> readObject();
+            case '[' -> readArray();
+            case '"' -> readString();
+            case 't' -> readLiteral("true", Boolean.TRUE);
+            case 'f' -> readLiteral("false", Boolean.FALSE);
+            case 'n' -> readLiteral("null", null);
+            default -> readNumber();
+        };
+    }
+
+    private Map<String, Object> readObject(){
+        Map<String, Object> object = new LinkedHashMap<>();
+        ++pos;
+
+        skipWhitespace();
+        if(peek() == '}'){
+            ++pos;
+            return object;
+        }
+
+        while(true){
+            skipWhitespace();
+            String key = readString();
+
+            skipWhitespace();
+            expect(':');
+
+            object.put(key, readValue());
+
+            skipWhitespace();
+            if(peek() == ','){
+                ++pos;
+                continue;
+            }
+
+            expect('}');
+            return object;
+        }
+    }
+
+    private List<Object> readArray(){
+        List<Object> array = new ArrayList<>();
+        ++pos;
+
+        skipWhitespace();
+        if(peek() == ']'){
+            ++pos;
+            return array;
+        }
+
+        while(true){
+            array.add(readValue());
+
+            skipWhitespace();
+            if(peek() == ','){
+                ++pos;
+                continue;
+            }
+
+            expect(']');
+            return array;
+        }
+    }
+
+    private String readString(){
+        expect('"');
+        StringBuilder sb = new StringBuilder();
+
+        while(pos < source.length()){
+            char c = source.charAt(pos++);
+
+            if(c == '"')
+                return sb.toString();
+
+            if(c != '\\'){
+                sb.append(c);
+                continue;
+            }
+
+            char escaped = source.charAt(pos++);
+            switch (escaped){
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'u' -> {
+                    sb.append((char) Integer.parseInt(source.substring(pos, pos + 4), 16));
+                    pos += 4;
+                }
+                default -> sb.append(escaped);
+            }
+        }
+
+        throw error("Unterminated string");
+    }
+
+    private Double readNumber(){
+        int start = pos;
+        while(pos < source.length() && "+-0123456789.eE".indexOf(source.charAt(pos)) >= 0)
+            ++pos;
+
+        if(start == pos)
+            throw error("Unexpected character '" + source.charAt(pos) + "'");
+
+        return Double.parseDouble(source.substring(start, pos));
+    }
+
+    private Object readLiteral(String literal, Object value){
+        if(!source.startsWith(literal, pos))
+            throw error("Unknown literal");
+
+        pos += literal.length();
+        return value;
+    }
+
+    private void skipWhitespace(){
+        while(pos < source.length() && Character.isWhitespace(source.charAt(pos)))
+            ++pos;
+    }
+
+    private char peek(){
+        return pos < source.length() ? source.charAt(pos) : '\0';
+    }
+
+    private void expect(char c){
+        if(peek() != c)
+            throw error("Expected '" + c + "'");
+        ++pos;
+    }
+
+    private IllegalArgumentException error(String message){
+        return new IllegalArgumentException(message + " at position " + pos + "!");
+    }
+}
@@ -0,0 +1,552 @@
+package com.github.DiachenkoMD.lightrun.export;
+
+import com.github.DiachenkoMD.lightrun.BenchmarkResults;
+import com.github.DiachenkoMD.lightrun.BenchmarkUnitResult;
+import com.github.DiachenkoMD.lightrun.Statistics;
+import com.github.DiachenkoMD.lightrun.SuiteResults;
+import lombok.Data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary history of results, read through a memory-mapped view of the file (mapped in 1 GB windows, so
+ * store is not limited by the 2 GB size of a single mapping).
+ * <br/>
+ * Every append is a run: one record per unit followed by a commit record. Records carry length and CRC32, so a run
+ * torn by a crash is detected on open and cut off, leaving the store at its last committed run. Metrics of a record
+ * lie at fixed offsets, so trend queries read single doubles of the relevant records straight from the mapping.
+ * <br/>
+ * Index (unit key to record offsets) is rebuilt on open by walking record headers and keys only.
+ * Store is single-writer: file is locked while open.
+ */
+public class ResultStore implements Closeable {
+    private static final long FILE_MAGIC = 0x4C52_5354_4F52_4531L; // "LRSTORE1"
+    private static final int FILE_HEADER_SIZE = 16;
+    private static final int RECORD_MARKER = 0x4C52_5245;
+    private static final byte UNIT_RECORD = 1;
+    private static final byte COMMIT_RECORD = 2;
+    // Marker, type, payload length and payload CRC
+    private static final int RECORD_HEADER_SIZE = 4 + 1 + 4 + 4;
+    // Unit payload starts with run and timestamp, metrics follow them
+    private static final int METRICS_OFFSET = RECORD_HEADER_SIZE + 16;
+
+    private final Path file;
+    private FileChannel channel;
+    private FileLock lock;
+    private final Mapping map = new Mapping();
+
+    private final Map<Key, Offsets> index = new LinkedHashMap<>();
+    // Unit records of every committed run, in append order (compaction rewrites runs one by one)
+    private final Map<Long, Offsets> runs = new LinkedHashMap<>();
+    private long committedEnd;
+    private long lastRun;
+
+    public enum Metric {
+        NANOS, SAMPLES, MEAN, STD_DEV, MIN, MAX, P50, P90, P99, P999, P9999, CI_LOWER, CI_UPPER,
+        OPS_PER_SECOND, ALLOC_BYTES_PER_OP, ARGUMENTS_NANOS
+    }
+
+    /**
+     * Identity of a unit across runs: benchmark UID, unit name and arguments set (as exported to CSV).
+     */
+    @Data
+    public static class Key {
+        private final String uid;
+        private final String name;
+        private final String arguments;
+    }
+
+    private ResultStore(Path file){
+        this.file = file;
+    }
+
+    /**
+     * Opens (creating, if needed) the store, discarding incomplete run left by a crashed writer.
+     */
+    public static ResultStore open(Path file) throws IOException {
+        ResultStore store = new ResultStore(file);
+        store.load();
+        return store;
+    }
+
+    private void load() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        lock = channel.tryLock();
+
+        if(lock == null){
+            channel.close();
+            throw new IOException("Result store " + file + " is already opened by another writer!");
+        }
+
+        if(channel.size() == 0){
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            header.putLong(FILE_MAGIC).putInt(Metric.values().length).putInt(0).flip();
+            writeFully(header, 0);
+            channel.force(true);
+        }
+
+        remap();
+
+        if(map.getLong(0) != FILE_MAGIC)
+            throw new IOException(file + " is not a result store!");
+
+        if(map.getInt(8) != Metric.values().length)
+            throw new IOException("Result store " + file + " has incompatible metrics layout!");
+
+        index.clear();
+        runs.clear();
+        lastRun = 0;
+        committedEnd = FILE_HEADER_SIZE;
+        scan(FILE_HEADER_SIZE);
+
+        if(channel.size() > committedEnd){
+            System.out.println("Result store " + file + " has " + (channel.size() - committedEnd) + " bytes of incomplete run! Discarded...");
+            channel.truncate(committedEnd);
+            channel.force(true);
+            remap();
+        }
+    }
+
+    private void remap() throws IOException {
+        map.remap(channel);
+    }
+
+    /**
+     * Walks records from the given position, indexing units of committed runs. Stops at the first damaged record.
+     */
+    private void scan(long position){
+        long limit = map.size();
+        List<long[]> pending = new ArrayList<>();
+        List<Key> pendingKeys = new ArrayList<>();
+
+        while(position + RECORD_HEADER_SIZE <= limit){
+            if(map.getInt(position) != RECORD_MARKER)
+                break;
+
+            byte type = map.get(position + 4);
+            int length = map.getInt(position + 5);
+            int crc = map.getInt(position + 9);
+
+            if(length < 0 || position + RECORD_HEADER_SIZE + length > limit || crc(position + RECORD_HEADER_SIZE, length) != crc)
+                break;
+
+            if(type == UNIT_RECORD){
+                pending.add(new long[]{position, map.getLong(position + RECORD_HEADER_SIZE)});
+                pendingKeys.add(readKey(position));
+            }else if(type == COMMIT_RECORD){
+                long run = map.getLong(position + RECORD_HEADER_SIZE);
+                Offsets runOffsets = runs.computeIfAbsent(run, r -> new Offsets());
+
+                for(int i = 0; i < pending.size(); i++){
+                    index.computeIfAbsent(pendingKeys.get(i), k -> new Offsets()).add(pending.get(i)[0]);
+                    runOffsets.add(pending.get(i)[0]);
+                }
+
+                pending.clear();
+                pendingKeys.clear();
+                lastRun = Math.max(lastRun, run);
+                committedEnd = position + RECORD_HEADER_SIZE + length;
+            }else{
+                break;
+            }
+
+            position += RECORD_HEADER_SIZE + length;
+        }
+    }
+
+    private int crc(long offset, int length){
+        CRC32 crc = new CRC32();
+        crc.update(map.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private Key readKey(long recordOffset){
+        long[] position = {recordOffset + METRICS_OFFSET + Metric.values().length * 8};
+        return new Key(readString(position), readString(position), readString(position));
+    }
+
+    private String readString(long[] position){
+        int length = map.getInt(position[0]);
+        byte[] bytes = new byte[length];
+        map.slice(position[0] + 4, length).get(bytes);
+        position[0] += 4 + length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends results as a new run.
+     * @return sequence number of the run
+     */
+    public long append(BenchmarkResults<?> results) throws IOException {
+        return append(List.of(results));
+    }
+
+    /**
+     * Appends results of the whole suite as a single run.
+     */
+    public long append(SuiteResults suite) throws IOException {
+        return append(suite.getResults());
+    }
+
+    public synchronized long append(Collection<? extends BenchmarkResults<?>> benchmarks) throws IOException {
+        long run = lastRun + 1;
+        long timestamp = System.currentTimeMillis();
+        int units = 0;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        for(BenchmarkResults<?> results : benchmarks){
+            if(results.getResults() == null)
+                continue;
+
+            for(BenchmarkUnitResult unit : results.getResults()){
+                writeRecord(bytes, UNIT_RECORD, unitPayload(run, timestamp, results.getUID(), unit));
+                ++units;
+            }
+        }
+
+        ByteArrayOutputStream commit = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(commit)){
+            out.writeLong(run);
+            out.writeInt(units);
+        }
+        writeRecord(bytes, COMMIT_RECORD, commit.toByteArray());
+
+        // Single force after the commit record: scan never reaches a commit past a damaged record, so run is all or nothing
+        long start = committedEnd;
+        writeFully(ByteBuffer.wrap(bytes.toByteArray()), start);
+        channel.force(false);
+
+        remap();
+        scan(start);
+
+        return run;
+    }
+
+    private static byte[] unitPayload(long run, long timestamp, String uid, BenchmarkUnitResult unit) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try(DataOutputStream out = new DataOutputStream(bytes)){
+            out.writeLong(run);
+            out.writeLong(timestamp);
+
+            for(double metric : metrics(unit))
+                out.writeDouble(metric);
+
+            writeString(out, uid);
+            writeString(out, unit.getName());
+            writeString(out, String.join(";", ResultsExporter.arguments(unit)));
+            writeString(out, ResultsExporter.params(unit).entrySet().stream().map(e -> e.getKey() + "=" + e.getValue()).reduce((a, b) -> a + ";" + b).orElse(""));
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static double[] metrics(BenchmarkUnitResult unit){
+        double[] metrics = new double[Metric.values().length];
+        Arrays.fill(metrics, Double.NaN);
+
+        Statistics stats = unit.getStatistics();
+
+        metrics[Metric.NANOS.ordinal()] = unit.getTime() != null && !unit.isFailed() ? unit.getTime().getExactNanos() : Double.NaN;
+        metrics[Metric.ARGUMENTS_NANOS.ordinal()] = unit.getInjected() != null ? unit.getArgumentsNanos() : Double.NaN;
+
+        if(stats != null){
+            metrics[Metric.SAMPLES.ordinal()] = stats.getCount();
+            metrics[Metric.MEAN.ordinal()] = stats.getMean();
+            metrics[Metric.STD_DEV.ordinal()] = stats.getStdDev();
+            metrics[Metric.MIN.ordinal()] = stats.getMin();
+            metrics[Metric.MAX.ordinal()] = stats.getMax();
+            metrics[Metric.P50.ordinal()] = stats.getP50();
+            metrics[Metric.P90.ordinal()] = stats.getP90();
+            metrics[Metric.P99.ordinal()] = stats.getP99();
+            metrics[Metric.P999.ordinal()] = stats.getP999();
+            metrics[Metric.CI_LOWER.ordinal()] = stats.getCiLower();
+            metrics[Metric.CI_UPPER.ordinal()] = stats.getCiUpper();
+        }
+
+        if(unit.getHistogram() != null)
+            metrics[Metric.P9999.ordinal()] = unit.getHistogram().getValueAtPercentile(0.9999);
+
+        if(unit.getThroughput() != null)
+            metrics[Metric.OPS_PER_SECOND.ordinal()] = unit.getThroughput().getOpsPerSecond();
+
+        if(unit.getAllocation() != null)
+            metrics[Metric.ALLOC_BYTES_PER_OP.ordinal()] = unit.getAllocation().getAllocatedBytesPerOp();
+
+        return metrics;
+    }
+
+    private static void writeRecord(ByteArrayOutputStream bytes, byte type, byte[] payload){
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        header.putInt(RECORD_MARKER).put(type).putInt(payload.length).putInt((int) crc.getValue());
+
+        bytes.writeBytes(header.array());
+        bytes.writeBytes(payload);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    public synchronized Set<Key> keys(){
+        return Collections.unmodifiableSet(new LinkedHashSet<>(index.keySet()));
+    }
+
+    public synchronized long getLastRun(){
+        return lastRun;
+    }
+
+    /**
+     * Values of one metric of the unit in its last runs (oldest first), read directly from the mapping.
+     * @param lastRuns amount of latest records to read, non-positive - all of them
+     */
+    public synchronized double[] trend(Key key, Metric metric, int lastRuns){
+        Offsets offsets = index.get(key);
+
+        if(offsets == null)
+            return new double[0];
+
+        int from = lastRuns > 0 ? Math.max(0, offsets.size - lastRuns) : 0;
+        double[] values = new double[offsets.size - from];
+
+        for(int i = from; i < offsets.size; i++)
+            values[i - from] = map.getDouble(offsets.values[i] + METRICS_OFFSET + metric.ordinal() * 8);
+
+        return values;
+    }
+
+    /**
+     * Full records of the unit in its last runs (oldest first).
+     */
+    public synchronized List<StoredResult> history(Key key, int lastRuns){
+        Offsets offsets = index.get(key);
+        List<StoredResult> history = new ArrayList<>();
+
+        if(offsets == null)
+            return history;
+
+        for(int i = lastRuns > 0 ? Math.max(0, offsets.size - lastRuns) : 0; i < offsets.size; i++)
+            history.add(read(offsets.values[i]));
+
+        return history;
+    }
+
+    private StoredResult read(long recordOffset){
+        StoredResult res = new StoredResult();
+        res.setRun(map.getLong(recordOffset + RECORD_HEADER_SIZE));
+        res.setTimestampMillis(map.getLong(recordOffset + RECORD_HEADER_SIZE + 8));
+
+        double[] metrics = new double[Metric.values().length];
+        for(int i = 0; i < metrics.length; i++)
+            metrics[i] = map.getDouble(recordOffset + METRICS_OFFSET + i * 8);
+        res.setMetrics(metrics);
+
+        long[] position = {recordOffset + METRICS_OFFSET + metrics.length * 8};
+        res.setKey(new Key(readString(position), readString(position), readString(position)));
+        res.setParams(readString(position));
+
+        return res;
+    }
+
+    /**
+     * Rewrites the store keeping only the last records of every unit. New file is written aside and atomically
+     * moved over the old one, so a crash during compaction leaves the old store intact.
+     * @param keepRunsPerUnit amount of latest records kept for every unit key
+     */
+    public synchronized void compact(int keepRunsPerUnit) throws IOException {
+        Set<Long> kept = new HashSet<>();
+        for(Offsets offsets : index.values())
+            for(int i = Math.max(0, offsets.size - Math.max(1, keepRunsPerUnit)); i < offsets.size; i++)
+                kept.add(offsets.values[i]);
+
+        Path compacted = file.resolveSibling(file.getFileName() + ".compacting");
+
+        try(FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            long position = 0;
+            position += writeAll(out, map.slice(0, FILE_HEADER_SIZE), position);
+
+            // Runs keep their numbers, records are copied as is (with their CRC) straight from the mapping
+            for(Map.Entry<Long, Offsets> run : runs.entrySet()){
+                int units = 0;
+
+                for(int i = 0; i < run.getValue().size; i++){
+                    long offset = run.getValue().values[i];
+
+                    if(!kept.contains(offset))
+                        continue;
+
+                    position += writeAll(out, map.slice(offset, RECORD_HEADER_SIZE + map.getInt(offset + 5)), position);
+                    ++units;
+                }
+
+                if(units == 0)
+                    continue;
+
+                ByteArrayOutputStream commit = new ByteArrayOutputStream();
+                try(DataOutputStream commitOut = new DataOutputStream(commit)){
+                    commitOut.writeLong(run.getKey());
+                    commitOut.writeInt(units);
+                }
+
+                ByteArrayOutputStream record = new ByteArrayOutputStream();
+                writeRecord(record, COMMIT_RECORD, commit.toByteArray());
+                position += writeAll(out, ByteBuffer.wrap(record.toByteArray()), position);
+            }
+
+            out.force(true);
+        }
+
+        close();
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        load();
+    }
+
+    private static long writeAll(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        long written = 0;
+        while(buffer.hasRemaining())
+            written += out.write(buffer, position + written);
+
+        return written;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map.clear();
+
+        if(lock != null && lock.isValid())
+            lock.release();
+
+        if(channel != null)
+            channel.close();
+    }
+
+    /**
+     * Read-only view of the file mapped in windows and addressed by long offsets. Values crossing a window border are
+     * assembled from both windows.
+     */
+    private static final class Mapping {
+        private static final int WINDOW_BITS = 30;
+        private static final long WINDOW_SIZE = 1L << WINDOW_BITS;
+
+        private final List<MappedByteBuffer> windows = new ArrayList<>();
+        private long size;
+
+        void remap(FileChannel channel) throws IOException {
+            long newSize = channel.size();
+
+            // Full windows inside the file stay mapped, the rest is mapped anew
+            while(!windows.isEmpty() && (windows.get(windows.size() - 1).capacity() < WINDOW_SIZE || windows.size() * WINDOW_SIZE > newSize))
+                windows.remove(windows.size() - 1);
+
+            for(long start = windows.size() * WINDOW_SIZE; start < newSize; start += WINDOW_SIZE)
+                windows.add(channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, newSize - start)));
+
+            size = newSize;
+        }
+
+        void clear(){
+            windows.clear();
+            size = 0;
+        }
+
+        long size(){
+            return size;
+        }
+
+        byte get(long position){
+            return window(position).get(offset(position));
+        }
+
+        int getInt(long position){
+            MappedByteBuffer window = window(position);
+            int offset = offset(position);
+
+            return offset + 4 <= window.capacity() ? window.getInt(offset) : slice(position, 4).getInt(0);
+        }
+
+        long getLong(long position){
+            MappedByteBuffer window = window(position);
+            int offset = offset(position);
+
+            return offset + 8 <= window.capacity() ? window.getLong(offset) : slice(position, 8).getLong(0);
+        }
+
+        double getDouble(long position){
+            return Double.longBitsToDouble(getLong(position));
+        }
+
+        /**
+         * Bytes of the given range: a slice of the mapping or, when range crosses a window border, their copy.
+         */
+        ByteBuffer slice(long position, int length){
+            if(length == 0)
+                return ByteBuffer.allocate(0);
+
+            MappedByteBuffer window = window(position);
+            int offset = offset(position);
+
+            if(offset + length <= window.capacity())
+                return window.slice(offset, length);
+
+            ByteBuffer joined = ByteBuffer.allocate(length);
+            while(joined.hasRemaining()){
+                window = window(position);
+                offset = offset(position);
+
+                int chunk = Math.min(joined.remaining(), window.capacity() - offset);
+                joined.put(window.slice(offset, chunk));
+                position += chunk;
+            }
+
+            return joined.flip();
+        }
+
+        private MappedByteBuffer window(long position){
+            return windows.get((int) (position >>> WINDOW_BITS));
+        }
+
+        private static int offset(long position){
+            return (int) (position & (WINDOW_SIZE - 1));
+        }
+    }
+
+    /**
+     * Growable list of record offsets, so large histories are kept without boxing.
+     */
+    private static final class Offsets {
+        private long[] values = new long[8];
+        private int size;
+
+        void add(long value){
+            if(size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.github.DiachenkoMD.lightrun.export;
+
+import com.github.DiachenkoMD.lightrun.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+/**
+ * Exports {@link BenchmarkResults} with full distribution statistics and environment metadata to JSON or CSV.
+ */
+public class ResultsExporter {
+    private static final List<String> CSV_HEADER = List.of(
+            "uid", "name", "status", "failure", "method", "params", "arguments", "argumentsNanos", "result", "timer", "score", "scoreUnit",
+            "samples", "mean", "stdDev", "min", "max", "p50", "p90", "p99", "p999", "ciLower", "ciUpper",
+            "overheadNanos", "batchSize", "opsPerInvocation", "warmupNanos", "steadyState",
+            "opsPerSecond", "allocBytesPerOp", "gcCount", "gcTimeMillis", "histogramCount", "p9999",
+            "profileSamples", "profilerOverhead", "profileFile",
+            "comparison", "comparedTo", "speedup", "speedupCiLower", "speedupCiUpper", "speedupSignificant",
+            "shallowBytes", "retainedBytes", "retainedObjects"
+    );
+
+    public static String toJson(BenchmarkResults<?> results){
+        Environment env = Environment.current();
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("{\n");
+        sb.append("  \"uid\": ").append(Json.quote(results.getUID())).append(",\n");
+        sb.append("  \"environment\": {")
+                .append("\"jvmName\": ").append(Json.quote(env.getJvmName()))
+                .append(", \"jvmVendor\": ").append(Json.quote(env.getJvmVendor()))
+                .append(", \"jvmVersion\": ").append(Json.quote(env.getJvmVersion()))
+                .append(", \"osName\": ").append(Json.quote(env.getOsName()))
+                .append(", \"osArch\": ").append(Json.quote(env.getOsArch()))
+                .append(", \"availableProcessors\": ").append(env.getAvailableProcessors())
+                .append(", \"maxHeapBytes\": ").append(env.getMaxHeapBytes())
+                .append(", \"jvmFlags\": ").append(env.getJvmFlags().stream().map(Json::quote).collect(Collectors.joining(", ", "[", "]")))
+                .append(", \"timestamp\": ").append(Json.quote(env.getTimestamp()))
+                .append(", \"timerGranularityNanos\": ").append(Json.number(env.getTimerGranularityNanos()))
+                .append(", \"timerLatencyNanos\": ").append(Json.number(env.getTimerLatencyNanos()))
+                .append("},\n");
+        sb.append("  \"results\": [");
+
+        List<BenchmarkUnitResult> units = results.getResults() != null ? results.getResults() : List.of();
+
+        StringJoiner unitsJoiner = new StringJoiner(",\n    ", "\n    ", "\n  ");
+        unitsJoiner.setEmptyValue("");
+
+        for(BenchmarkUnitResult unit : units)
+            unitsJoiner.add(unitToJson(unit));
+
+        sb.append(unitsJoiner).append("]\n");
+        sb.append("}\n");
+
+        return sb.toString();
+    }
+
+    /**
+     * Whole suite as one document: every benchmark is exported as by {@link #toJson(BenchmarkResults)}.
+     */
+    public static String toJson(SuiteResults suite){
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("{\n");
+        sb.append("  \"wallClockNanos\": ").append(suite.getWallClockNanos()).append(",\n");
+        sb.append("  \"skipped\": ").append(suite.getSkipped().stream().map(Json::quote).collect(Collectors.joining(", ", "[", "]"))).append(",\n");
+        sb.append("  \"benchmarks\": [");
+
+        StringJoiner benchmarksJoiner = new StringJoiner(",\n", "\n", "\n  ");
+        benchmarksJoiner.setEmptyValue("");
+
+        for(BenchmarkResults<?> results : suite.getResults())
+            benchmarksJoiner.add(toJson(results).strip());
+
+        sb.append(benchmarksJoiner).append("]\n");
+        sb.append("}\n");
+
+        return sb.toString();
+    }
+
+    private static String unitToJson(BenchmarkUnitResult unit){
+        StringBuilder sb = new StringBuilder("{");
+
+        sb.append("\"name\": ").append(Json.quote(unit.getName()));
+        sb.append(", \"status\": ").append(Json.quote(unit.getStatus().name()));
+        if(unit.getFailure() != null)
+            sb.append(", \"failure\": ").append(Json.quote(unit.getFailure()));
+        sb.append(", \"method\": ").append(Json.quote(unit.getOriginMethod() != null ? ForkedRunner.signature(unit.getOriginMethod()) : null));
+        sb.append(", \"params\": ").append(params(unit).entrySet().stream().map(e -> Json.quote(e.getKey()) + ": " + Json.quote(e.getValue())).collect(Collectors.joining(", ", "{", "}")));
+        sb.append(", \"arguments\": ").append(Arrays.stream(arguments(unit)).map(Json::quote).collect(Collectors.joining(", ", "[", "]")));
+        sb.append(", \"result\": ").append(Json.quote(String.valueOf(unit.getResult())));
+        sb.append(", \"argumentsNanos\": ").append(unit.getArgumentsNanos());
+        sb.append(", \"nanos\": ").append(unit.getTime() != null ? unit.getTime().getNanos() : 0);
+
+        // Failed units have no score
+        Time time = unit.getTime();
+        if(time != null && !unit.isFailed()){
+            sb.append(", \"time\": {")
+                    .append("\"timer\": ").append(Json.quote(time.getMode().name()))
+                    .append(", \"score\": ").append(Json.number(time.getScaled()))
+                    .append(", \"scoreUnit\": ").append(Json.quote(time.getScale().getSymbol()))
+                    .append(", \"ticks\": ").append(time.getTicks())
+                    .append(", \"tickNanos\": ").append(time.getTickNanos())
+                    .append("}");
+        }
+
+        Statistics stats = unit.getStatistics();
+        if(stats != null){
+            sb.append(", \"statistics\": {")
+                    .append("\"count\": ").append(stats.getCount())
+                    .append(", \"mean\": ").append(Json.number(stats.getMean()))
+                    .append(", \"stdDev\": ").append(Json.number(stats.getStdDev()))
+                    .append(", \"min\": ").append(Json.number(stats.getMin()))
+                    .append(", \"max\": ").append(Json.number(stats.getMax()))
+                    .append(", \"p50\": ").append(Json.number(stats.getP50()))
+                    .append(", \"p90\": ").append(Json.number(stats.getP90()))
+                    .append(", \"p99\": ").append(Json.number(stats.getP99()))
+                    .append(", \"p999\": ").append(Json.number(stats.getP999()))
+                    .append(", \"ciLower\": ").append(Json.number(stats.getCiLower()))
+                    .append(", \"ciUpper\": ").append(Json.number(stats.getCiUpper()))
+                    .append(", \"confidence\": ").append(Json.number(Statistics.CONFIDENCE))
+                    .append("}");
+        }
+
+        sb.append(", \"overheadNanos\": ").append(Json.number(unit.getOverheadNanos()));
+        sb.append(", \"batchSize\": ").append(unit.getBatchSize());
+        sb.append(", \"operationsPerInvocation\": ").append(unit.getOperationsPerInvocation());
+
+        WarmupResult warmup = unit.getWarmup();
+        if(warmup != null){
+            sb.append(", \"warmup\": {")
+                    .append("\"nanos\": ").append(warmup.getNanos())
+                    .append(", \"iterations\": ").append(warmup.getIterations())
+                    .append(", \"steadyState\": ").append(warmup.isSteadyState())
+                    .append("}");
+        }
+
+        ThroughputResult throughput = unit.getThroughput();
+        if(throughput != null){
+            sb.append(", \"throughput\": {")
+                    .append("\"threads\": ").append(throughput.getThreads())
+                    .append(", \"operations\": ").append(throughput.getOperations())
+                    .append(", \"opsPerSecond\": ").append(Json.number(throughput.getOpsPerSecond()))
+                    .append(", \"threadOpsPerSecond\": ").append(Arrays.stream(throughput.getThreadOpsPerSecond()).mapToObj(Json::number).collect(Collectors.joining(", ", "[", "]")))
+                    .append("}");
+        }
+
+        LatencyHistogram histogram = unit.getHistogram();
+        if(histogram != null){
+            sb.append(", \"histogram\": {")
+                    .append("\"count\": ").append(histogram.getCount())
+                    .append(", \"min\": ").append(histogram.getMin())
+                    .append(", \"p50\": ").append(histogram.getValueAtPercentile(0.5))
+                    .append(", \"p90\": ").append(histogram.getValueAtPercentile(0.9))
+                    .append(", \"p99\": ").append(histogram.getValueAtPercentile(0.99))
+                    .append(", \"p999\": ").append(histogram.getValueAtPercentile(0.999))
+                    .append(", \"p9999\": ").append(histogram.getValueAtPercentile(0.9999))
+                    .append(", \"max\": ").append(histogram.getMax())
+                    .append("}");
+        }
+
+        AllocationResult allocation = unit.getAllocation();
+        if(allocation != null){
+            sb.append(", \"allocation\": {")
+                    .append("\"allocatedBytes\": ").append(allocation.getAllocatedBytes())
+                    .append(", \"operations\": ").append(allocation.getOperations())
+                    .append(", \"bytesPerOp\": ").append(Json.number(allocation.getAllocatedBytesPerOp()))
+                    .append(", \"gcCount\": ").append(allocation.getGcCount())
+                    .append(", \"gcTimeMillis\": ").append(allocation.getGcTimeMillis())
+                    .append("}");
+        }
+
+        ProfileResult profile = unit.getProfile();
+        if(profile != null){
+            sb.append(", \"profile\": {")
+                    .append("\"mode\": ").append(Json.quote(profile.getMode().name()))
+                    .append(", \"intervalMillis\": ").append(profile.getIntervalMillis())
+                    .append(", \"samples\": ").append(profile.getSamples())
+                    .append(", \"samplerCpuShare\": ").append(Json.number(profile.getSamplerCpuShare()))
+                    .append(", \"controlMeanNanos\": ").append(Json.number(profile.getControlMeanNanos()))
+                    .append(", \"observedOverhead\": ").append(Json.number(stats != null ? profile.getObservedOverhead(stats.getMean()) : Double.NaN))
+                    .append(", \"file\": ").append(Json.quote(profile.getFile()))
+                    .append("}");
+        }
+
+        ComparisonResult comparison = unit.getComparison();
+        if(comparison != null){
+            sb.append(", \"comparison\": {")
+                    .append("\"key\": ").append(Json.quote(comparison.getKey()))
+                    .append(", \"baseline\": ").append(Json.quote(comparison.getBaseline()))
+                    .append(", \"rounds\": ").append(comparison.getRounds())
+                    .append(", \"speedup\": ").append(Json.number(comparison.getSpeedup()))
+                    .append(", \"ciLower\": ").append(Json.number(comparison.getCiLower()))
+                    .append(", \"ciUpper\": ").append(Json.number(comparison.getCiUpper()))
+                    .append(", \"tStatistic\": ").append(Json.number(comparison.getTStatistic()))
+                    .append(", \"significant\": ").append(comparison.isSignificant())
+                    .append("}");
+        }
+
+        FootprintResult footprint = unit.getFootprint();
+        if(footprint != null){
+            sb.append(", \"footprint\": {")
+                    .append("\"shallowBytes\": ").append(footprint.getShallowBytes())
+                    .append(", \"retainedBytes\": ").append(footprint.getRetainedBytes())
+                    .append(", \"retainedObjects\": ").append(footprint.getRetainedObjects())
+                    .append("}");
+        }
+
+        return sb.append("}").toString();
+    }
+
+    public static String toCsv(BenchmarkResults<?> results){
+        StringBuilder sb = new StringBuilder(csvPreamble());
+
+        if(results.getResults() == null)
+            return sb.toString();
+
+        for(BenchmarkUnitResult unit : results.getResults())
+            sb.append(csvRow(results.getUID(), unit)).append('\n');
+
+        return sb.toString();
+    }
+
+    /**
+     * Environment metadata as leading comment lines (so the rest stays a plain CSV) followed by the header row.
+     */
+    public static String csvPreamble(){
+        Environment env = Environment.current();
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("# jvm=").append(env.getJvmName()).append(' ').append(env.getJvmVersion()).append(" (").append(env.getJvmVendor()).append(")\n");
+        sb.append("# os=").append(env.getOsName()).append(' ').append(env.getOsArch()).append('\n');
+        sb.append("# cpus=").append(env.getAvailableProcessors()).append('\n');
+        sb.append("# maxHeapBytes=").append(env.getMaxHeapBytes()).append('\n');
+        sb.append("# jvmFlags=").append(String.join(" ", env.getJvmFlags())).append('\n');
+        sb.append("# timestamp=").append(env.getTimestamp()).append('\n');
+        sb.append("# timer=").append(String.format(Locale.ROOT, "granularity %.1f ns, latency %.1f ns", env.getTimerGranularityNanos(), env.getTimerLatencyNanos())).append('\n');
+
+        sb.append(String.join(",", CSV_HEADER)).append('\n');
+
+        return sb.toString();
+    }
+
+    public static String csvRow(String uid, BenchmarkUnitResult unit){
+        Statistics stats = unit.getStatistics();
+        WarmupResult warmup = unit.getWarmup();
+        ThroughputResult throughput = unit.getThroughput();
+        AllocationResult allocation = unit.getAllocation();
+        ProfileResult profile = unit.getProfile();
+
+        StringJoiner row = new StringJoiner(",");
+        row.add(csv(uid));
+        row.add(csv(unit.getName()));
+        row.add(unit.getStatus().name());
+        row.add(csv(unit.getFailure() != null ? unit.getFailure() : ""));
+        row.add(csv(unit.getOriginMethod() != null ? ForkedRunner.signature(unit.getOriginMethod()) : ""));
+        row.add(csv(params(unit).entrySet().stream().map(e -> e.getKey() + "=" + e.getValue()).collect(Collectors.joining(";"))));
+        row.add(csv(String.join(";", arguments(unit))));
+        row.add(String.valueOf(unit.getArgumentsNanos()));
+        row.add(csv(String.valueOf(unit.getResult())));
+        row.add(unit.getTime() != null ? unit.getTime().getMode().name() : "");
+        row.add(unit.getTime() != null && !unit.isFailed() ? csvNumber(unit.getTime().getScaled()) : "");
+        row.add(unit.getTime() != null ? csv(unit.getTime().getScale().getSymbol()) : "");
+
+        if(stats != null){
+            row.add(String.valueOf(stats.getCount()));
+            for(double value : new double[]{stats.getMean(), stats.getStdDev(), stats.getMin(), stats.getMax(), stats.getP50(), stats.getP90(), stats.getP99(), stats.getP999(), stats.getCiLower(), stats.getCiUpper()})
+                row.add(csvNumber(value));
+        }else{
+            for(int i = 0; i < 11; i++)
+                row.add("");
+        }
+
+        row.add(csvNumber(unit.getOverheadNanos()));
+        row.add(String.valueOf(unit.getBatchSize()));
+        row.add(String.valueOf(unit.getOperationsPerInvocation()));
+        row.add(warmup != null ? String.valueOf(warmup.getNanos()) : "");
+        row.add(warmup != null ? String.valueOf(warmup.isSteadyState()) : "");
+        row.add(throughput != null ? csvNumber(throughput.getOpsPerSecond()) : "");
+        row.add(allocation != null ? csvNumber(allocation.getAllocatedBytesPerOp()) : "");
+        row.add(allocation != null ? String.valueOf(allocation.getGcCount()) : "");
+        row.add(allocation != null ? String.valueOf(allocation.getGcTimeMillis()) : "");
+        row.add(unit.getHistogram() != null ? String.valueOf(unit.getHistogram().getCount()) : "");
+        row.add(unit.getHistogram() != null ? String.valueOf(unit.getHistogram().getValueAtPercentile(0.9999)) : "");
+        row.add(profile != null ? String.valueOf(profile.getSamples()) : "");
+        row.add(profile != null ? csvNumber(profile.getOverhead(stats != null ? stats.getMean() : Double.NaN)) : "");
+        row.add(profile != null ? csv(profile.getFile()) : "");
+
+        ComparisonResult comparison = unit.getComparison();
+        row.add(comparison != null ? csv(comparison.getKey()) : "");
+        row.add(comparison != null ? csv(comparison.getBaseline()) : "");
+        row.add(comparison != null ? csvNumber(comparison.getSpeedup()) : "");
+        row.add(comparison != null ? csvNumber(comparison.getCiLower()) : "");
+        row.add(comparison != null ? csvNumber(comparison.getCiUpper()) : "");
+        row.add(comparison != null ? String.valueOf(comparison.isSignificant()) : "");
+
+        FootprintResult footprint = unit.getFootprint();
+        row.add(footprint != null ? String.valueOf(footprint.getShallowBytes()) : "");
+        row.add(footprint != null ? String.valueOf(footprint.getRetainedBytes()) : "");
+        row.add(footprint != null ? String.valueOf(footprint.getRetainedObjects()) : "");
+
+        return row.toString();
+    }
+
+    public static void writeJson(BenchmarkResults<?> results, Path file) throws IOException {
+        Files.writeString(file, toJson(results), StandardCharsets.UTF_8);
+    }
+
+    public static void writeCsv(BenchmarkResults<?> results, Path file) throws IOException {
+        Files.writeString(file, toCsv(results), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Key identifying the same unit and arguments set across different runs.
+     */
+    public static String unitKey(String name, List<String> arguments){
+        return name + " " + arguments;
+    }
+
+    static String[] arguments(BenchmarkUnitResult unit){
+        if(unit.getInjected() == null || unit.getInjected().getArgs() == null)
+            return new String[0];
+
+        return Arrays.stream(unit.getInjected().getArgs()).map(String::valueOf).toArray(String[]::new);
+    }
+
+    static Map<String, String> params(BenchmarkUnitResult unit){
+        return unit.getParams() != null ? unit.getParams() : Map.of();
+    }
+
+    private static String csv(String value){
+        if(value == null)
+            return "";
+
+        if(value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0)
+            return '"' + value.replace("\"", "\"\"") + '"';
+
+        return value;
+    }
+
+    private static String csvNumber(double value){
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.4f", value);
+    }
+}
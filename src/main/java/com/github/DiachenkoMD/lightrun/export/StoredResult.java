@@ -0,0 +1,21 @@
+package com.github.DiachenkoMD.lightrun.export;
+
+import lombok.Data;
+
+/**
+ * Unit result read back from {@link ResultStore}: key of the unit, run it belongs to and its stored metrics.
+ */
+@Data
+public class StoredResult {
+    private ResultStore.Key key;
+    private String params;
+    // Sequence number of the run (every append is a run) and its wall-clock time
+    private long run;
+    private long timestampMillis;
+    // Values indexed by ResultStore.Metric ordinal, NaN - metric was not measured for the unit
+    private double[] metrics;
+
+    public double get(ResultStore.Metric metric){
+        return metrics[metric.ordinal()];
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.DiachenkoMD.lightrun.export;
+
+import lombok.Data;
+
+/**
+ * Comparison of the same unit (and arguments set) between baseline and current run.
+ */
+@Data
+public class UnitComparison {
+    private String key;
+    private double baselineMean;
+    private double currentMean;
+    // Relative change of mean time, positive - slower than baseline
+    private double change;
+    private double tStatistic;
+    private boolean significant;
+    private boolean regressed;
+
+    public boolean isImproved(){
+        return significant && !regressed && change < 0;
+    }
+}